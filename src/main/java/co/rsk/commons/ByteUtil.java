@@ -196,7 +196,7 @@ public class ByteUtil {
      * @see Hex#toHexString
      */
     public static String toHexString(byte[] data) {
-        return data == null ? "" : Hex.toHexString(data);
+        return data == null ? "" : HexCodec.encode(data);
     }
 
     /**
@@ -521,8 +521,6 @@ public class ByteUtil {
     }
 
     public static boolean fastEquals(byte[] left, byte[] right) {
-        return FastByteComparisons.compareTo(
-                left, 0, left.length,
-                right, 0, right.length) == 0;
+        return FastByteComparisons.equalBytes(left, right);
     }
 }
@@ -0,0 +1,263 @@
+package co.rsk.commons;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing hash map from 32 byte keys, such as namehash nodes, to {@code long} values.
+ * <p>
+ * Keys are stored inline as four longs in a single {@code long[]} and values in a parallel
+ * {@code long[]}, so an entry takes about 40 bytes plus the free slots instead of a wrapper, an array,
+ * a map entry and a boxed value. Bigger values can be kept in a slab and referenced by their offset.
+ * Lookups read the key from the caller array and do not allocate. Slots are probed linearly and
+ * removals shift the following entries back, there are no tombstones.
+ * <p>
+ * The all zero key is kept apart because zero marks a free slot. Not thread safe.
+ */
+public final class Bytes32LongMap {
+
+    public static final int KEY_LENGTH = 32;
+
+    private static final float LOAD_FACTOR = 0.75f;
+    private static final int MAX_CAPACITY = 1 << 28;
+
+    private long[] keys;
+    private long[] values;
+    private int mask;
+    private int size;
+    private int resizeAt;
+    private boolean hasZeroKey;
+    private long zeroValue;
+
+    public Bytes32LongMap() {
+        this(16);
+    }
+
+    public Bytes32LongMap(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Invalid expected size: " + expectedSize);
+        }
+        allocate(capacityFor(expectedSize));
+    }
+
+    public int size() {
+        return size + (hasZeroKey ? 1 : 0);
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public boolean containsKey(byte[] key) {
+        return containsKey(key, 0);
+    }
+
+    public boolean containsKey(byte[] key, int offset) {
+        long k0 = readLong(key, offset);
+        long k1 = readLong(key, offset + 8);
+        long k2 = readLong(key, offset + 16);
+        long k3 = readLong(key, offset + 24);
+        if ((k0 | k1 | k2 | k3) == 0) {
+            return hasZeroKey;
+        }
+        return find(k0, k1, k2, k3) >= 0;
+    }
+
+    /**
+     * @return the value of the key, or {@code missingValue} if it is not in the map
+     */
+    public long get(byte[] key, long missingValue) {
+        return get(key, 0, missingValue);
+    }
+
+    public long get(byte[] key, int offset, long missingValue) {
+        long k0 = readLong(key, offset);
+        long k1 = readLong(key, offset + 8);
+        long k2 = readLong(key, offset + 16);
+        long k3 = readLong(key, offset + 24);
+        if ((k0 | k1 | k2 | k3) == 0) {
+            return hasZeroKey ? zeroValue : missingValue;
+        }
+        int slot = find(k0, k1, k2, k3);
+        return slot < 0 ? missingValue : values[slot];
+    }
+
+    public void put(byte[] key, long value) {
+        put(key, 0, value);
+    }
+
+    public void put(byte[] key, int offset, long value) {
+        long k0 = readLong(key, offset);
+        long k1 = readLong(key, offset + 8);
+        long k2 = readLong(key, offset + 16);
+        long k3 = readLong(key, offset + 24);
+        if ((k0 | k1 | k2 | k3) == 0) {
+            hasZeroKey = true;
+            zeroValue = value;
+            return;
+        }
+        int slot = find(k0, k1, k2, k3);
+        if (slot >= 0) {
+            values[slot] = value;
+            return;
+        }
+        if (size >= resizeAt) {
+            grow();
+        }
+        insert(k0, k1, k2, k3, value);
+        size++;
+    }
+
+    /**
+     * @return whether the key was in the map
+     */
+    public boolean remove(byte[] key) {
+        return remove(key, 0);
+    }
+
+    public boolean remove(byte[] key, int offset) {
+        long k0 = readLong(key, offset);
+        long k1 = readLong(key, offset + 8);
+        long k2 = readLong(key, offset + 16);
+        long k3 = readLong(key, offset + 24);
+        if ((k0 | k1 | k2 | k3) == 0) {
+            boolean had = hasZeroKey;
+            hasZeroKey = false;
+            zeroValue = 0;
+            return had;
+        }
+        int slot = find(k0, k1, k2, k3);
+        if (slot < 0) {
+            return false;
+        }
+        shiftBack(slot);
+        size--;
+        return true;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        Arrays.fill(values, 0L);
+        size = 0;
+        hasZeroKey = false;
+        zeroValue = 0;
+    }
+
+    /**
+     * @return the slot of the key, or -1
+     */
+    private int find(long k0, long k1, long k2, long k3) {
+        int slot = slot(k0, k1, k2, k3);
+        while (true) {
+            int base = slot << 2;
+            long s0 = keys[base];
+            long s1 = keys[base + 1];
+            long s2 = keys[base + 2];
+            long s3 = keys[base + 3];
+            if ((s0 | s1 | s2 | s3) == 0) {
+                return -1;
+            }
+            if (s0 == k0 && s1 == k1 && s2 == k2 && s3 == k3) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private void insert(long k0, long k1, long k2, long k3, long value) {
+        int slot = slot(k0, k1, k2, k3);
+        while (!isFree(slot)) {
+            slot = (slot + 1) & mask;
+        }
+        int base = slot << 2;
+        keys[base] = k0;
+        keys[base + 1] = k1;
+        keys[base + 2] = k2;
+        keys[base + 3] = k3;
+        values[slot] = value;
+    }
+
+    /**
+     * Frees the slot and moves back the entries of the same run that can take its place, so
+     * lookups never stop at a gap before their key.
+     */
+    private void shiftBack(int free) {
+        int slot = free;
+        while (true) {
+            slot = (slot + 1) & mask;
+            if (isFree(slot)) {
+                break;
+            }
+            int base = slot << 2;
+            int home = slot(keys[base], keys[base + 1], keys[base + 2], keys[base + 3]);
+            // the entry stays if its home is cyclically in (free, slot]
+            if (free <= slot ? (free < home && home <= slot) : (free < home || home <= slot)) {
+                continue;
+            }
+            System.arraycopy(keys, base, keys, free << 2, 4);
+            values[free] = values[slot];
+            free = slot;
+        }
+        int base = free << 2;
+        keys[base] = 0;
+        keys[base + 1] = 0;
+        keys[base + 2] = 0;
+        keys[base + 3] = 0;
+        values[free] = 0;
+    }
+
+    private boolean isFree(int slot) {
+        int base = slot << 2;
+        return (keys[base] | keys[base + 1] | keys[base + 2] | keys[base + 3]) == 0;
+    }
+
+    private int slot(long k0, long k1, long k2, long k3) {
+        long hash = (k0 ^ k1 ^ k2 ^ k3) * 0x9e3779b97f4a7c15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private void grow() {
+        int capacity = mask + 1;
+        if (capacity >= MAX_CAPACITY) {
+            throw new IllegalStateException("Map is full");
+        }
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        allocate(capacity * 2);
+        for (int slot = 0; slot < capacity; slot++) {
+            int base = slot << 2;
+            if ((oldKeys[base] | oldKeys[base + 1] | oldKeys[base + 2] | oldKeys[base + 3]) != 0) {
+                insert(oldKeys[base], oldKeys[base + 1], oldKeys[base + 2], oldKeys[base + 3], oldValues[slot]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity * 4];
+        values = new long[capacity];
+        mask = capacity - 1;
+        resizeAt = Math.min(capacity - 1, (int) (capacity * LOAD_FACTOR));
+    }
+
+    private static int capacityFor(int expectedSize) {
+        long needed = (long) Math.ceil(expectedSize / LOAD_FACTOR) + 1;
+        if (needed > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Too many entries: " + expectedSize);
+        }
+        int capacity = 16;
+        while (capacity < needed) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private static long readLong(byte[] in, int off) {
+        return ((long) (in[off] & 0xff) << 56)
+                | ((long) (in[off + 1] & 0xff) << 48)
+                | ((long) (in[off + 2] & 0xff) << 40)
+                | ((long) (in[off + 3] & 0xff) << 32)
+                | ((long) (in[off + 4] & 0xff) << 24)
+                | ((long) (in[off + 5] & 0xff) << 16)
+                | ((long) (in[off + 6] & 0xff) << 8)
+                | ((long) (in[off + 7] & 0xff));
+    }
+}
@@ -228,55 +228,60 @@ public final class DataWord implements Comparable<DataWord> {
         return new DataWord(newdata);
     }
 
-    // TODO: mul can be done in more efficient way
-    // TODO:     with shift left shift right trick
-    // TODO      without BigInteger quick hack
     public DataWord mul(DataWord word) {
-        BigInteger result = value().multiply(word.value());
-        return valueOf(result.and(MAX_VALUE));
+        long[] result = limbs();
+        UInt256.mul(result, word.limbs(), result);
+        return fromLimbs(result);
     }
 
-    // TODO: improve with no BigInteger
     public DataWord div(DataWord word) {
 
         if (word.isZero()) {
             return DataWord.ZERO;
         }
 
-        BigInteger result = value().divide(word.value());
-        return valueOf(result.and(MAX_VALUE));
+        long[] result = limbs();
+        UInt256.divMod(result, word.limbs(), result, null);
+        return fromLimbs(result);
     }
 
-    // TODO: improve with no BigInteger
     public DataWord sDiv(DataWord word) {
         if (word.isZero()) {
             return DataWord.ZERO;
         }
 
-        BigInteger result = sValue().divide(word.sValue());
-        return valueOf(result.and(MAX_VALUE));
+        long[] dividend = limbs();
+        long[] divisor = word.limbs();
+        boolean negative = UInt256.isNegative(dividend) != UInt256.isNegative(divisor);
+        abs(dividend);
+        abs(divisor);
+        UInt256.divMod(dividend, divisor, dividend, null);
+        if (negative) {
+            UInt256.negate(dividend, dividend);
+        }
+        return fromLimbs(dividend);
     }
 
-    // TODO: improve with no BigInteger
     public DataWord sub(DataWord word) {
-        BigInteger result = value().subtract(word.value());
-        return valueOf(result.and(MAX_VALUE));
+        long[] result = limbs();
+        UInt256.sub(result, word.limbs(), result);
+        return fromLimbs(result);
     }
 
-    // TODO: improve with no BigInteger
     public DataWord exp(DataWord word) {
-        BigInteger result = value().modPow(word.value(), _2_256);
-        return valueOf(result);
+        long[] result = limbs();
+        UInt256.exp(result, word.limbs(), result);
+        return fromLimbs(result);
     }
 
-    // TODO: improve with no BigInteger
     public DataWord mod(DataWord word) {
         if (word.isZero()) {
             return DataWord.ZERO;
         }
 
-        BigInteger result = value().mod(word.value());
-        return valueOf(result.and(MAX_VALUE));
+        long[] result = limbs();
+        UInt256.divMod(result, word.limbs(), null, result);
+        return fromLimbs(result);
     }
 
     public DataWord sMod(DataWord word) {
@@ -284,10 +289,16 @@ public final class DataWord implements Comparable<DataWord> {
             return DataWord.ZERO;
         }
 
-        BigInteger result = sValue().abs().mod(word.sValue().abs());
-        result = (sValue().signum() == -1) ? result.negate() : result;
-
-        return valueOf(result.and(MAX_VALUE));
+        long[] dividend = limbs();
+        long[] divisor = word.limbs();
+        boolean negative = UInt256.isNegative(dividend);
+        abs(dividend);
+        abs(divisor);
+        UInt256.divMod(dividend, divisor, null, dividend);
+        if (negative) {
+            UInt256.negate(dividend, dividend);
+        }
+        return fromLimbs(dividend);
     }
 
     public DataWord addmod(DataWord word1, DataWord word2) {
@@ -295,8 +306,9 @@ public final class DataWord implements Comparable<DataWord> {
             return DataWord.ZERO;
         }
 
-        BigInteger result = value().add(word1.value()).mod(word2.value());
-        return valueOf(result.and(MAX_VALUE));
+        long[] result = limbs();
+        UInt256.addMod(result, word1.limbs(), word2.limbs(), result);
+        return fromLimbs(result);
     }
 
     public DataWord mulmod(DataWord word1, DataWord word2) {
@@ -304,8 +316,37 @@ public final class DataWord implements Comparable<DataWord> {
             return DataWord.ZERO;
         }
 
-        BigInteger result = value().multiply(word1.value()).mod(word2.value());
-        return valueOf(result.and(MAX_VALUE));
+        long[] result = limbs();
+        UInt256.mulMod(result, word1.limbs(), word2.limbs(), result);
+        return fromLimbs(result);
+    }
+
+    /**
+     * The value as four 64-bit limbs for {@link UInt256}, least significant first.
+     */
+    private long[] limbs() {
+        long[] limbs = new long[UInt256.LIMBS];
+        copyLimbs(limbs);
+        return limbs;
+    }
+
+    void copyLimbs(long[] limbs) {
+        UInt256.fromBytes(data, 0, limbs);
+    }
+
+    static DataWord fromLimbs(long[] limbs) {
+        byte[] newdata = new byte[BYTES];
+        UInt256.toBytes(limbs, newdata, 0);
+        return new DataWord(newdata);
+    }
+
+    /**
+     * Two's complement absolute value in place, the minimum value stays as 2^255 unsigned.
+     */
+    private static void abs(long[] limbs) {
+        if (UInt256.isNegative(limbs)) {
+            UInt256.negate(limbs, limbs);
+        }
     }
 
     @JsonValue
@@ -491,8 +532,4 @@ public final class DataWord implements Comparable<DataWord> {
         System.arraycopy(data, offset, copiedData, BYTES - length, dlen);
         return new DataWord(copiedData);
     }
-
-    private static DataWord valueOf(BigInteger data) {
-        return new DataWord(ByteUtil.copyToArray(data));
-    }
 }
@@ -0,0 +1,234 @@
+package co.rsk.commons;
+
+import java.math.BigInteger;
+
+/**
+ * Mutable 256-bit value for loops that add up or scale many words, such as token balances or
+ * prices times counts. The operations change the accumulator in place and wrap modulo 2^256 like
+ * {@link DataWord}, so a loop over {@link DataWord}, {@link Word256}, {@code long} or raw ABI words
+ * creates no garbage; only the final {@link #toDataWord()} allocates.
+ * <p>
+ * Not thread safe, use one accumulator per thread.
+ */
+public final class DataWordAccumulator {
+
+    private final long[] value = new long[UInt256.LIMBS];
+    private final long[] operand = new long[UInt256.LIMBS];
+    private UInt256.Scratch scratch;
+
+    public DataWordAccumulator() {
+    }
+
+    public DataWordAccumulator(DataWord initial) {
+        set(initial);
+    }
+
+    public DataWordAccumulator set(DataWord word) {
+        word.copyLimbs(value);
+        return this;
+    }
+
+    public DataWordAccumulator set(Word256 word) {
+        word.copyLimbs(value);
+        return this;
+    }
+
+    public DataWordAccumulator set(long word) {
+        value[0] = word;
+        value[1] = 0;
+        value[2] = 0;
+        value[3] = 0;
+        return this;
+    }
+
+    public DataWordAccumulator set(byte[] data, int offset) {
+        UInt256.fromBytes(data, offset, value);
+        return this;
+    }
+
+    public DataWordAccumulator set(BigInteger word) {
+        System.arraycopy(load(word), 0, value, 0, UInt256.LIMBS);
+        return this;
+    }
+
+    public DataWordAccumulator reset() {
+        return set(0);
+    }
+
+    public DataWordAccumulator add(DataWord word) {
+        word.copyLimbs(operand);
+        UInt256.add(value, operand, value);
+        return this;
+    }
+
+    public DataWordAccumulator add(Word256 word) {
+        word.copyLimbs(operand);
+        UInt256.add(value, operand, value);
+        return this;
+    }
+
+    /**
+     * Adds the word as an unsigned 64-bit value, like {@link DataWord#valueOf(long)}.
+     */
+    public DataWordAccumulator add(long word) {
+        UInt256.add(value, load(word), value);
+        return this;
+    }
+
+    /**
+     * Adds the 32 byte big endian word at the offset, for example from an ABI encoded result.
+     */
+    public DataWordAccumulator add(byte[] data, int offset) {
+        UInt256.fromBytes(data, offset, operand);
+        UInt256.add(value, operand, value);
+        return this;
+    }
+
+    /**
+     * Adds a decoded {@code uint256}. Like every {@link BigInteger} operand, the value is read
+     * through {@link BigInteger#toByteArray()}, which allocates, and must be unsigned and fit in
+     * 256 bits.
+     */
+    public DataWordAccumulator add(BigInteger word) {
+        UInt256.add(value, load(word), value);
+        return this;
+    }
+
+    public DataWordAccumulator sub(DataWord word) {
+        word.copyLimbs(operand);
+        UInt256.sub(value, operand, value);
+        return this;
+    }
+
+    public DataWordAccumulator sub(Word256 word) {
+        word.copyLimbs(operand);
+        UInt256.sub(value, operand, value);
+        return this;
+    }
+
+    public DataWordAccumulator sub(long word) {
+        UInt256.sub(value, load(word), value);
+        return this;
+    }
+
+    public DataWordAccumulator sub(byte[] data, int offset) {
+        UInt256.fromBytes(data, offset, operand);
+        UInt256.sub(value, operand, value);
+        return this;
+    }
+
+    public DataWordAccumulator sub(BigInteger word) {
+        UInt256.sub(value, load(word), value);
+        return this;
+    }
+
+    public DataWordAccumulator mul(DataWord word) {
+        word.copyLimbs(operand);
+        UInt256.mul(value, operand, value);
+        return this;
+    }
+
+    public DataWordAccumulator mul(Word256 word) {
+        word.copyLimbs(operand);
+        UInt256.mul(value, operand, value);
+        return this;
+    }
+
+    public DataWordAccumulator mul(long word) {
+        UInt256.mul(value, load(word), value);
+        return this;
+    }
+
+    public DataWordAccumulator mul(byte[] data, int offset) {
+        UInt256.fromBytes(data, offset, operand);
+        UInt256.mul(value, operand, value);
+        return this;
+    }
+
+    public DataWordAccumulator mul(BigInteger word) {
+        UInt256.mul(value, load(word), value);
+        return this;
+    }
+
+    /**
+     * Keeps the remainder of the division by the word, zero when dividing by zero like
+     * {@link DataWord#mod(DataWord)}.
+     */
+    public DataWordAccumulator mod(DataWord word) {
+        word.copyLimbs(operand);
+        return mod();
+    }
+
+    public DataWordAccumulator mod(Word256 word) {
+        word.copyLimbs(operand);
+        return mod();
+    }
+
+    public DataWordAccumulator mod(long word) {
+        load(word);
+        return mod();
+    }
+
+    public DataWordAccumulator mod(byte[] data, int offset) {
+        UInt256.fromBytes(data, offset, operand);
+        return mod();
+    }
+
+    public DataWordAccumulator mod(BigInteger word) {
+        load(word);
+        return mod();
+    }
+
+    public boolean isZero() {
+        return UInt256.isZero(value);
+    }
+
+    public DataWord toDataWord() {
+        return DataWord.fromLimbs(value);
+    }
+
+    public Word256 toWord256() {
+        return Word256.fromLimbs(value);
+    }
+
+    public BigInteger toBigInteger() {
+        return toDataWord().value();
+    }
+
+    @Override
+    public String toString() {
+        return toDataWord().toString();
+    }
+
+    private DataWordAccumulator mod() {
+        if (UInt256.isZero(operand)) {
+            return reset();
+        }
+        if (scratch == null) {
+            scratch = new UInt256.Scratch();
+        }
+        UInt256.divMod(value, operand, null, value, scratch);
+        return this;
+    }
+
+    private long[] load(long word) {
+        operand[0] = word;
+        operand[1] = 0;
+        operand[2] = 0;
+        operand[3] = 0;
+        return operand;
+    }
+
+    private long[] load(BigInteger word) {
+        if (word.signum() < 0 || word.bitLength() > 256) {
+            throw new IllegalArgumentException("Not an unsigned 256-bit value: " + word);
+        }
+        byte[] bytes = word.toByteArray();
+        int length = Math.min(bytes.length, 32);
+        load(0);
+        for (int i = 0; i < length; i++) {
+            operand[i >>> 3] |= (long) (bytes[bytes.length - 1 - i] & 0xff) << ((i & 7) << 3);
+        }
+        return operand;
+    }
+}
@@ -26,41 +26,16 @@ public class FastByteComparisons {
                       T buffer2, int offset2, int length2);
     }
 
-    private static Comparer<byte[]> lexicographicalComparerJavaImpl() {
-        return LexicographicalComparerHolder.PureJavaComparer.INSTANCE;
-    }
-
-
-    /**
-     *
-     * <p>Uses reflection to gracefully fall back to the Java implementation if
-     * {@code Unsafe} isn't available.
-     */
     private static class LexicographicalComparerHolder {
-        static final String UNSAFE_COMPARER_NAME =
-                LexicographicalComparerHolder.class.getName() + "$UnsafeComparer";
-
-        static final Comparer<byte[]> BEST_COMPARER = getBestComparer();
 
         /**
-         * Returns the Unsafe-using Comparer, or falls back to the pure-Java
-         * implementation if unable to do so.
+         * Eight bytes at a time. The Android SDK has no {@code Unsafe}, so the words are assembled from
+         * the bytes; a wrapping {@code ByteBuffer} would allocate on ART and read its longs byte by
+         * byte as well (see {@code FastByteComparisonsBenchmark}).
          */
-        static Comparer<byte[]> getBestComparer() {
-            try {
-                Class<?> theClass = Class.forName(UNSAFE_COMPARER_NAME);
+        static final Comparer<byte[]> BEST_COMPARER = WordComparer.INSTANCE;
 
-                // yes, UnsafeComparer does implement Comparer<byte[]>
-                @SuppressWarnings("unchecked")
-                Comparer<byte[]> comparer =
-                        (Comparer<byte[]>) theClass.getEnumConstants()[0];
-                return comparer;
-            } catch (Throwable t) { // ensure we really catch *everything*
-                return lexicographicalComparerJavaImpl();
-            }
-        }
-
-        private enum PureJavaComparer implements Comparer<byte[]> {
+        private enum WordComparer implements Comparer<byte[]> {
             INSTANCE;
 
             @Override
@@ -72,20 +47,83 @@ public class FastByteComparisons {
                         length1 == length2) {
                     return 0;
                 }
-                int end1 = offset1 + length1;
-                int end2 = offset2 + length2;
-                for (int i = offset1, j = offset2; i < end1 && j < end2; i++, j++) {
-                    int a = (buffer1[i] & 0xff);
-                    int b = (buffer2[j] & 0xff);
+                if (length1 == length2 && (length1 == 32 || length1 == 20)) {
+                    return compareKeys(buffer1, offset1, buffer2, offset2, length1);
+                }
+                int minLength = Math.min(length1, length2);
+                int words = minLength & ~7;
+                for (int i = 0; i < words; i += 8) {
+                    long a = readLong(buffer1, offset1 + i);
+                    long b = readLong(buffer2, offset2 + i);
+                    if (a != b) {
+                        return compareWords(a, b);
+                    }
+                }
+                for (int i = words; i < minLength; i++) {
+                    int a = (buffer1[offset1 + i] & 0xff);
+                    int b = (buffer2[offset2 + i] & 0xff);
                     if (a != b) {
                         return a - b;
                     }
                 }
                 return length1 - length2;
             }
-        }
 
+            /**
+             * Hashes and addresses, four words or two words and an int, without the loops.
+             */
+            private static int compareKeys(byte[] buffer1, int offset1, byte[] buffer2, int offset2, int length) {
+                long a = readLong(buffer1, offset1);
+                long b = readLong(buffer2, offset2);
+                if (a != b) {
+                    return compareWords(a, b);
+                }
+                a = readLong(buffer1, offset1 + 8);
+                b = readLong(buffer2, offset2 + 8);
+                if (a != b) {
+                    return compareWords(a, b);
+                }
+                if (length == 20) {
+                    a = readInt(buffer1, offset1 + 16);
+                    b = readInt(buffer2, offset2 + 16);
+                    return a == b ? 0 : compareWords(a << 32, b << 32);
+                }
+                a = readLong(buffer1, offset1 + 16);
+                b = readLong(buffer2, offset2 + 16);
+                if (a != b) {
+                    return compareWords(a, b);
+                }
+                a = readLong(buffer1, offset1 + 24);
+                b = readLong(buffer2, offset2 + 24);
+                return a == b ? 0 : compareWords(a, b);
+            }
 
+            /**
+             * @return the difference of the first unequal bytes of two different big endian words,
+             * as the byte at a time loop returns it
+             */
+            private static int compareWords(long a, long b) {
+                int shift = 56 - (Long.numberOfLeadingZeros(a ^ b) & ~7);
+                return (int) ((a >>> shift) & 0xff) - (int) ((b >>> shift) & 0xff);
+            }
+
+            private static long readLong(byte[] in, int off) {
+                return ((long) (in[off] & 0xff) << 56)
+                        | ((long) (in[off + 1] & 0xff) << 48)
+                        | ((long) (in[off + 2] & 0xff) << 40)
+                        | ((long) (in[off + 3] & 0xff) << 32)
+                        | ((long) (in[off + 4] & 0xff) << 24)
+                        | ((long) (in[off + 5] & 0xff) << 16)
+                        | ((long) (in[off + 6] & 0xff) << 8)
+                        | ((long) (in[off + 7] & 0xff));
+            }
+
+            private static long readInt(byte[] in, int off) {
+                return ((long) (in[off] & 0xff) << 24)
+                        | ((in[off + 1] & 0xff) << 16)
+                        | ((in[off + 2] & 0xff) << 8)
+                        | (in[off + 3] & 0xff);
+            }
+        }
     }
 }
-
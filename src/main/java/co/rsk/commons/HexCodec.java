@@ -0,0 +1,203 @@
+package co.rsk.commons;
+
+import org.bouncycastle.util.encoders.DecoderException;
+import org.bouncycastle.util.encoders.Hex;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Lower case hex encoding and decoding through lookup tables.
+ * <p>
+ * Decoding accepts an optional {@code 0x} prefix and odd lengths, read as if they had a leading
+ * {@code 0}, without building intermediate strings, and can write into a caller supplied array or
+ * buffer. Input the tables reject is handed to {@link Hex#decode(String)}, so invalid characters
+ * throw the same {@link DecoderException} as before and {@link #decode(CharSequence)} still accepts
+ * the whitespace it skips. When decoding into an array or buffer, bytes before the invalid
+ * character may already have been written.
+ */
+public final class HexCodec {
+
+    // the two digits of every byte value, so a byte is encoded with a single lookup
+    private static final char[] ENCODE_TABLE = new char[512];
+    // the value of every ASCII digit, or -1
+    private static final byte[] DECODE_TABLE = new byte[128];
+
+    static {
+        char[] digits = "0123456789abcdef".toCharArray();
+        for (int i = 0; i < 256; i++) {
+            ENCODE_TABLE[i << 1] = digits[i >>> 4];
+            ENCODE_TABLE[(i << 1) + 1] = digits[i & 0xf];
+        }
+        Arrays.fill(DECODE_TABLE, (byte) -1);
+        for (int i = 0; i < 10; i++) {
+            DECODE_TABLE['0' + i] = (byte) i;
+        }
+        for (int i = 0; i < 6; i++) {
+            DECODE_TABLE['a' + i] = (byte) (10 + i);
+            DECODE_TABLE['A' + i] = (byte) (10 + i);
+        }
+    }
+
+    private HexCodec() {
+        throw new IllegalAccessError("Utility class");
+    }
+
+    public static String encode(byte[] data) {
+        return encode(data, 0, data.length);
+    }
+
+    public static String encode(byte[] data, int offset, int length) {
+        char[] out = new char[length << 1];
+        encode(data, offset, length, out, 0);
+        return new String(out);
+    }
+
+    /**
+     * @return the data encoded with a {@code 0x} prefix
+     */
+    public static String encodeWithPrefix(byte[] data) {
+        return encodeWithPrefix(data, 0, data.length);
+    }
+
+    public static String encodeWithPrefix(byte[] data, int offset, int length) {
+        char[] out = new char[2 + (length << 1)];
+        out[0] = '0';
+        out[1] = 'x';
+        encode(data, offset, length, out, 2);
+        return new String(out);
+    }
+
+    private static void encode(byte[] data, int offset, int length, char[] out, int position) {
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            int index = (data[i] & 0xff) << 1;
+            out[position++] = ENCODE_TABLE[index];
+            out[position++] = ENCODE_TABLE[index + 1];
+        }
+    }
+
+    /**
+     * @return the number of bytes {@code hex} decodes to
+     */
+    public static int decodedLength(CharSequence hex) {
+        return (hex.length() - digitsStart(hex) + 1) >>> 1;
+    }
+
+    public static byte[] decode(CharSequence hex) {
+        byte[] out = new byte[decodedLength(hex)];
+        if (decode(hex, digitsStart(hex), out, 0) < 0) {
+            return decodeSlow(hex);
+        }
+        return out;
+    }
+
+    /**
+     * Decodes {@code hex} into {@code out} from {@code offset}.
+     *
+     * @return the number of bytes written
+     * @throws IndexOutOfBoundsException if they do not fit
+     */
+    public static int decode(CharSequence hex, byte[] out, int offset) {
+        int length = decodedLength(hex);
+        if (offset < 0 || out.length - offset < length) {
+            throw new IndexOutOfBoundsException(String.format(
+                    "%d bytes do not fit in %d bytes from %d", length, out.length, offset));
+        }
+        if (decode(hex, digitsStart(hex), out, offset) < 0) {
+            throw invalid(hex);
+        }
+        return length;
+    }
+
+    /**
+     * Decodes {@code hex} into {@code out} from its position, and moves the position past the bytes
+     * written.
+     *
+     * @return the number of bytes written
+     * @throws BufferOverflowException if they do not fit
+     */
+    public static int decode(CharSequence hex, ByteBuffer out) {
+        int length = decodedLength(hex);
+        if (out.remaining() < length) {
+            throw new BufferOverflowException();
+        }
+        int start = digitsStart(hex);
+        if (out.hasArray()) {
+            if (decode(hex, start, out.array(), out.arrayOffset() + out.position()) < 0) {
+                throw invalid(hex);
+            }
+            out.position(out.position() + length);
+            return length;
+        }
+        int end = hex.length();
+        int i = start;
+        if (((end - start) & 1) != 0) {
+            int low = digit(hex.charAt(i++));
+            if (low < 0) {
+                throw invalid(hex);
+            }
+            out.put((byte) low);
+        }
+        while (i < end) {
+            int high = digit(hex.charAt(i));
+            int low = digit(hex.charAt(i + 1));
+            if ((high | low) < 0) {
+                throw invalid(hex);
+            }
+            out.put((byte) ((high << 4) | low));
+            i += 2;
+        }
+        return length;
+    }
+
+    /**
+     * @return the number of bytes written, or -1 at the first invalid character
+     */
+    private static int decode(CharSequence hex, int start, byte[] out, int offset) {
+        int end = hex.length();
+        int position = offset;
+        int i = start;
+        if (((end - start) & 1) != 0) {
+            // odd length, the first digit is the low half of the first byte
+            int low = digit(hex.charAt(i++));
+            if (low < 0) {
+                return -1;
+            }
+            out[position++] = (byte) low;
+        }
+        while (i < end) {
+            int high = digit(hex.charAt(i));
+            int low = digit(hex.charAt(i + 1));
+            if ((high | low) < 0) {
+                return -1;
+            }
+            out[position++] = (byte) ((high << 4) | low);
+            i += 2;
+        }
+        return position - offset;
+    }
+
+    private static int digit(char c) {
+        return c < 128 ? DECODE_TABLE[c] : -1;
+    }
+
+    private static byte[] decodeSlow(CharSequence hex) {
+        String digits = hex.subSequence(digitsStart(hex), hex.length()).toString();
+        if (digits.length() % 2 != 0) {
+            digits = "0" + digits;
+        }
+        return Hex.decode(digits);
+    }
+
+    private static RuntimeException invalid(CharSequence hex) {
+        // throws the DecoderException for invalid characters, which only BouncyCastle can create
+        decodeSlow(hex);
+        return new IllegalArgumentException("Invalid hex: " + hex);
+    }
+
+    private static int digitsStart(CharSequence hex) {
+        return hex.length() >= 2 && hex.charAt(0) == '0' && hex.charAt(1) == 'x' ? 2 : 0;
+    }
+}
@@ -0,0 +1,224 @@
+package co.rsk.commons;
+
+import java.util.Arrays;
+
+/**
+ * Keccak-256 as used by Ethereum and RSK (original Keccak padding, not SHA3-256).
+ * <p>
+ * Unlike {@code Hash.sha3} this does not create a digest per call: the sponge state is kept per thread
+ * and the digest is written into a buffer supplied by the caller. The 32 and 64 byte variants cover
+ * label hashes and namehash nodes and absorb their input straight into the state.
+ */
+public final class Keccak256 {
+
+    public static final int DIGEST_LENGTH = 32;
+
+    private static final int RATE = 136;
+
+    private static final long[] ROUND_CONSTANTS = {
+            0x0000000000000001L, 0x0000000000008082L, 0x800000000000808aL, 0x8000000080008000L,
+            0x000000000000808bL, 0x0000000080000001L, 0x8000000080008081L, 0x8000000000008009L,
+            0x000000000000008aL, 0x0000000000000088L, 0x0000000080008009L, 0x000000008000000aL,
+            0x000000008000808bL, 0x800000000000008bL, 0x8000000000008089L, 0x8000000000008003L,
+            0x8000000000008002L, 0x8000000000000080L, 0x000000000000800aL, 0x800000008000000aL,
+            0x8000000080008081L, 0x8000000000008080L, 0x0000000080000001L, 0x8000000080008008L
+    };
+
+    private static final ThreadLocal<long[]> STATE = new ThreadLocal<long[]>() {
+        @Override
+        protected long[] initialValue() {
+            return new long[25];
+        }
+    };
+
+    private Keccak256() {
+        throw new IllegalAccessError("Utility class");
+    }
+
+    public static byte[] hash(byte[] input) {
+        byte[] out = new byte[DIGEST_LENGTH];
+        hash(input, 0, input.length, out, 0);
+        return out;
+    }
+
+    /**
+     * Hashes {@code len} bytes of {@code in} starting at {@code off} and writes the 32 byte digest to
+     * {@code out} at {@code outOff}.
+     */
+    public static void hash(byte[] in, int off, int len, byte[] out, int outOff) {
+        long[] s = STATE.get();
+        Arrays.fill(s, 0L);
+        while (len >= RATE) {
+            for (int i = 0; i < RATE / 8; i++) {
+                s[i] ^= readLong(in, off + i * 8);
+            }
+            permute(s);
+            off += RATE;
+            len -= RATE;
+        }
+        int lanes = len >>> 3;
+        for (int i = 0; i < lanes; i++) {
+            s[i] ^= readLong(in, off + i * 8);
+        }
+        for (int i = lanes * 8; i < len; i++) {
+            s[i >>> 3] ^= (in[off + i] & 0xFFL) << ((i & 7) << 3);
+        }
+        s[len >>> 3] ^= 0x01L << ((len & 7) << 3);
+        s[(RATE - 1) >>> 3] ^= 0x80L << 56;
+        permute(s);
+        squeeze(s, out, outOff);
+    }
+
+    /**
+     * Hashes the 32 bytes of {@code in} starting at {@code off}.
+     */
+    public static void hash32(byte[] in, int off, byte[] out, int outOff) {
+        long[] s = STATE.get();
+        s[0] = readLong(in, off);
+        s[1] = readLong(in, off + 8);
+        s[2] = readLong(in, off + 16);
+        s[3] = readLong(in, off + 24);
+        s[4] = 0x01L;
+        Arrays.fill(s, 5, 25, 0L);
+        s[16] = 0x80L << 56;
+        permute(s);
+        squeeze(s, out, outOff);
+    }
+
+    /**
+     * Hashes the 64 bytes of {@code in} starting at {@code off}.
+     */
+    public static void hash64(byte[] in, int off, byte[] out, int outOff) {
+        hash64(in, off, in, off + 32, out, outOff);
+    }
+
+    /**
+     * Hashes the concatenation of 32 bytes of {@code left} and 32 bytes of {@code right}, which is
+     * how a namehash node is derived from its parent node and label hash.
+     */
+    public static void hash64(byte[] left, int leftOff, byte[] right, int rightOff, byte[] out, int outOff) {
+        long[] s = STATE.get();
+        s[0] = readLong(left, leftOff);
+        s[1] = readLong(left, leftOff + 8);
+        s[2] = readLong(left, leftOff + 16);
+        s[3] = readLong(left, leftOff + 24);
+        s[4] = readLong(right, rightOff);
+        s[5] = readLong(right, rightOff + 8);
+        s[6] = readLong(right, rightOff + 16);
+        s[7] = readLong(right, rightOff + 24);
+        s[8] = 0x01L;
+        Arrays.fill(s, 9, 25, 0L);
+        s[16] = 0x80L << 56;
+        permute(s);
+        squeeze(s, out, outOff);
+    }
+
+    private static long readLong(byte[] in, int off) {
+        return (in[off] & 0xFFL)
+                | (in[off + 1] & 0xFFL) << 8
+                | (in[off + 2] & 0xFFL) << 16
+                | (in[off + 3] & 0xFFL) << 24
+                | (in[off + 4] & 0xFFL) << 32
+                | (in[off + 5] & 0xFFL) << 40
+                | (in[off + 6] & 0xFFL) << 48
+                | (in[off + 7] & 0xFFL) << 56;
+    }
+
+    private static void squeeze(long[] s, byte[] out, int outOff) {
+        for (int i = 0; i < 4; i++) {
+            long lane = s[i];
+            for (int j = 0; j < 8; j++) {
+                out[outOff++] = (byte) lane;
+                lane >>>= 8;
+            }
+        }
+    }
+
+    private static void permute(long[] s) {
+        long a00 = s[0], a01 = s[1], a02 = s[2], a03 = s[3], a04 = s[4];
+        long a05 = s[5], a06 = s[6], a07 = s[7], a08 = s[8], a09 = s[9];
+        long a10 = s[10], a11 = s[11], a12 = s[12], a13 = s[13], a14 = s[14];
+        long a15 = s[15], a16 = s[16], a17 = s[17], a18 = s[18], a19 = s[19];
+        long a20 = s[20], a21 = s[21], a22 = s[22], a23 = s[23], a24 = s[24];
+
+        for (int round = 0; round < 24; round++) {
+            // theta
+            long c0 = a00 ^ a05 ^ a10 ^ a15 ^ a20;
+            long c1 = a01 ^ a06 ^ a11 ^ a16 ^ a21;
+            long c2 = a02 ^ a07 ^ a12 ^ a17 ^ a22;
+            long c3 = a03 ^ a08 ^ a13 ^ a18 ^ a23;
+            long c4 = a04 ^ a09 ^ a14 ^ a19 ^ a24;
+            long d0 = c4 ^ (c1 << 1 | c1 >>> 63);
+            long d1 = c0 ^ (c2 << 1 | c2 >>> 63);
+            long d2 = c1 ^ (c3 << 1 | c3 >>> 63);
+            long d3 = c2 ^ (c4 << 1 | c4 >>> 63);
+            long d4 = c3 ^ (c0 << 1 | c0 >>> 63);
+            a00 ^= d0; a05 ^= d0; a10 ^= d0; a15 ^= d0; a20 ^= d0;
+            a01 ^= d1; a06 ^= d1; a11 ^= d1; a16 ^= d1; a21 ^= d1;
+            a02 ^= d2; a07 ^= d2; a12 ^= d2; a17 ^= d2; a22 ^= d2;
+            a03 ^= d3; a08 ^= d3; a13 ^= d3; a18 ^= d3; a23 ^= d3;
+            a04 ^= d4; a09 ^= d4; a14 ^= d4; a19 ^= d4; a24 ^= d4;
+
+            // rho and pi
+            long b00 = a00;
+            long b01 = a06 << 44 | a06 >>> 20;
+            long b02 = a12 << 43 | a12 >>> 21;
+            long b03 = a18 << 21 | a18 >>> 43;
+            long b04 = a24 << 14 | a24 >>> 50;
+            long b05 = a03 << 28 | a03 >>> 36;
+            long b06 = a09 << 20 | a09 >>> 44;
+            long b07 = a10 << 3 | a10 >>> 61;
+            long b08 = a16 << 45 | a16 >>> 19;
+            long b09 = a22 << 61 | a22 >>> 3;
+            long b10 = a01 << 1 | a01 >>> 63;
+            long b11 = a07 << 6 | a07 >>> 58;
+            long b12 = a13 << 25 | a13 >>> 39;
+            long b13 = a19 << 8 | a19 >>> 56;
+            long b14 = a20 << 18 | a20 >>> 46;
+            long b15 = a04 << 27 | a04 >>> 37;
+            long b16 = a05 << 36 | a05 >>> 28;
+            long b17 = a11 << 10 | a11 >>> 54;
+            long b18 = a17 << 15 | a17 >>> 49;
+            long b19 = a23 << 56 | a23 >>> 8;
+            long b20 = a02 << 62 | a02 >>> 2;
+            long b21 = a08 << 55 | a08 >>> 9;
+            long b22 = a14 << 39 | a14 >>> 25;
+            long b23 = a15 << 41 | a15 >>> 23;
+            long b24 = a21 << 2 | a21 >>> 62;
+
+            // chi and iota
+            a00 = b00 ^ (~b01 & b02);
+            a01 = b01 ^ (~b02 & b03);
+            a02 = b02 ^ (~b03 & b04);
+            a03 = b03 ^ (~b04 & b00);
+            a04 = b04 ^ (~b00 & b01);
+            a05 = b05 ^ (~b06 & b07);
+            a06 = b06 ^ (~b07 & b08);
+            a07 = b07 ^ (~b08 & b09);
+            a08 = b08 ^ (~b09 & b05);
+            a09 = b09 ^ (~b05 & b06);
+            a10 = b10 ^ (~b11 & b12);
+            a11 = b11 ^ (~b12 & b13);
+            a12 = b12 ^ (~b13 & b14);
+            a13 = b13 ^ (~b14 & b10);
+            a14 = b14 ^ (~b10 & b11);
+            a15 = b15 ^ (~b16 & b17);
+            a16 = b16 ^ (~b17 & b18);
+            a17 = b17 ^ (~b18 & b19);
+            a18 = b18 ^ (~b19 & b15);
+            a19 = b19 ^ (~b15 & b16);
+            a20 = b20 ^ (~b21 & b22);
+            a21 = b21 ^ (~b22 & b23);
+            a22 = b22 ^ (~b23 & b24);
+            a23 = b23 ^ (~b24 & b20);
+            a24 = b24 ^ (~b20 & b21);
+            a00 ^= ROUND_CONSTANTS[round];
+        }
+
+        s[0] = a00; s[1] = a01; s[2] = a02; s[3] = a03; s[4] = a04;
+        s[5] = a05; s[6] = a06; s[7] = a07; s[8] = a08; s[9] = a09;
+        s[10] = a10; s[11] = a11; s[12] = a12; s[13] = a13; s[14] = a14;
+        s[15] = a15; s[16] = a16; s[17] = a17; s[18] = a18; s[19] = a19;
+        s[20] = a20; s[21] = a21; s[22] = a22; s[23] = a23; s[24] = a24;
+    }
+}
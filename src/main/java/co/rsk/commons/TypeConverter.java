@@ -1,7 +1,5 @@
 package co.rsk.commons;
 
-import org.bouncycastle.util.encoders.Hex;
-
 import java.math.BigInteger;
 import java.nio.charset.StandardCharsets;
 
@@ -28,15 +26,11 @@ public class TypeConverter {
         return new BigInteger(input);
     }
 
+    /**
+     * Decodes hex with or without 0x prefix, odd lengths are read as if they had a leading 0.
+     */
     public static byte[] stringHexToByteArray(String x) {
-        String result = x;
-        if (x.startsWith("0x")) {
-            result = x.substring(2);
-        }
-        if (result.length() % 2 != 0) {
-            result = "0" + result;
-        }
-        return Hex.decode(result);
+        return HexCodec.decode(x);
     }
 
     public static byte[] stringToByteArray(String input) {
@@ -44,13 +38,10 @@ public class TypeConverter {
     }
 
     public static String toJsonHex(byte[] x) {
-        String result = "0x" + Hex.toHexString(x == null ? ByteUtil.EMPTY_BYTE_ARRAY : x);
-
-        if ("0x".equals(result)) {
+        if (x == null || x.length == 0) {
             return "0x00";
         }
-
-        return result;
+        return HexCodec.encodeWithPrefix(x);
     }
 
     public static String toJsonHex(String x) {
@@ -0,0 +1,454 @@
+package co.rsk.commons;
+
+import java.util.Arrays;
+
+/**
+ * Fixed width 256-bit arithmetic on four 64-bit limbs, least significant limb first.
+ * <p>
+ * Results wrap modulo 2^256 like the EVM. Products and divisions work on 32-bit digits, so they
+ * only need plain {@code long} multiplications. Every method takes the output array from the caller,
+ * which may be one of the inputs.
+ */
+final class UInt256 {
+
+    static final int LIMBS = 4;
+
+    private static final long DIGIT_MASK = 0xffffffffL;
+
+    private UInt256() {
+        throw new IllegalAccessError("Utility class");
+    }
+
+    /**
+     * Reads 32 big endian bytes.
+     */
+    static void fromBytes(byte[] data, int offset, long[] out) {
+        for (int limb = 0; limb < LIMBS; limb++) {
+            int start = offset + (LIMBS - 1 - limb) * 8;
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | (data[start + i] & 0xff);
+            }
+            out[limb] = value;
+        }
+    }
+
+    /**
+     * Writes 32 big endian bytes.
+     */
+    static void toBytes(long[] value, byte[] out, int offset) {
+        for (int limb = 0; limb < LIMBS; limb++) {
+            int start = offset + (LIMBS - 1 - limb) * 8;
+            long word = value[limb];
+            for (int i = 7; i >= 0; i--) {
+                out[start + i] = (byte) word;
+                word >>>= 8;
+            }
+        }
+    }
+
+    static boolean isZero(long[] a) {
+        return (a[0] | a[1] | a[2] | a[3]) == 0;
+    }
+
+    static boolean isNegative(long[] a) {
+        return a[3] < 0;
+    }
+
+    static int compareUnsigned(long[] a, long[] b) {
+        for (int limb = LIMBS - 1; limb >= 0; limb--) {
+            if (a[limb] != b[limb]) {
+                return (a[limb] ^ Long.MIN_VALUE) < (b[limb] ^ Long.MIN_VALUE) ? -1 : 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @return the carry out of the most significant limb, 0 or 1
+     */
+    static long add(long[] a, long[] b, long[] out) {
+        long carry = 0;
+        for (int limb = 0; limb < LIMBS; limb++) {
+            long x = a[limb];
+            long sum = x + b[limb] + carry;
+            // unsigned overflow when the sum is below an addend, or equal to it with a carry in
+            carry = (sum ^ Long.MIN_VALUE) < (x ^ Long.MIN_VALUE) || (carry != 0 && sum == x) ? 1 : 0;
+            out[limb] = sum;
+        }
+        return carry;
+    }
+
+    static void sub(long[] a, long[] b, long[] out) {
+        long borrow = 0;
+        for (int limb = 0; limb < LIMBS; limb++) {
+            long x = a[limb];
+            long y = b[limb];
+            long difference = x - y - borrow;
+            borrow = (x ^ Long.MIN_VALUE) < (y ^ Long.MIN_VALUE) || (borrow != 0 && x == y) ? 1 : 0;
+            out[limb] = difference;
+        }
+    }
+
+    static void negate(long[] a, long[] out) {
+        long carry = 1;
+        for (int limb = 0; limb < LIMBS; limb++) {
+            long inverted = ~a[limb];
+            long sum = inverted + carry;
+            carry = carry != 0 && sum == 0 ? 1 : 0;
+            out[limb] = sum;
+        }
+    }
+
+    /**
+     * Low 256 bits of the product.
+     */
+    static void mul(long[] a, long[] b, long[] out) {
+        long a0 = a[0] & DIGIT_MASK;
+        long a1 = a[0] >>> 32;
+        long a2 = a[1] & DIGIT_MASK;
+        long a3 = a[1] >>> 32;
+        long a4 = a[2] & DIGIT_MASK;
+        long a5 = a[2] >>> 32;
+        long a6 = a[3] & DIGIT_MASK;
+        long a7 = a[3] >>> 32;
+        long b0 = b[0] & DIGIT_MASK;
+        long b1 = b[0] >>> 32;
+        long b2 = b[1] & DIGIT_MASK;
+        long b3 = b[1] >>> 32;
+        long b4 = b[2] & DIGIT_MASK;
+        long b5 = b[2] >>> 32;
+        long b6 = b[3] & DIGIT_MASK;
+        long b7 = b[3] >>> 32;
+
+        // column by column, the low and high halves of the digit products are summed apart so no
+        // sum can overflow, and the high halves carry into the next column
+        long p;
+        long low;
+        long high;
+
+        p = a0 * b0;
+        low = p & DIGIT_MASK;
+        high = p >>> 32;
+        long d0 = low & DIGIT_MASK;
+        long carry = (low >>> 32) + high;
+
+        low = carry & DIGIT_MASK;
+        high = carry >>> 32;
+        p = a0 * b1; low += p & DIGIT_MASK; high += p >>> 32;
+        p = a1 * b0; low += p & DIGIT_MASK; high += p >>> 32;
+        long d1 = low & DIGIT_MASK;
+        carry = (low >>> 32) + high;
+
+        low = carry & DIGIT_MASK;
+        high = carry >>> 32;
+        p = a0 * b2; low += p & DIGIT_MASK; high += p >>> 32;
+        p = a1 * b1; low += p & DIGIT_MASK; high += p >>> 32;
+        p = a2 * b0; low += p & DIGIT_MASK; high += p >>> 32;
+        long d2 = low & DIGIT_MASK;
+        carry = (low >>> 32) + high;
+
+        low = carry & DIGIT_MASK;
+        high = carry >>> 32;
+        p = a0 * b3; low += p & DIGIT_MASK; high += p >>> 32;
+        p = a1 * b2; low += p & DIGIT_MASK; high += p >>> 32;
+        p = a2 * b1; low += p & DIGIT_MASK; high += p >>> 32;
+        p = a3 * b0; low += p & DIGIT_MASK; high += p >>> 32;
+        long d3 = low & DIGIT_MASK;
+        carry = (low >>> 32) + high;
+
+        low = carry & DIGIT_MASK;
+        high = carry >>> 32;
+        p = a0 * b4; low += p & DIGIT_MASK; high += p >>> 32;
+        p = a1 * b3; low += p & DIGIT_MASK; high += p >>> 32;
+        p = a2 * b2; low += p & DIGIT_MASK; high += p >>> 32;
+        p = a3 * b1; low += p & DIGIT_MASK; high += p >>> 32;
+        p = a4 * b0; low += p & DIGIT_MASK; high += p >>> 32;
+        long d4 = low & DIGIT_MASK;
+        carry = (low >>> 32) + high;
+
+        low = carry & DIGIT_MASK;
+        high = carry >>> 32;
+        p = a0 * b5; low += p & DIGIT_MASK; high += p >>> 32;
+        p = a1 * b4; low += p & DIGIT_MASK; high += p >>> 32;
+        p = a2 * b3; low += p & DIGIT_MASK; high += p >>> 32;
+        p = a3 * b2; low += p & DIGIT_MASK; high += p >>> 32;
+        p = a4 * b1; low += p & DIGIT_MASK; high += p >>> 32;
+        p = a5 * b0; low += p & DIGIT_MASK; high += p >>> 32;
+        long d5 = low & DIGIT_MASK;
+        carry = (low >>> 32) + high;
+
+        low = carry & DIGIT_MASK;
+        high = carry >>> 32;
+        p = a0 * b6; low += p & DIGIT_MASK; high += p >>> 32;
+        p = a1 * b5; low += p & DIGIT_MASK; high += p >>> 32;
+        p = a2 * b4; low += p & DIGIT_MASK; high += p >>> 32;
+        p = a3 * b3; low += p & DIGIT_MASK; high += p >>> 32;
+        p = a4 * b2; low += p & DIGIT_MASK; high += p >>> 32;
+        p = a5 * b1; low += p & DIGIT_MASK; high += p >>> 32;
+        p = a6 * b0; low += p & DIGIT_MASK; high += p >>> 32;
+        long d6 = low & DIGIT_MASK;
+        carry = (low >>> 32) + high;
+
+        // only the low digit of the last column is kept, the products wrap
+        long d7 = carry + a0 * b7 + a1 * b6 + a2 * b5 + a3 * b4 + a4 * b3 + a5 * b2 + a6 * b1 + a7 * b0;
+
+        out[0] = (d1 << 32) | d0;
+        out[1] = (d3 << 32) | d2;
+        out[2] = (d5 << 32) | d4;
+        out[3] = (d7 << 32) | d6;
+    }
+
+    /**
+     * The i-th 32-bit digit of the value, least significant first.
+     */
+    private static long digit(long[] a, int i) {
+        return (a[i >>> 1] >>> ((i & 1) << 5)) & DIGIT_MASK;
+    }
+
+    /**
+     * a^exponent modulo 2^256, by squaring and multiplying.
+     */
+    static void exp(long[] base, long[] exponent, long[] out) {
+        long[] result = {1, 0, 0, 0};
+        long[] power = base.clone();
+        int bits = bitLength(exponent);
+        for (int i = 0; i < bits; i++) {
+            if ((exponent[i >>> 6] >>> (i & 63) & 1) != 0) {
+                mul(result, power, result);
+            }
+            if (i < bits - 1) {
+                if (isZero(power)) {
+                    // an even base vanishes after enough squarings, and so does every later product
+                    Arrays.fill(result, 0L);
+                    break;
+                }
+                mul(power, power, power);
+            }
+        }
+        System.arraycopy(result, 0, out, 0, LIMBS);
+    }
+
+    /**
+     * Unsigned division, the divisor must not be zero. Either output may be null.
+     */
+    static void divMod(long[] a, long[] b, long[] quotient, long[] remainder) {
+        divMod(a, b, quotient, remainder, new Scratch());
+    }
+
+    static void divMod(long[] a, long[] b, long[] quotient, long[] remainder, Scratch scratch) {
+        scratch.clear();
+        toDigits(a, scratch.dividend);
+        toDigits(b, scratch.divisor);
+        divide(scratch);
+        if (quotient != null) {
+            fromDigits(scratch.quotient, quotient);
+        }
+        if (remainder != null) {
+            fromDigits(scratch.remainder, remainder);
+        }
+    }
+
+    /**
+     * (a + b) mod m without losing the carry of the sum, m must not be zero.
+     */
+    static void addMod(long[] a, long[] b, long[] m, long[] out) {
+        addMod(a, b, m, out, new Scratch());
+    }
+
+    static void addMod(long[] a, long[] b, long[] m, long[] out, Scratch scratch) {
+        scratch.clear();
+        long carry = 0;
+        for (int limb = 0; limb < LIMBS; limb++) {
+            long x = a[limb];
+            long sum = x + b[limb] + carry;
+            carry = (sum ^ Long.MIN_VALUE) < (x ^ Long.MIN_VALUE) || (carry != 0 && sum == x) ? 1 : 0;
+            scratch.dividend[2 * limb] = (int) sum;
+            scratch.dividend[2 * limb + 1] = (int) (sum >>> 32);
+        }
+        scratch.dividend[8] = (int) carry;
+        toDigits(m, scratch.divisor);
+        divide(scratch);
+        fromDigits(scratch.remainder, out);
+    }
+
+    /**
+     * (a * b) mod m over the full 512-bit product, m must not be zero.
+     */
+    static void mulMod(long[] a, long[] b, long[] m, long[] out) {
+        mulMod(a, b, m, out, new Scratch());
+    }
+
+    static void mulMod(long[] a, long[] b, long[] m, long[] out, Scratch scratch) {
+        scratch.clear();
+        int[] product = scratch.dividend;
+        for (int i = 0; i < 8; i++) {
+            long xi = digit(a, i);
+            if (xi == 0) {
+                continue;
+            }
+            long carry = 0;
+            for (int j = 0; j < 8; j++) {
+                long t = xi * digit(b, j) + (product[i + j] & DIGIT_MASK) + carry;
+                product[i + j] = (int) t;
+                carry = t >>> 32;
+            }
+            product[i + 8] = (int) carry;
+        }
+        toDigits(m, scratch.divisor);
+        divide(scratch);
+        fromDigits(scratch.remainder, out);
+    }
+
+    /**
+     * Working digits of a division, so repeated divisions do not allocate. The dividend takes up
+     * to 512 bits and the divisor 256.
+     */
+    static final class Scratch {
+        private final int[] dividend = new int[16];
+        private final int[] divisor = new int[8];
+        private final int[] quotient = new int[16];
+        private final int[] remainder = new int[16];
+        private final int[] normalizedDividend = new int[17];
+        private final int[] normalizedDivisor = new int[8];
+
+        private void clear() {
+            Arrays.fill(dividend, 0);
+            Arrays.fill(divisor, 0);
+            Arrays.fill(quotient, 0);
+            Arrays.fill(remainder, 0);
+        }
+    }
+
+    static int bitLength(long[] a) {
+        for (int limb = LIMBS - 1; limb >= 0; limb--) {
+            if (a[limb] != 0) {
+                return limb * 64 + 64 - Long.numberOfLeadingZeros(a[limb]);
+            }
+        }
+        return 0;
+    }
+
+    private static void toDigits(long[] a, int[] digits) {
+        for (int limb = 0; limb < LIMBS; limb++) {
+            digits[2 * limb] = (int) a[limb];
+            digits[2 * limb + 1] = (int) (a[limb] >>> 32);
+        }
+    }
+
+    /**
+     * Takes the low 256 bits of the digits.
+     */
+    private static void fromDigits(int[] digits, long[] out) {
+        for (int limb = 0; limb < LIMBS; limb++) {
+            out[limb] = ((long) digits[2 * limb + 1] << 32) | (digits[2 * limb] & DIGIT_MASK);
+        }
+    }
+
+    private static int significantDigits(int[] digits) {
+        int length = digits.length;
+        while (length > 0 && digits[length - 1] == 0) {
+            length--;
+        }
+        return length;
+    }
+
+    /**
+     * Knuth's algorithm D on 32-bit digits, least significant first, from the dividend and divisor of
+     * the scratch into its cleared quotient and remainder. The divisor must not be zero.
+     */
+    private static void divide(Scratch scratch) {
+        int[] u = scratch.dividend;
+        int[] v = scratch.divisor;
+        int[] q = scratch.quotient;
+        int[] r = scratch.remainder;
+        int m = significantDigits(u);
+        int n = significantDigits(v);
+        if (m < n) {
+            System.arraycopy(u, 0, r, 0, m);
+            return;
+        }
+        if (n == 1) {
+            long divisor = v[0] & DIGIT_MASK;
+            long rest = 0;
+            for (int j = m - 1; j >= 0; j--) {
+                long current = (rest << 32) | (u[j] & DIGIT_MASK);
+                long digit = divideUnsigned(current, divisor);
+                q[j] = (int) digit;
+                rest = current - digit * divisor;
+            }
+            r[0] = (int) rest;
+            return;
+        }
+
+        int shift = Integer.numberOfLeadingZeros(v[n - 1]);
+        int[] vn = scratch.normalizedDivisor;
+        for (int i = n - 1; i > 0; i--) {
+            vn[i] = (v[i] << shift) | (shift == 0 ? 0 : v[i - 1] >>> (32 - shift));
+        }
+        vn[0] = v[0] << shift;
+        int[] un = scratch.normalizedDividend;
+        un[m] = shift == 0 ? 0 : u[m - 1] >>> (32 - shift);
+        for (int i = m - 1; i > 0; i--) {
+            un[i] = (u[i] << shift) | (shift == 0 ? 0 : u[i - 1] >>> (32 - shift));
+        }
+        un[0] = u[0] << shift;
+
+        long top = vn[n - 1] & DIGIT_MASK;
+        long next = vn[n - 2] & DIGIT_MASK;
+        for (int j = m - n; j >= 0; j--) {
+            long numerator = ((un[j + n] & DIGIT_MASK) << 32) | (un[j + n - 1] & DIGIT_MASK);
+            long qhat = divideUnsigned(numerator, top);
+            long rhat = numerator - qhat * top;
+            while (qhat > DIGIT_MASK
+                    || ((qhat * next) ^ Long.MIN_VALUE) > (((rhat << 32) | (un[j + n - 2] & DIGIT_MASK)) ^ Long.MIN_VALUE)) {
+                qhat--;
+                rhat += top;
+                if (rhat > DIGIT_MASK) {
+                    break;
+                }
+            }
+
+            long borrow = 0;
+            long t;
+            for (int i = 0; i < n; i++) {
+                long p = qhat * (vn[i] & DIGIT_MASK);
+                t = (un[i + j] & DIGIT_MASK) - borrow - (p & DIGIT_MASK);
+                un[i + j] = (int) t;
+                borrow = (p >>> 32) - (t >> 32);
+            }
+            t = (un[j + n] & DIGIT_MASK) - borrow;
+            un[j + n] = (int) t;
+
+            if (t < 0) {
+                // qhat was one too big, add the divisor back
+                qhat--;
+                long carry = 0;
+                for (int i = 0; i < n; i++) {
+                    long sum = (un[i + j] & DIGIT_MASK) + (vn[i] & DIGIT_MASK) + carry;
+                    un[i + j] = (int) sum;
+                    carry = sum >>> 32;
+                }
+                un[j + n] += (int) carry;
+            }
+            q[j] = (int) qhat;
+        }
+
+        for (int i = 0; i < n - 1; i++) {
+            r[i] = (un[i] >>> shift) | (shift == 0 ? 0 : un[i + 1] << (32 - shift));
+        }
+        r[n - 1] = un[n - 1] >>> shift;
+    }
+
+    /**
+     * Unsigned 64-bit division for a divisor below 2^32.
+     */
+    private static long divideUnsigned(long dividend, long divisor) {
+        if (dividend >= 0) {
+            return dividend / divisor;
+        }
+        long quotient = ((dividend >>> 1) / divisor) << 1;
+        long rest = dividend - quotient * divisor;
+        return quotient + ((rest ^ Long.MIN_VALUE) >= (divisor ^ Long.MIN_VALUE) ? 1 : 0);
+    }
+}
@@ -0,0 +1,302 @@
+package co.rsk.commons;
+
+import org.bouncycastle.util.encoders.Hex;
+
+/**
+ * Immutable 256-bit word kept in four {@code long} fields, the sibling of {@link DataWord} for hot
+ * paths such as map keys and ABI words.
+ * <p>
+ * Equality, hashing and comparison take four long operations, the bitwise operations work a long at
+ * a time and byte arrays are only produced when asked for. The arithmetic follows {@link DataWord}.
+ */
+public final class Word256 implements Comparable<Word256> {
+
+    public static final int BYTES = 32;
+
+    public static final Word256 ZERO = new Word256(0, 0, 0, 0);
+    public static final Word256 ONE = new Word256(0, 0, 0, 1);
+
+    // most significant first
+    private final long w3;
+    private final long w2;
+    private final long w1;
+    private final long w0;
+
+    private Word256(long w3, long w2, long w1, long w0) {
+        this.w3 = w3;
+        this.w2 = w2;
+        this.w1 = w1;
+        this.w0 = w0;
+    }
+
+    public static Word256 valueOf(long value) {
+        return new Word256(0, 0, 0, value);
+    }
+
+    /**
+     * @param data up to 32 big endian bytes, shorter arrays are left padded with zeroes
+     */
+    public static Word256 valueOf(byte[] data) {
+        return valueOf(data, 0, data.length);
+    }
+
+    public static Word256 valueOf(byte[] data, int offset, int length) {
+        if (length > BYTES) {
+            throw new IllegalArgumentException(String.format("A Word256 must be %d bytes long", BYTES));
+        }
+        long[] limbs = new long[UInt256.LIMBS];
+        for (int i = 0; i < length; i++) {
+            int position = length - 1 - i;
+            limbs[i >>> 3] |= (long) (data[offset + position] & 0xff) << ((i & 7) << 3);
+        }
+        return fromLimbs(limbs);
+    }
+
+    public static Word256 valueOf(DataWord word) {
+        return valueOf(word.getData());
+    }
+
+    public static Word256 valueFromHex(String hex) {
+        return valueOf(Hex.decode(hex));
+    }
+
+    public DataWord toDataWord() {
+        return DataWord.valueOf(getData());
+    }
+
+    /**
+     * @return a new array with the 32 big endian bytes of the word
+     */
+    public byte[] getData() {
+        byte[] data = new byte[BYTES];
+        copyTo(data, 0);
+        return data;
+    }
+
+    /**
+     * Writes the 32 big endian bytes of the word, without allocating.
+     */
+    public void copyTo(byte[] out, int offset) {
+        putLong(w3, out, offset);
+        putLong(w2, out, offset + 8);
+        putLong(w1, out, offset + 16);
+        putLong(w0, out, offset + 24);
+    }
+
+    public byte[] getLast20Bytes() {
+        byte[] data = new byte[20];
+        data[0] = (byte) (w2 >>> 24);
+        data[1] = (byte) (w2 >>> 16);
+        data[2] = (byte) (w2 >>> 8);
+        data[3] = (byte) w2;
+        putLong(w1, data, 4);
+        putLong(w0, data, 12);
+        return data;
+    }
+
+    /**
+     * The low 32 bits, like {@link DataWord#intValue()}.
+     */
+    public int intValue() {
+        return (int) w0;
+    }
+
+    /**
+     * The low 64 bits, like {@link DataWord#longValue()}.
+     */
+    public long longValue() {
+        return w0;
+    }
+
+    public boolean isZero() {
+        return (w3 | w2 | w1 | w0) == 0;
+    }
+
+    public boolean isNegative() {
+        return w3 < 0;
+    }
+
+    public Word256 and(Word256 word) {
+        return new Word256(w3 & word.w3, w2 & word.w2, w1 & word.w1, w0 & word.w0);
+    }
+
+    public Word256 or(Word256 word) {
+        return new Word256(w3 | word.w3, w2 | word.w2, w1 | word.w1, w0 | word.w0);
+    }
+
+    public Word256 xor(Word256 word) {
+        return new Word256(w3 ^ word.w3, w2 ^ word.w2, w1 ^ word.w1, w0 ^ word.w0);
+    }
+
+    public Word256 bnot() {
+        return new Word256(~w3, ~w2, ~w1, ~w0);
+    }
+
+    public Word256 add(Word256 word) {
+        long[] result = limbs();
+        UInt256.add(result, word.limbs(), result);
+        return fromLimbs(result);
+    }
+
+    public Word256 sub(Word256 word) {
+        long[] result = limbs();
+        UInt256.sub(result, word.limbs(), result);
+        return fromLimbs(result);
+    }
+
+    public Word256 mul(Word256 word) {
+        long[] result = limbs();
+        UInt256.mul(result, word.limbs(), result);
+        return fromLimbs(result);
+    }
+
+    public Word256 div(Word256 word) {
+        if (word.isZero()) {
+            return ZERO;
+        }
+        long[] result = limbs();
+        UInt256.divMod(result, word.limbs(), result, null);
+        return fromLimbs(result);
+    }
+
+    public Word256 mod(Word256 word) {
+        if (word.isZero()) {
+            return ZERO;
+        }
+        long[] result = limbs();
+        UInt256.divMod(result, word.limbs(), null, result);
+        return fromLimbs(result);
+    }
+
+    public Word256 sDiv(Word256 word) {
+        if (word.isZero()) {
+            return ZERO;
+        }
+        long[] dividend = limbs();
+        long[] divisor = word.limbs();
+        boolean negative = isNegative() != word.isNegative();
+        abs(dividend);
+        abs(divisor);
+        UInt256.divMod(dividend, divisor, dividend, null);
+        if (negative) {
+            UInt256.negate(dividend, dividend);
+        }
+        return fromLimbs(dividend);
+    }
+
+    public Word256 sMod(Word256 word) {
+        if (word.isZero()) {
+            return ZERO;
+        }
+        long[] dividend = limbs();
+        long[] divisor = word.limbs();
+        abs(dividend);
+        abs(divisor);
+        UInt256.divMod(dividend, divisor, null, dividend);
+        if (isNegative()) {
+            UInt256.negate(dividend, dividend);
+        }
+        return fromLimbs(dividend);
+    }
+
+    public Word256 addmod(Word256 word1, Word256 word2) {
+        if (word2.isZero()) {
+            return ZERO;
+        }
+        long[] result = limbs();
+        UInt256.addMod(result, word1.limbs(), word2.limbs(), result);
+        return fromLimbs(result);
+    }
+
+    public Word256 mulmod(Word256 word1, Word256 word2) {
+        if (word2.isZero()) {
+            return ZERO;
+        }
+        long[] result = limbs();
+        UInt256.mulMod(result, word1.limbs(), word2.limbs(), result);
+        return fromLimbs(result);
+    }
+
+    public Word256 exp(Word256 word) {
+        long[] result = limbs();
+        UInt256.exp(result, word.limbs(), result);
+        return fromLimbs(result);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Word256)) {
+            return false;
+        }
+        Word256 other = (Word256) o;
+        return w0 == other.w0 && w1 == other.w1 && w2 == other.w2 && w3 == other.w3;
+    }
+
+    @Override
+    public int hashCode() {
+        long hash = w3 * 31 + w2;
+        hash = hash * 31 + w1;
+        hash = hash * 31 + w0;
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    /**
+     * Unsigned order, the same as the byte order of {@link DataWord#compareTo(DataWord)}.
+     */
+    @Override
+    public int compareTo(Word256 o) {
+        if (w3 != o.w3) {
+            return compareUnsigned(w3, o.w3);
+        }
+        if (w2 != o.w2) {
+            return compareUnsigned(w2, o.w2);
+        }
+        if (w1 != o.w1) {
+            return compareUnsigned(w1, o.w1);
+        }
+        return compareUnsigned(w0, o.w0);
+    }
+
+    @Override
+    public String toString() {
+        return Hex.toHexString(getData());
+    }
+
+    private long[] limbs() {
+        return new long[]{w0, w1, w2, w3};
+    }
+
+    void copyLimbs(long[] limbs) {
+        limbs[0] = w0;
+        limbs[1] = w1;
+        limbs[2] = w2;
+        limbs[3] = w3;
+    }
+
+    static Word256 fromLimbs(long[] limbs) {
+        return new Word256(limbs[3], limbs[2], limbs[1], limbs[0]);
+    }
+
+    private static void abs(long[] limbs) {
+        if (UInt256.isNegative(limbs)) {
+            UInt256.negate(limbs, limbs);
+        }
+    }
+
+    private static int compareUnsigned(long a, long b) {
+        if (a == b) {
+            return 0;
+        }
+        return (a ^ Long.MIN_VALUE) < (b ^ Long.MIN_VALUE) ? -1 : 1;
+    }
+
+    private static void putLong(long value, byte[] out, int offset) {
+        for (int i = 7; i >= 0; i--) {
+            out[offset + i] = (byte) value;
+            value >>>= 8;
+        }
+    }
+}
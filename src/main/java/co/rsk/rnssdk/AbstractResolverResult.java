@@ -2,18 +2,56 @@ package co.rsk.rnssdk;
 
 import org.web3j.tx.ClientTransactionManager;
 
+import co.rsk.rnssdk.contracts.AbstractMultiChainResolver;
 import co.rsk.rnssdk.contracts.AbstractResolver;
+import co.rsk.rnssdk.contracts.ResolverInterface;
 
 class AbstractResolverResult {
 
     private final AbstractResolver resolver;
+    private final AbstractMultiChainResolver multiChainResolver;
+    private final ResolverInterface resolverInterface;
     private final String resolverAddress;
     private final ClientTransactionManager clientTransactionManager;
+    private final long expiresAt;
+    private final boolean fallback;
+    private final boolean unread;
 
-    public AbstractResolverResult(final AbstractResolver resolver, final String resolverAddress, final ClientTransactionManager clientTransactionManager) {
+    public AbstractResolverResult(final AbstractResolver resolver, final AbstractMultiChainResolver multiChainResolver, final ResolverInterface resolverInterface, final String resolverAddress, final ClientTransactionManager clientTransactionManager) {
+        this(resolver, multiChainResolver, resolverInterface, resolverAddress, clientTransactionManager, BoundedCache.NO_EXPIRATION, false, false);
+    }
+
+    private AbstractResolverResult(final AbstractResolver resolver, final AbstractMultiChainResolver multiChainResolver, final ResolverInterface resolverInterface, final String resolverAddress, final ClientTransactionManager clientTransactionManager, final long expiresAt, final boolean fallback, final boolean unread) {
         this.resolver = resolver;
+        this.multiChainResolver = multiChainResolver;
+        this.resolverInterface = resolverInterface;
         this.resolverAddress = resolverAddress;
         this.clientTransactionManager = clientTransactionManager;
+        this.expiresAt = expiresAt;
+        this.fallback = fallback;
+        this.unread = unread;
+    }
+
+    /**
+     * @return a result sharing the same wrappers, that expires at the given time
+     */
+    public AbstractResolverResult withExpiration(long expiresAt) {
+        return new AbstractResolverResult(resolver, multiChainResolver, resolverInterface, resolverAddress, clientTransactionManager, expiresAt, fallback, unread);
+    }
+
+    /**
+     * @return a result sharing the same wrappers, used because the registry has no resolver for the node
+     */
+    public AbstractResolverResult asFallback() {
+        return new AbstractResolverResult(resolver, multiChainResolver, resolverInterface, resolverAddress, clientTransactionManager, expiresAt, true, unread);
+    }
+
+    /**
+     * @return a fallback result used because the registry could not be read, nothing learnt through
+     * it is cached
+     */
+    public AbstractResolverResult asUnread() {
+        return new AbstractResolverResult(resolver, multiChainResolver, resolverInterface, resolverAddress, clientTransactionManager, expiresAt, true, true);
     }
 
     public String getResolverAddress() {
@@ -28,5 +66,31 @@ class AbstractResolverResult {
         return resolver;
     }
 
+    public AbstractMultiChainResolver getMultiChainResolver() {
+        return multiChainResolver;
+    }
+
+    public ResolverInterface getResolverInterface() {
+        return resolverInterface;
+    }
+
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    /**
+     * @return true if the registry has no resolver for the node and this is the default resolver
+     */
+    public boolean isFallback() {
+        return fallback;
+    }
+
+    /**
+     * @return true if the registry could not be read and this is the default resolver
+     */
+    public boolean isUnread() {
+        return unread;
+    }
+
 
 }
@@ -0,0 +1,67 @@
+package co.rsk.rnssdk;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+import org.web3j.protocol.http.HttpService;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link HttpService} that can also send several requests in a single JSON-RPC batch.
+ */
+public class BatchHttpService extends HttpService {
+
+    public BatchHttpService(String url) {
+        super(url);
+    }
+
+    public BatchHttpService() {
+        super();
+    }
+
+    /**
+     * Sends all the requests in one HTTP round-trip.
+     *
+     * @return the responses in the same order as the requests
+     * @throws IOException if the node fails or answers something that is not a batch response
+     */
+    public <T extends Response<?>> List<T> sendBatch(List<? extends Request<?, T>> requests, Class<T> responseType) throws IOException {
+        if (requests.isEmpty()) {
+            return new ArrayList<>();
+        }
+        String payload = objectMapper.writeValueAsString(requests);
+        JsonNode batch;
+        try (InputStream result = performIO(payload)) {
+            if (result == null) {
+                throw new IOException("Empty response for a JSON-RPC batch");
+            }
+            batch = objectMapper.readTree(result);
+        }
+        if (batch == null || !batch.isArray()) {
+            throw new IOException("The node does not support JSON-RPC batches: " + batch);
+        }
+
+        Map<Long, T> byId = new HashMap<>();
+        for (JsonNode item : batch) {
+            T response = objectMapper.treeToValue(item, responseType);
+            byId.put(response.getId(), response);
+        }
+
+        List<T> responses = new ArrayList<>(requests.size());
+        for (Request<?, T> request : requests) {
+            T response = byId.get(request.getId());
+            if (response == null) {
+                throw new IOException("Missing response for request " + request.getId());
+            }
+            responses.add(response);
+        }
+        return responses;
+    }
+}
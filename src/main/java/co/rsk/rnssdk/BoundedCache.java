@@ -0,0 +1,222 @@
+package co.rsk.rnssdk;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread safe cache with a maximum amount of entries and optional expiration.
+ * Reads never lock, writes only synchronize when an eviction is needed.
+ */
+class BoundedCache<K, V> {
+
+    static final long NO_EXPIRATION = Long.MAX_VALUE;
+
+    private final ConcurrentHashMap<K, Entry<K, V>> entries = new ConcurrentHashMap<>();
+    // Insertion order, it may hold entries already removed from the map, those are skipped on eviction
+    // and purged once they are as many as the live ones, so removals never scan the queue
+    private final ConcurrentLinkedQueue<Entry<K, V>> order = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Object evictionLock = new Object();
+    private final int maxEntries;
+    private final EvictionPolicy policy;
+    private final Clock clock;
+
+    BoundedCache(int maxEntries, EvictionPolicy policy) {
+        this(maxEntries, policy, Clock.SYSTEM);
+    }
+
+    BoundedCache(int maxEntries, EvictionPolicy policy, Clock clock) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("The cache must allow at least one entry");
+        }
+        this.maxEntries = maxEntries;
+        this.policy = policy;
+        this.clock = clock;
+    }
+
+    /**
+     * @return the cached value or null if it is missing or already expired
+     */
+    V get(K key) {
+        return get(key, 0);
+    }
+
+    /**
+     * @param graceMillis how long after its expiration the entry is still served
+     * @return the cached value or null if it is missing or expired for longer than the grace
+     */
+    V get(K key, long graceMillis) {
+        Entry<K, V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        Value<V> current = entry.current;
+        long servedUntil = current.expiresAt + graceMillis < current.expiresAt ? NO_EXPIRATION : current.expiresAt + graceMillis;
+        if (servedUntil <= clock.millis()) {
+            entries.remove(key, entry);
+            return null;
+        }
+        if (!entry.referenced) {
+            entry.referenced = true;
+        }
+        return current.value;
+    }
+
+    /**
+     * @return the cached value, expired or not, without marking it as read
+     */
+    V peek(K key) {
+        Entry<K, V> entry = entries.get(key);
+        return entry == null ? null : entry.current.value;
+    }
+
+    /**
+     * @return the expiration of the entry, or -1 if it is not cached
+     */
+    long expiresAt(K key) {
+        Entry<K, V> entry = entries.get(key);
+        return entry == null ? -1 : entry.current.expiresAt;
+    }
+
+    void put(K key, V value) {
+        put(key, value, NO_EXPIRATION);
+    }
+
+    /**
+     * @param expiresAt time in millis, as given by the cache clock, from which the entry is no longer served
+     */
+    void put(K key, V value, long expiresAt) {
+        Value<V> current = new Value<>(value, expiresAt);
+        Entry<K, V> created = new Entry<>(key, current);
+        Entry<K, V> existing = entries.putIfAbsent(key, created);
+        if (existing != null) {
+            // a single write, readers see the new value with its own expiration
+            existing.current = current;
+            existing.referenced = true;
+            return;
+        }
+        enqueue(created);
+    }
+
+    /**
+     * Caches the value without expiration unless the key is already cached, expired or not.
+     *
+     * @return the value already cached, or null if the given one was added
+     */
+    V putIfAbsent(K key, V value) {
+        Entry<K, V> created = new Entry<>(key, new Value<>(value, NO_EXPIRATION));
+        Entry<K, V> existing = entries.putIfAbsent(key, created);
+        if (existing != null) {
+            return existing.current.value;
+        }
+        enqueue(created);
+        return null;
+    }
+
+    private void enqueue(Entry<K, V> created) {
+        order.add(created);
+        int inQueue = queued.incrementAndGet();
+        if (entries.size() > maxEntries || inQueue > 2L * maxEntries) {
+            evict();
+        }
+    }
+
+    void remove(K key) {
+        entries.remove(key);
+    }
+
+    void clear() {
+        synchronized (evictionLock) {
+            entries.clear();
+            order.clear();
+            queued.set(0);
+        }
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return a weakly consistent view of the keys, expired entries not read since included
+     */
+    Iterable<K> keys() {
+        return entries.keySet();
+    }
+
+    /**
+     * @return the entries in the eviction queue, including the removed ones not purged yet
+     */
+    int queuedEntries() {
+        return queued.get();
+    }
+
+    private void evict() {
+        synchronized (evictionLock) {
+            while (entries.size() > maxEntries) {
+                Entry<K, V> candidate = order.poll();
+                if (candidate == null) {
+                    break;
+                }
+                if (entries.get(candidate.key) != candidate) {
+                    // already removed or replaced
+                    queued.decrementAndGet();
+                    continue;
+                }
+                if (policy == EvictionPolicy.LRU && candidate.referenced) {
+                    // second chance, it was read since the last time the clock hand passed by
+                    candidate.referenced = false;
+                    order.add(candidate);
+                    continue;
+                }
+                entries.remove(candidate.key, candidate);
+                queued.decrementAndGet();
+            }
+            if (queued.get() > 2L * maxEntries) {
+                purgeRemoved();
+            }
+        }
+    }
+
+    /**
+     * Drops the queued entries that are no longer in the map. Only called once they are at least as
+     * many as the live ones, so the scan is paid by the removals that left them behind.
+     */
+    private void purgeRemoved() {
+        Iterator<Entry<K, V>> iterator = order.iterator();
+        while (iterator.hasNext()) {
+            Entry<K, V> entry = iterator.next();
+            if (entries.get(entry.key) != entry) {
+                iterator.remove();
+                queued.decrementAndGet();
+            }
+        }
+    }
+
+    long now() {
+        return clock.millis();
+    }
+
+    private static final class Entry<K, V> {
+        private final K key;
+        private volatile Value<V> current;
+        private volatile boolean referenced;
+
+        private Entry(K key, Value<V> current) {
+            this.key = key;
+            this.current = current;
+        }
+    }
+
+    private static final class Value<V> {
+        private final V value;
+        private final long expiresAt;
+
+        private Value(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
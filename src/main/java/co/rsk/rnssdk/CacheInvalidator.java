@@ -0,0 +1,304 @@
+package co.rsk.rnssdk;
+
+import co.rsk.commons.ByteArrayWrapper;
+import co.rsk.commons.Keccak256;
+
+import org.web3j.abi.EventEncoder;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.DefaultBlockParameterName;
+import org.web3j.protocol.core.methods.request.EthFilter;
+import org.web3j.protocol.core.methods.response.Log;
+import org.web3j.utils.Numeric;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import co.rsk.rnssdk.contracts.AbstractMultiChainResolver;
+import co.rsk.rnssdk.contracts.RNS;
+import io.reactivex.Flowable;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.functions.Consumer;
+
+/**
+ * Follows registry and resolver events and evicts the nodes they touch from the {@link RnsResolver}
+ * caches, so cached entries stay correct without expiring.
+ * <p>
+ * With an empty watchlist every event is followed. Resolver events are followed for every contract,
+ * there is no list of resolvers to keep up to date and an event from an unrelated contract only costs
+ * one extra lookup. Once names are watched the filters only match their nodes, split in shards of
+ * at most {@code maxNodesPerFilter} nodes each. A node keeps its shard while it is watched, so
+ * changing the watchlist only resubscribes the shards that changed, and their new filters are
+ * installed before the old ones are dropped. A new filter starts at the latest block and the events
+ * the old one had not polled yet are lost, so the nodes of a resubscribed shard are evicted. Once a
+ * first name is watched the caches are cleared, they hold names that are no longer followed.
+ * <p>
+ * If a subscription fails the caches are cleared and it is retried; they are cleared again once it
+ * is back, since events in between are lost.
+ */
+class CacheInvalidator {
+
+    static final long RETRY_DELAY_MILLIS = 5000;
+
+    private static final String NEW_OWNER = EventEncoder.encode(RNS.NEWOWNER_EVENT);
+    private static final String NEW_RESOLVER = EventEncoder.encode(RNS.NEWRESOLVER_EVENT);
+    private static final String NEW_TTL = EventEncoder.encode(RNS.NEWTTL_EVENT);
+    private static final String ADDR_CHANGED = EventEncoder.encode(AbstractMultiChainResolver.ADDRCHANGED_EVENT);
+    private static final String CHAIN_ADDR_CHANGED = EventEncoder.encode(AbstractMultiChainResolver.CHAINADDRCHANGED_EVENT);
+
+    private final RnsResolver resolver;
+    private final int maxNodesPerFilter;
+    // the shard of every watched node
+    private final Map<ByteArrayWrapper, Shard> watchlist = new ConcurrentHashMap<>();
+    private final List<Shard> shards = new ArrayList<>();
+    // the filters used while the watchlist is empty
+    private final List<Disposable> everything = new ArrayList<>();
+    private Web3j web3;
+    private String registryAddress;
+
+    CacheInvalidator(RnsResolver resolver, int maxNodesPerFilter) {
+        this.resolver = resolver;
+        this.maxNodesPerFilter = maxNodesPerFilter;
+    }
+
+    synchronized void start(Web3j web3, RNS rns) {
+        this.web3 = web3;
+        this.registryAddress = rns.getContractAddress();
+        refresh();
+    }
+
+    synchronized void stop() {
+        dispose(everything);
+        for (Shard shard : shards) {
+            dispose(shard.subscriptions);
+            shard.dirty = true;
+        }
+        web3 = null;
+    }
+
+    /**
+     * Adds the node to the first shard with room, {@link #refresh()} must be called to apply the changes.
+     *
+     * @param parent the node of the parent domain
+     * @param label the hash of the first label of the name
+     */
+    synchronized void watch(byte[] node, byte[] parent, byte[] label) {
+        ByteArrayWrapper key = new ByteArrayWrapper(node);
+        if (watchlist.containsKey(key)) {
+            return;
+        }
+        Shard shard = null;
+        for (Shard candidate : shards) {
+            if (candidate.nodes.size() < maxNodesPerFilter) {
+                shard = candidate;
+                break;
+            }
+        }
+        if (shard == null) {
+            shard = new Shard();
+            shards.add(shard);
+        }
+        shard.nodes.put(key, new WatchedNode(node, parent, label));
+        shard.dirty = true;
+        watchlist.put(key, shard);
+    }
+
+    synchronized void unwatch(byte[] node) {
+        ByteArrayWrapper key = new ByteArrayWrapper(node);
+        Shard shard = watchlist.remove(key);
+        if (shard != null) {
+            shard.nodes.remove(key);
+            shard.dirty = true;
+        }
+    }
+
+    /**
+     * Resubscribes the shards changed since the last refresh.
+     */
+    synchronized void refresh() {
+        if (web3 == null) {
+            return;
+        }
+        if (watchlist.isEmpty() && everything.isEmpty()) {
+            everything.addAll(subscribe(filtersForEverything()));
+        }
+        Iterator<Shard> iterator = shards.iterator();
+        while (iterator.hasNext()) {
+            Shard shard = iterator.next();
+            if (shard.nodes.isEmpty()) {
+                dispose(shard.subscriptions);
+                iterator.remove();
+            } else if (shard.dirty) {
+                List<Disposable> previous = new ArrayList<>(shard.subscriptions);
+                shard.subscriptions.clear();
+                shard.subscriptions.addAll(subscribe(filtersFor(new ArrayList<>(shard.nodes.values()))));
+                dispose(previous);
+                shard.dirty = false;
+                for (WatchedNode watched : shard.nodes.values()) {
+                    resolver.evictNode(watched.node);
+                }
+            }
+        }
+        if (!watchlist.isEmpty() && !everything.isEmpty()) {
+            dispose(everything);
+            // cached without expiring while every name was followed
+            resolver.clearCaches();
+        }
+    }
+
+    /**
+     * @return whether changes to the node are followed, so its entries can be cached without expiring.
+     */
+    boolean follows(byte[] node) {
+        return watchlist.isEmpty() || watchlist.containsKey(new ByteArrayWrapper(node));
+    }
+
+    private List<Disposable> subscribe(List<EthFilter> filters) {
+        List<Disposable> subscriptions = new ArrayList<>(filters.size());
+        for (EthFilter filter : filters) {
+            subscriptions.add(subscribe(filter));
+        }
+        return subscriptions;
+    }
+
+    Disposable subscribe(EthFilter filter) {
+        return watch(web3.ethLogFlowable(filter), this::onLog);
+    }
+
+    private static void dispose(List<Disposable> subscriptions) {
+        for (Disposable subscription : subscriptions) {
+            subscription.dispose();
+        }
+        subscriptions.clear();
+    }
+
+    List<EthFilter> filtersForEverything() {
+        DefaultBlockParameterName latest = DefaultBlockParameterName.LATEST;
+        EthFilter registry = new EthFilter(latest, latest, registryAddress);
+        registry.addOptionalTopics(NEW_OWNER, NEW_RESOLVER, NEW_TTL);
+        EthFilter resolvers = new EthFilter(latest, latest, Collections.<String>emptyList());
+        resolvers.addOptionalTopics(ADDR_CHANGED, CHAIN_ADDR_CHANGED);
+        List<EthFilter> filters = new ArrayList<>();
+        filters.add(registry);
+        filters.add(resolvers);
+        return filters;
+    }
+
+    synchronized List<EthFilter> filtersForWatchlist() {
+        List<EthFilter> filters = new ArrayList<>();
+        for (Shard shard : shards) {
+            if (!shard.nodes.isEmpty()) {
+                filters.addAll(filtersFor(new ArrayList<>(shard.nodes.values())));
+            }
+        }
+        return filters;
+    }
+
+    /**
+     * NewOwner is indexed by parent and label, its filter matches every combination of the
+     * parents and labels in the shard, so a few unwatched subnodes may get evicted too.
+     */
+    private List<EthFilter> filtersFor(List<WatchedNode> shard) {
+        String[] nodes = new String[shard.size()];
+        Set<String> parents = new LinkedHashSet<>();
+        Set<String> labels = new LinkedHashSet<>();
+        for (int i = 0; i < shard.size(); i++) {
+            WatchedNode watched = shard.get(i);
+            nodes[i] = Numeric.toHexString(watched.node);
+            parents.add(Numeric.toHexString(watched.parent));
+            labels.add(Numeric.toHexString(watched.label));
+        }
+        DefaultBlockParameterName latest = DefaultBlockParameterName.LATEST;
+
+        EthFilter registry = new EthFilter(latest, latest, registryAddress);
+        registry.addOptionalTopics(NEW_RESOLVER, NEW_TTL);
+        registry.addOptionalTopics(nodes);
+
+        EthFilter owners = new EthFilter(latest, latest, registryAddress);
+        owners.addSingleTopic(NEW_OWNER);
+        owners.addOptionalTopics(parents.toArray(new String[0]));
+        owners.addOptionalTopics(labels.toArray(new String[0]));
+
+        EthFilter resolvers = new EthFilter(latest, latest, Collections.<String>emptyList());
+        resolvers.addOptionalTopics(ADDR_CHANGED, CHAIN_ADDR_CHANGED);
+        resolvers.addOptionalTopics(nodes);
+
+        List<EthFilter> filters = new ArrayList<>();
+        filters.add(registry);
+        filters.add(owners);
+        filters.add(resolvers);
+        return filters;
+    }
+
+    /**
+     * Clears the caches when the subscription fails and again when it is back. A first subscription
+     * does not clear them, the nodes it follows were not cached without a TTL before.
+     */
+    <T> Disposable watch(Flowable<T> events, Consumer<T> handler) {
+        final AtomicBoolean failed = new AtomicBoolean();
+        return events
+                .doOnSubscribe(subscription -> {
+                    if (failed.getAndSet(false)) {
+                        resolver.clearCaches();
+                    }
+                })
+                .doOnError(error -> {
+                    failed.set(true);
+                    resolver.clearCaches();
+                })
+                .retryWhen(errors -> errors.flatMap(error -> Flowable.timer(RETRY_DELAY_MILLIS, TimeUnit.MILLISECONDS)))
+                .subscribe(handler);
+    }
+
+    void onLog(Log log) {
+        List<String> topics = log.getTopics();
+        if (topics == null || topics.size() < 2) {
+            return;
+        }
+        String event = topics.get(0);
+        byte[] node = Numeric.hexStringToByteArray(topics.get(1));
+        if (NEW_OWNER.equals(event) && topics.size() > 2) {
+            onNewOwner(node, Numeric.hexStringToByteArray(topics.get(2)));
+        } else if (NEW_RESOLVER.equals(event) || NEW_TTL.equals(event)) {
+            resolver.evictNode(node);
+        } else if (ADDR_CHANGED.equals(event) || CHAIN_ADDR_CHANGED.equals(event)) {
+            resolver.evictAddresses(node);
+        }
+    }
+
+    /**
+     * The event carries the parent node and the label, the owner changed for the subnode.
+     */
+    void onNewOwner(byte[] parent, byte[] label) {
+        byte[] node = new byte[Keccak256.DIGEST_LENGTH];
+        Keccak256.hash64(parent, 0, label, 0, node, 0);
+        resolver.evictNode(node);
+    }
+
+    private static class Shard {
+        private final Map<ByteArrayWrapper, WatchedNode> nodes = new LinkedHashMap<>();
+        private final List<Disposable> subscriptions = new ArrayList<>();
+        // the nodes changed since it was subscribed
+        private boolean dirty;
+    }
+
+    private static class WatchedNode {
+        private final byte[] node;
+        private final byte[] parent;
+        private final byte[] label;
+
+        WatchedNode(byte[] node, byte[] parent, byte[] label) {
+            this.node = node;
+            this.parent = parent;
+            this.label = label;
+        }
+    }
+}
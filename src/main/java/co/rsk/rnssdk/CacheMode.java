@@ -0,0 +1,21 @@
+package co.rsk.rnssdk;
+
+/**
+ * How cached addresses are refreshed once their TTL is close to its end. Only used with the TTL cache.
+ */
+public enum CacheMode {
+    /**
+     * Expired entries are dropped and the next lookup waits for the node.
+     */
+    EXPIRE,
+    /**
+     * Expired entries are still returned, for up to the stale window, while a refresh runs in
+     * the background.
+     */
+    STALE_WHILE_REVALIDATE,
+    /**
+     * Entries read shortly before they expire are refreshed in the background, so entries in use
+     * never expire.
+     */
+    REFRESH_AHEAD
+}
@@ -0,0 +1,126 @@
+package co.rsk.rnssdk;
+
+import org.web3j.abi.datatypes.Function;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.methods.response.EthCall;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import java8.util.concurrent.CompletableFuture;
+import java8.util.concurrent.CompletionException;
+
+/**
+ * Group of independent eth_calls that are sent together. When a {@link BatchHttpService} is
+ * available they travel as JSON-RPC batches, otherwise they are sent concurrently.
+ */
+class CallBatch {
+
+    private final Web3j web3;
+    private final BatchHttpService batchService;
+    private final int maxBatchSize;
+    private final List<Request<?, EthCall>> requests = new ArrayList<>();
+    private final List<Function> functions = new ArrayList<>();
+
+    CallBatch(Web3j web3, BatchHttpService batchService, int maxBatchSize) {
+        this.web3 = web3;
+        this.batchService = batchService;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * @return the position of the call result in the {@link Results} returned by {@link #send()}
+     */
+    int add(String contractAddress, Function function) {
+        requests.add(ResolverCalls.request(web3, contractAddress, function));
+        functions.add(function);
+        return requests.size() - 1;
+    }
+
+    int size() {
+        return requests.size();
+    }
+
+    /**
+     * @return the outcome of every call, one failed call does not fail the others
+     * @throws IOException if a whole JSON-RPC batch fails
+     */
+    Results send() throws IOException {
+        List<Object> responses = batchService != null ? sendBatches() : sendConcurrently();
+        Results results = new Results(responses.size());
+        for (int i = 0; i < responses.size(); i++) {
+            Object response = responses.get(i);
+            if (response instanceof IOException) {
+                results.errors[i] = (IOException) response;
+                continue;
+            }
+            try {
+                results.values[i] = ResolverCalls.decode((EthCall) response, functions.get(i));
+            } catch (IOException e) {
+                results.errors[i] = e;
+            }
+        }
+        return results;
+    }
+
+    private List<Object> sendBatches() throws IOException {
+        List<Object> responses = new ArrayList<>(requests.size());
+        for (int from = 0; from < requests.size(); from += maxBatchSize) {
+            int to = Math.min(requests.size(), from + maxBatchSize);
+            responses.addAll(batchService.sendBatch(requests.subList(from, to), EthCall.class));
+        }
+        return responses;
+    }
+
+    /**
+     * @return the response of every call, or the {@link IOException} it failed with
+     */
+    private List<Object> sendConcurrently() {
+        List<CompletableFuture<EthCall>> futures = new ArrayList<>(requests.size());
+        for (Request<?, EthCall> request : requests) {
+            futures.add(request.sendAsync());
+        }
+        List<Object> responses = new ArrayList<>(futures.size());
+        for (int i = 0; i < futures.size(); i++) {
+            Object response;
+            try {
+                response = futures.get(i).join();
+            } catch (RuntimeException e) {
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                response = cause instanceof IOException
+                        ? cause
+                        : new IOException(functions.get(i).getName() + " failed", cause);
+            }
+            responses.add(response);
+        }
+        return responses;
+    }
+
+    /**
+     * Decoded results of a {@link CallBatch}, by position.
+     */
+    static final class Results {
+
+        private final Object[] values;
+        private final IOException[] errors;
+
+        private Results(int size) {
+            this.values = new Object[size];
+            this.errors = new IOException[size];
+        }
+
+        /**
+         * @return the decoded value of the call
+         * @throws IOException if the call failed or returned nothing
+         */
+        @SuppressWarnings("unchecked")
+        <T> T get(int position) throws IOException {
+            if (errors[position] != null) {
+                throw errors[position];
+            }
+            return (T) values[position];
+        }
+    }
+}
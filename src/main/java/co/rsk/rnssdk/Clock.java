@@ -0,0 +1,16 @@
+package co.rsk.rnssdk;
+
+/**
+ * Time source for the caches, it can be replaced in tests to avoid sleeping.
+ */
+interface Clock {
+
+    Clock SYSTEM = new Clock() {
+        @Override
+        public long millis() {
+            return System.currentTimeMillis();
+        }
+    };
+
+    long millis();
+}
@@ -0,0 +1,43 @@
+package co.rsk.rnssdk;
+
+import org.web3j.protocol.Web3j;
+import org.web3j.tx.ClientTransactionManager;
+import org.web3j.tx.gas.ContractGasProvider;
+import org.web3j.tx.gas.DefaultGasProvider;
+
+import co.rsk.rnssdk.contracts.AbstractMultiChainResolver;
+import co.rsk.rnssdk.contracts.AbstractResolver;
+import co.rsk.rnssdk.contracts.ResolverInterface;
+
+/**
+ * Keeps the contract wrappers of every resolver in use, so repeated operations on the same
+ * resolver and sender reuse them instead of loading new ones.
+ */
+class ContractRegistry {
+
+    private static final ContractGasProvider GAS_PROVIDER = new DefaultGasProvider();
+
+    private final Web3j web3;
+    private final BoundedCache<String, AbstractResolverResult> resolvers;
+
+    ContractRegistry(Web3j web3, int maxEntries, EvictionPolicy policy) {
+        this.web3 = web3;
+        this.resolvers = new BoundedCache<>(maxEntries, policy);
+    }
+
+    AbstractResolverResult resolverContracts(String resolverAddress, String from) {
+        String key = resolverAddress.toLowerCase() + ":" + from;
+        AbstractResolverResult result = resolvers.get(key);
+        if (result == null) {
+            ClientTransactionManager transactionManager = new ClientTransactionManager(web3, from);
+            result = new AbstractResolverResult(
+                    AbstractResolver.load(resolverAddress, web3, transactionManager, GAS_PROVIDER),
+                    AbstractMultiChainResolver.load(resolverAddress, web3, transactionManager, GAS_PROVIDER),
+                    ResolverInterface.load(resolverAddress, web3, transactionManager, GAS_PROVIDER),
+                    resolverAddress,
+                    transactionManager);
+            resolvers.put(key, result);
+        }
+        return result;
+    }
+}
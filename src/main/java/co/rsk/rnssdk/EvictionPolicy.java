@@ -0,0 +1,16 @@
+package co.rsk.rnssdk;
+
+/**
+ * Strategy used by the resolver caches to pick a victim once they are full.
+ */
+public enum EvictionPolicy {
+    /**
+     * Evicts the oldest inserted entry, regardless of how often it is read.
+     */
+    FIFO,
+    /**
+     * Evicts entries that were not read recently. It is approximated with a second chance
+     * (CLOCK) queue so reads never need to take a lock.
+     */
+    LRU
+}
@@ -0,0 +1,155 @@
+package co.rsk.rnssdk;
+
+import org.bouncycastle.util.encoders.Hex;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import java8.util.concurrent.CompletableFuture;
+import java8.util.concurrent.CompletionException;
+
+/**
+ * Collects single address lookups coming from many threads during a short window, or until
+ * the batch is full, and resolves them together with {@link RnsResolver#getAddresses}. Each
+ * lookup gets the address or the error of its own name.
+ */
+class LookupDispatcher {
+
+    private final RnsResolver resolver;
+    private final long windowMillis;
+    private final int maxLookups;
+    private final ConcurrentLinkedQueue<Lookup> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final ScheduledExecutorService scheduler;
+    private volatile boolean shutdown;
+
+    LookupDispatcher(RnsResolver resolver, long windowMillis, int maxLookups) {
+        this.resolver = resolver;
+        this.windowMillis = windowMillis;
+        this.maxLookups = maxLookups;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "rns-lookup-dispatcher");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * @return the pending lookup, failed if the dispatcher is shut down
+     */
+    CompletableFuture<String> submit(String name, byte[] chainId) {
+        Lookup lookup = new Lookup(name, chainId);
+        queue.add(lookup);
+        // shutdown sets the flag before draining, so either it drains this lookup or it is seen here
+        if (shutdown) {
+            failQueued();
+            return lookup.result;
+        }
+        try {
+            if (queued.incrementAndGet() >= maxLookups) {
+                scheduler.execute(this::flush);
+            } else if (flushScheduled.compareAndSet(false, true)) {
+                scheduler.schedule(this::flush, windowMillis, TimeUnit.MILLISECONDS);
+            }
+        } catch (RejectedExecutionException e) {
+            // shut down in the meantime, nothing would flush the queue any more
+            failQueued();
+        }
+        return lookup.result;
+    }
+
+    void shutdown() {
+        shutdown = true;
+        scheduler.shutdownNow();
+        failQueued();
+    }
+
+    private void failQueued() {
+        Lookup lookup;
+        while ((lookup = queue.poll()) != null) {
+            lookup.result.completeExceptionally(new IllegalStateException("The resolver was shut down"));
+        }
+    }
+
+    private void flush() {
+        flushScheduled.set(false);
+        while (true) {
+            List<Lookup> batch = new ArrayList<>();
+            Lookup lookup;
+            while (batch.size() < maxLookups && (lookup = queue.poll()) != null) {
+                batch.add(lookup);
+            }
+            queued.addAndGet(-batch.size());
+            if (batch.isEmpty()) {
+                return;
+            }
+            resolve(batch);
+        }
+    }
+
+    private void resolve(List<Lookup> batch) {
+        Map<String, List<Lookup>> byChain = new LinkedHashMap<>();
+        for (Lookup lookup : batch) {
+            String chain = lookup.chainId == null ? "" : Hex.toHexString(lookup.chainId);
+            List<Lookup> lookups = byChain.get(chain);
+            if (lookups == null) {
+                lookups = new ArrayList<>();
+                byChain.put(chain, lookups);
+            }
+            lookups.add(lookup);
+        }
+        for (List<Lookup> lookups : byChain.values()) {
+            List<String> names = new ArrayList<>(lookups.size());
+            for (Lookup lookup : lookups) {
+                names.add(lookup.name);
+            }
+            try {
+                Map<String, CompletableFuture<String>> addresses = resolver.lookupAddresses(names, lookups.get(0).chainId);
+                for (Lookup lookup : lookups) {
+                    complete(lookup.result, addresses.get(lookup.name));
+                }
+            } catch (Exception e) {
+                for (Lookup lookup : lookups) {
+                    lookup.result.completeExceptionally(e);
+                }
+            }
+        }
+    }
+
+    private static void complete(final CompletableFuture<String> lookup, CompletableFuture<String> address) {
+        address.whenComplete((value, error) -> {
+            if (error != null) {
+                lookup.completeExceptionally(error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause()
+                        : error);
+            } else {
+                lookup.complete(value);
+            }
+        });
+    }
+
+    private static final class Lookup {
+        private final String name;
+        private final byte[] chainId;
+        private final CompletableFuture<String> result = new CompletableFuture<>();
+
+        private Lookup(String name, byte[] chainId) {
+            this.name = name;
+            this.chainId = chainId;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package co.rsk.rnssdk;
+
+import co.rsk.commons.Keccak256;
+
+import org.web3j.ens.NameHash;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Memoized namehash. Label hashes and the nodes of every parent domain are cached, so hashing
+ * a.b.rsk after b.rsk only needs to hash the new label and the new node.
+ * Results are shared, callers must not modify the returned arrays.
+ */
+class NameHasher {
+
+    private static final byte[] ROOT = new byte[32];
+
+    // keyed by the name as given and by its normalised form, both map to the same node
+    private final BoundedCache<String, byte[]> nodes;
+    private final BoundedCache<String, byte[]> labels;
+
+    NameHasher(int maxEntries, EvictionPolicy policy) {
+        this.nodes = new BoundedCache<>(maxEntries, policy);
+        this.labels = new BoundedCache<>(maxEntries, policy);
+    }
+
+    /**
+     * @return the same value as {@link NameHash#nameHashAsBytes(String)}
+     */
+    byte[] nameHash(String name) {
+        byte[] node = nodes.get(name);
+        if (node == null) {
+            node = normalisedNameHash(NameHash.normalise(name));
+            nodes.put(name, node);
+        }
+        return node;
+    }
+
+    /**
+     * Drops the node cached for the name, the nodes of its parents and the label hashes are kept.
+     */
+    void forget(String name) {
+        nodes.remove(name);
+        nodes.remove(NameHash.normalise(name));
+    }
+
+    private byte[] normalisedNameHash(String name) {
+        int dot = name.indexOf('.');
+        String label = dot < 0 ? name : name.substring(0, dot);
+        if (label.isEmpty()) {
+            // same as web3j, an empty label ends the name
+            return ROOT;
+        }
+        byte[] node = nodes.get(name);
+        if (node != null) {
+            return node;
+        }
+        byte[] parent = dot < 0 ? ROOT : normalisedNameHash(name.substring(dot + 1));
+        node = new byte[Keccak256.DIGEST_LENGTH];
+        Keccak256.hash64(parent, 0, labelHash(label), 0, node, 0);
+        nodes.put(name, node);
+        return node;
+    }
+
+    byte[] labelHash(String label) {
+        byte[] hash = labels.get(label);
+        if (hash == null) {
+            hash = Keccak256.hash(label.getBytes(StandardCharsets.UTF_8));
+            labels.put(label, hash);
+        }
+        return hash;
+    }
+}
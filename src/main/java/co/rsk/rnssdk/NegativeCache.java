@@ -0,0 +1,87 @@
+package co.rsk.rnssdk;
+
+/**
+ * Remembers lookups that found nothing, for a short time and apart from the resolved entries, so
+ * repeated lookups of unregistered names do not reach the node and do not evict real entries.
+ * Entries are evicted in insertion order, names looked up by typos and scanners are rarely read
+ * twice and are not worth keeping over newer ones.
+ */
+class NegativeCache {
+
+    enum Outcome {
+        /** The registry has no owner for the node. */
+        NO_OWNER,
+        /** The registry has no resolver for the node, the default resolver has no record either. */
+        NO_RESOLVER,
+        /** The resolver of the node does not implement an address interface. */
+        NO_ADDRESS_INTERFACE,
+        /** The resolver answered with an empty record. */
+        EMPTY_RECORD
+    }
+
+    static final String OWNER = "owner";
+
+    private final NodeCache<Miss> entries;
+    private final long ttlMillis;
+
+    /**
+     * @param maxEntries the amount of nodes kept, with every outcome recorded for each
+     */
+    NegativeCache(int maxEntries, long ttlSeconds, Clock clock) {
+        this.entries = new NodeCache<>(maxEntries, EvictionPolicy.FIFO, clock);
+        this.ttlMillis = ttlSeconds * 1000;
+    }
+
+    /**
+     * @param kind {@link #OWNER}, or the chain of an address lookup
+     */
+    Outcome get(byte[] node, String kind) {
+        Miss miss = entries.get(node, kind);
+        return miss == null ? null : miss.outcome;
+    }
+
+    /**
+     * @return what the lookup answered when it found nothing, or null if it is not remembered
+     */
+    String answer(byte[] node, String kind) {
+        Miss miss = entries.get(node, kind);
+        return miss == null ? null : miss.answer;
+    }
+
+    void put(byte[] node, String kind, Outcome outcome) {
+        put(node, kind, outcome, null);
+    }
+
+    void put(byte[] node, String kind, Outcome outcome, String answer) {
+        entries.put(node, kind, new Miss(outcome, answer), entries.now() + ttlMillis);
+    }
+
+    void remove(byte[] node, String kind) {
+        entries.remove(node, kind);
+    }
+
+    /**
+     * Drops every outcome recorded for the node.
+     */
+    void evict(byte[] node) {
+        entries.remove(node);
+    }
+
+    void clear() {
+        entries.clear();
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private static final class Miss {
+        private final Outcome outcome;
+        private final String answer;
+
+        private Miss(Outcome outcome, String answer) {
+            this.outcome = outcome;
+            this.answer = answer;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package co.rsk.rnssdk;
+
+import co.rsk.commons.ByteArrayWrapper;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache of the entries of each node, such as its resolver or its address on every chain. The
+ * entries of a node are kept together, so all of them are evicted with a single removal when an
+ * event changes the node. The bound and the eviction policy apply to nodes, a node keeps all its
+ * entries until it is evicted; each entry expires on its own.
+ */
+class NodeCache<V> {
+
+    private final BoundedCache<ByteArrayWrapper, Entries<V>> nodes;
+
+    NodeCache(int maxNodes, EvictionPolicy policy) {
+        this(maxNodes, policy, Clock.SYSTEM);
+    }
+
+    NodeCache(int maxNodes, EvictionPolicy policy, Clock clock) {
+        this.nodes = new BoundedCache<>(maxNodes, policy, clock);
+    }
+
+    /**
+     * @return the cached value or null if it is missing or already expired
+     */
+    V get(byte[] node, String kind) {
+        return get(node, kind, 0);
+    }
+
+    /**
+     * @param graceMillis how long after its expiration the entry is still served
+     * @return the cached value or null if it is missing or expired for longer than the grace
+     */
+    V get(byte[] node, String kind, long graceMillis) {
+        Entries<V> entries = nodes.get(new ByteArrayWrapper(node));
+        if (entries == null) {
+            return null;
+        }
+        Value<V> current = entries.values.get(kind);
+        if (current == null) {
+            return null;
+        }
+        long servedUntil = current.expiresAt + graceMillis < current.expiresAt
+                ? BoundedCache.NO_EXPIRATION
+                : current.expiresAt + graceMillis;
+        if (servedUntil <= nodes.now()) {
+            entries.values.remove(kind, current);
+            return null;
+        }
+        return current.value;
+    }
+
+    /**
+     * @return the expiration of the entry, or -1 if it is not cached
+     */
+    long expiresAt(byte[] node, String kind) {
+        Entries<V> entries = nodes.get(new ByteArrayWrapper(node));
+        Value<V> current = entries == null ? null : entries.values.get(kind);
+        return current == null ? -1 : current.expiresAt;
+    }
+
+    void put(byte[] node, String kind, V value) {
+        put(node, kind, value, BoundedCache.NO_EXPIRATION);
+    }
+
+    /**
+     * @param expiresAt time in millis, as given by the cache clock, from which the entry is no longer served
+     */
+    void put(byte[] node, String kind, V value, long expiresAt) {
+        ByteArrayWrapper key = new ByteArrayWrapper(node);
+        Entries<V> entries = nodes.get(key);
+        if (entries == null) {
+            Entries<V> created = new Entries<>();
+            entries = nodes.putIfAbsent(key, created);
+            if (entries == null) {
+                entries = created;
+            }
+        }
+        entries.values.put(kind, new Value<>(value, expiresAt));
+    }
+
+    void remove(byte[] node, String kind) {
+        Entries<V> entries = nodes.get(new ByteArrayWrapper(node));
+        if (entries != null) {
+            entries.values.remove(kind);
+        }
+    }
+
+    /**
+     * Drops every entry of the node.
+     */
+    void remove(byte[] node) {
+        nodes.remove(new ByteArrayWrapper(node));
+    }
+
+    /**
+     * Drops the entries of the node that are not of the given kind.
+     */
+    void retain(byte[] node, String kind) {
+        Entries<V> entries = nodes.get(new ByteArrayWrapper(node));
+        if (entries != null) {
+            Iterator<String> kinds = entries.values.keySet().iterator();
+            while (kinds.hasNext()) {
+                if (!kinds.next().equals(kind)) {
+                    kinds.remove();
+                }
+            }
+        }
+    }
+
+    void clear() {
+        nodes.clear();
+    }
+
+    /**
+     * @return the amount of cached nodes
+     */
+    int nodes() {
+        return nodes.size();
+    }
+
+    /**
+     * @return the amount of entries of every node, expired entries not read since included
+     */
+    int size() {
+        int size = 0;
+        for (ByteArrayWrapper node : nodes.keys()) {
+            Entries<V> entries = nodes.peek(node);
+            if (entries != null) {
+                size += entries.values.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @return a weakly consistent view of the nodes
+     */
+    Iterable<ByteArrayWrapper> keys() {
+        return nodes.keys();
+    }
+
+    /**
+     * @return the entries of the node that have not expired, by kind
+     */
+    Map<String, V> entries(byte[] node) {
+        Map<String, V> live = new HashMap<>();
+        Entries<V> entries = nodes.get(new ByteArrayWrapper(node));
+        if (entries != null) {
+            long now = nodes.now();
+            for (Map.Entry<String, Value<V>> entry : entries.values.entrySet()) {
+                if (entry.getValue().expiresAt > now) {
+                    live.put(entry.getKey(), entry.getValue().value);
+                }
+            }
+        }
+        return live;
+    }
+
+    long now() {
+        return nodes.now();
+    }
+
+    private static final class Entries<V> {
+        // a node has a handful of entries, one per chain or sender at most
+        private final ConcurrentHashMap<String, Value<V>> values = new ConcurrentHashMap<>(4);
+    }
+
+    private static final class Value<V> {
+        private final V value;
+        private final long expiresAt;
+
+        private Value(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,390 @@
+package co.rsk.rnssdk;
+
+import co.rsk.commons.ByteArrayWrapper;
+
+import org.bouncycastle.util.encoders.Hex;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Resolvers and addresses saved to an append-only file, so a restarted resolver does not start
+ * cold. The file is read the first time it is used, and rewritten without the expired, evicted and
+ * overwritten entries when most of it is garbage.
+ * <p>
+ * Only entries with an expiration are stored, they are served until it passes and are then read
+ * again from the node. In memory the entries of at most {@code maxEntries} nodes are kept. Writes are done by a single background thread, lookups never wait for the file. A failure
+ * to read or write the file disables it, lookups go on without it.
+ */
+class PersistentCache {
+
+    static final int MAGIC = 0x524e5343;
+    static final int VERSION = 1;
+
+    // below this size the file is only compacted when it is loaded
+    static final int MIN_COMPACTED_RECORDS = 1024;
+
+    private static final long CLOSE_TIMEOUT_SECONDS = 5;
+
+    private static final byte RESOLVER = 1;
+    private static final byte ADDRESS = 2;
+    private static final byte EVICT_NODE = 3;
+    private static final byte EVICT_ADDRESSES = 4;
+
+    // chains are 4 bytes in hex, this kind can not be one
+    private static final String RESOLVER_KIND = "resolver";
+
+    private final File file;
+    private final Clock clock;
+    // the resolver of each node, and its address by chain
+    private final NodeCache<Entry> entries;
+    private final ExecutorService writer;
+    // records handed to the writer and not written yet, the file is flushed when none are left
+    private final AtomicInteger unwritten = new AtomicInteger();
+    // only used by the writer once the file is loaded
+    private DataOutputStream output;
+    private int records;
+    // counting the live entries visits every node, it is only done once enough records were written
+    private int nextCompactionCheck = MIN_COMPACTED_RECORDS;
+    private boolean loaded;
+    private volatile boolean disabled;
+
+    PersistentCache(File file, int maxEntries, EvictionPolicy policy, Clock clock) {
+        this.file = file;
+        this.clock = clock;
+        this.entries = new NodeCache<>(maxEntries, policy, clock);
+        this.writer = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "rns-persistent-cache");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    synchronized Entry resolver(byte[] node) {
+        return ready() ? entries.get(node, RESOLVER_KIND) : null;
+    }
+
+    synchronized Entry address(byte[] node, byte[] chainId) {
+        return ready() ? entries.get(node, Hex.toHexString(chainId)) : null;
+    }
+
+    synchronized void putResolver(byte[] node, String resolver, long expiresAt) {
+        if (ready()) {
+            entries.put(node, RESOLVER_KIND, new Entry(resolver, expiresAt), expiresAt);
+            append(new Record(RESOLVER, node, null, resolver, expiresAt));
+        }
+    }
+
+    synchronized void putAddress(byte[] node, byte[] chainId, String address, long expiresAt) {
+        if (ready()) {
+            entries.put(node, Hex.toHexString(chainId), new Entry(address, expiresAt), expiresAt);
+            append(new Record(ADDRESS, node, chainId, address, expiresAt));
+        }
+    }
+
+    synchronized void evict(byte[] node) {
+        if (ready()) {
+            entries.remove(node);
+            append(new Record(EVICT_NODE, node, null, null, 0));
+        }
+    }
+
+    synchronized void evictAddresses(byte[] node) {
+        if (ready()) {
+            entries.retain(node, RESOLVER_KIND);
+            append(new Record(EVICT_ADDRESSES, node, null, null, 0));
+        }
+    }
+
+    /**
+     * Writes the pending records, waiting for them a few seconds at most, and closes the file.
+     */
+    void close() {
+        synchronized (this) {
+            disabled = true;
+        }
+        writer.shutdown();
+        try {
+            writer.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        closeOutput();
+    }
+
+    private boolean ready() {
+        if (!loaded && !disabled) {
+            loaded = true;
+            try {
+                load();
+            } catch (IOException e) {
+                disable();
+            }
+        }
+        return !disabled;
+    }
+
+    private void load() throws IOException {
+        if (file.exists() && file.length() > 0) {
+            records = read();
+        }
+        if (records == 0 || records > 2 * live()) {
+            rewrite();
+        } else {
+            output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)));
+        }
+    }
+
+    /**
+     * @return the amount of records read, the file is cut after the last complete one
+     */
+    private int read() throws IOException {
+        DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        int records = 0;
+        long valid;
+        try {
+            if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+                return 0;
+            }
+            valid = 8;
+            long now = clock.millis();
+            byte[] node = new byte[32];
+            byte[] chainId = new byte[4];
+            while (true) {
+                byte type;
+                try {
+                    type = input.readByte();
+                } catch (EOFException e) {
+                    break;
+                }
+                try {
+                    long size = readRecord(input, type, node, chainId, now);
+                    if (size < 0) {
+                        break;
+                    }
+                    valid += size;
+                    records++;
+                } catch (EOFException e) {
+                    break;
+                }
+            }
+        } catch (EOFException e) {
+            return 0;
+        } finally {
+            input.close();
+        }
+        if (valid < file.length()) {
+            RandomAccessFile truncate = new RandomAccessFile(file, "rw");
+            try {
+                truncate.setLength(valid);
+            } finally {
+                truncate.close();
+            }
+        }
+        return records;
+    }
+
+    /**
+     * @return the size of the record, or -1 if it is not valid
+     */
+    private long readRecord(DataInputStream input, byte type, byte[] node, byte[] chainId, long now) throws IOException {
+        input.readFully(node);
+        switch (type) {
+            case RESOLVER: {
+                long expiresAt = input.readLong();
+                String resolver = input.readUTF();
+                put(node, RESOLVER_KIND, new Entry(resolver, expiresAt), now);
+                return 1 + 32 + 8 + 2 + utfLength(resolver);
+            }
+            case ADDRESS: {
+                input.readFully(chainId);
+                long expiresAt = input.readLong();
+                String address = input.readUTF();
+                put(node, Hex.toHexString(chainId), new Entry(address, expiresAt), now);
+                return 1 + 32 + 4 + 8 + 2 + utfLength(address);
+            }
+            case EVICT_NODE:
+                entries.remove(node);
+                return 1 + 32;
+            case EVICT_ADDRESSES:
+                entries.retain(node, RESOLVER_KIND);
+                return 1 + 32;
+            default:
+                return -1;
+        }
+    }
+
+    private void put(byte[] node, String kind, Entry entry, long now) {
+        // the node is reused for every record, the cache keeps its own copy
+        if (entry.expiresAt > now) {
+            entries.put(node.clone(), kind, entry, entry.expiresAt);
+        } else {
+            entries.remove(node, kind);
+        }
+    }
+
+    private int live() {
+        return entries.size();
+    }
+
+    /**
+     * Replaces the file with the live entries. Records still queued are appended to the new file
+     * afterwards, replaying them again gives the same entries.
+     */
+    private void rewrite() throws IOException {
+        closeOutput();
+        File temporary = new File(file.getPath() + ".tmp");
+        DataOutputStream rewritten = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)));
+        int written = 0;
+        try {
+            rewritten.writeInt(MAGIC);
+            rewritten.writeInt(VERSION);
+            for (ByteArrayWrapper key : entries.keys()) {
+                byte[] node = key.getData();
+                for (Map.Entry<String, Entry> entry : entries.entries(node).entrySet()) {
+                    Entry value = entry.getValue();
+                    if (entry.getKey().equals(RESOLVER_KIND)) {
+                        new Record(RESOLVER, node, null, value.value, value.expiresAt).write(rewritten);
+                    } else {
+                        new Record(ADDRESS, node, Hex.decode(entry.getKey()), value.value, value.expiresAt).write(rewritten);
+                    }
+                    written++;
+                }
+            }
+        } finally {
+            rewritten.close();
+        }
+        if (!temporary.renameTo(file)) {
+            file.delete();
+            if (!temporary.renameTo(file)) {
+                throw new IOException("Could not replace " + file);
+            }
+        }
+        records = written;
+        nextCompactionCheck = Math.max(MIN_COMPACTED_RECORDS, 2 * written);
+        output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)));
+    }
+
+    private void append(final Record record) {
+        unwritten.incrementAndGet();
+        try {
+            writer.execute(new Runnable() {
+                @Override
+                public void run() {
+                    write(record);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // closed, the record is dropped as any other after close
+            unwritten.decrementAndGet();
+        }
+    }
+
+    /**
+     * Runs on the writer thread.
+     */
+    private void write(Record record) {
+        if (output == null) {
+            return;
+        }
+        try {
+            record.write(output);
+            records++;
+            if (unwritten.decrementAndGet() == 0) {
+                output.flush();
+            }
+            if (records >= nextCompactionCheck) {
+                int live = live();
+                if (records > 2 * live) {
+                    rewrite();
+                } else {
+                    nextCompactionCheck = records + Math.max(MIN_COMPACTED_RECORDS, live);
+                }
+            }
+        } catch (IOException e) {
+            disable();
+        }
+    }
+
+    private void closeOutput() {
+        if (output != null) {
+            try {
+                output.close();
+            } catch (IOException e) {
+                // nothing left to save
+            }
+            output = null;
+        }
+    }
+
+    private void disable() {
+        disabled = true;
+        closeOutput();
+        entries.clear();
+    }
+
+    private static int utfLength(String value) {
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            length += c >= 0x0001 && c <= 0x007F ? 1 : (c > 0x07FF ? 3 : 2);
+        }
+        return length;
+    }
+
+    private static final class Record {
+        private final byte type;
+        private final byte[] node;
+        private final byte[] chainId;
+        private final String value;
+        private final long expiresAt;
+
+        private Record(byte type, byte[] node, byte[] chainId, String value, long expiresAt) {
+            this.type = type;
+            this.node = node;
+            this.chainId = chainId;
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        private void write(DataOutputStream out) throws IOException {
+            out.writeByte(type);
+            out.write(node);
+            if (type == ADDRESS) {
+                out.write(chainId);
+            }
+            if (type == RESOLVER || type == ADDRESS) {
+                out.writeLong(expiresAt);
+                out.writeUTF(value);
+            }
+        }
+    }
+
+    static class Entry {
+        final String value;
+        final long expiresAt;
+
+        Entry(String value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
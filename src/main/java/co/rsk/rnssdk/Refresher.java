@@ -0,0 +1,55 @@
+package co.rsk.rnssdk;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Runs background cache refreshes, at most one per key and at most {@code maxConcurrent} at once.
+ * Refreshes requested beyond that are dropped, a later read of the entry asks again.
+ */
+class Refresher {
+
+    private final Executor executor;
+    private final Semaphore permits;
+    private final Set<String> running = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    Refresher(Executor executor, int maxConcurrent) {
+        this.executor = executor;
+        this.permits = new Semaphore(maxConcurrent);
+    }
+
+    /**
+     * @return whether the refresh was started
+     */
+    boolean refresh(final String key, final Runnable task) {
+        if (!running.add(key)) {
+            return false;
+        }
+        if (!permits.tryAcquire()) {
+            running.remove(key);
+            return false;
+        }
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        task.run();
+                    } finally {
+                        running.remove(key);
+                        permits.release();
+                    }
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            running.remove(key);
+            permits.release();
+            return false;
+        }
+    }
+}
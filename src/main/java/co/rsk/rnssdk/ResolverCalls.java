@@ -0,0 +1,84 @@
+package co.rsk.rnssdk;
+
+import org.web3j.abi.FunctionEncoder;
+import org.web3j.abi.FunctionReturnDecoder;
+import org.web3j.abi.TypeReference;
+import org.web3j.abi.datatypes.Address;
+import org.web3j.abi.datatypes.Bool;
+import org.web3j.abi.datatypes.Function;
+import org.web3j.abi.datatypes.Type;
+import org.web3j.abi.datatypes.Utf8String;
+import org.web3j.abi.datatypes.generated.Bytes32;
+import org.web3j.abi.datatypes.generated.Bytes4;
+import org.web3j.abi.datatypes.generated.Uint64;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.DefaultBlockParameterName;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.methods.request.Transaction;
+import org.web3j.protocol.core.methods.response.EthCall;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Raw eth_call builders for the registry and resolver reads, used when the calls are
+ * grouped instead of being sent one by one through the contract wrappers.
+ */
+final class ResolverCalls {
+
+    private ResolverCalls() {
+        throw new IllegalAccessError("Utility class");
+    }
+
+    static Function resolver(byte[] node) {
+        return function("resolver", new TypeReference<Address>() {}, new Bytes32(node));
+    }
+
+    static Function ttl(byte[] node) {
+        return function("ttl", new TypeReference<Uint64>() {}, new Bytes32(node));
+    }
+
+    static Function supportsInterface(byte[] interfaceId) {
+        return function("supportsInterface", new TypeReference<Bool>() {}, new Bytes4(interfaceId));
+    }
+
+    static Function addr(byte[] node) {
+        return function("addr", new TypeReference<Address>() {}, new Bytes32(node));
+    }
+
+    static Function chainAddr(byte[] node, byte[] chainId) {
+        return function("chainAddr", new TypeReference<Utf8String>() {}, new Bytes32(node), new Bytes4(chainId));
+    }
+
+    // Function takes the inputs as a List of the raw Type
+    @SuppressWarnings("rawtypes")
+    private static Function function(String name, TypeReference<?> output, Type<?>... inputs) {
+        return new Function(name, Arrays.<Type>asList(inputs), Arrays.<TypeReference<?>>asList(output));
+    }
+
+    static Request<?, EthCall> request(Web3j web3, String contractAddress, Function function) {
+        return web3.ethCall(
+                Transaction.createEthCallTransaction(null, contractAddress, FunctionEncoder.encode(function)),
+                DefaultBlockParameterName.LATEST);
+    }
+
+    /**
+     * @return the native value of the single output of the function
+     * @throws IOException if the call failed or returned nothing, as the contract wrappers do
+     */
+    // FunctionReturnDecoder returns a List of the raw Type
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static <T> T decode(EthCall response, Function function) throws IOException {
+        if (response.hasError()) {
+            throw new IOException(function.getName() + " failed: " + response.getError().getMessage());
+        }
+        List<Type> values = response.getValue() == null
+                ? null
+                : FunctionReturnDecoder.decode(response.getValue(), function.getOutputParameters());
+        if (values == null || values.isEmpty()) {
+            throw new IOException("Empty value (0x) returned from " + function.getName());
+        }
+        return (T) values.get(0).getValue();
+    }
+}
@@ -0,0 +1,10 @@
+package co.rsk.rnssdk;
+
+/**
+ * Address interface implemented by a resolver contract, as detected with supportsInterface.
+ */
+enum ResolverCapability {
+    MULTI_CHAIN_ADDR,
+    ADDR,
+    NONE
+}
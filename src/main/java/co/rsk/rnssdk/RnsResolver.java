@@ -6,17 +6,28 @@ import org.bouncycastle.util.encoders.Hex;
 import org.web3j.crypto.WalletUtils;
 import org.web3j.ens.NameHash;
 import org.web3j.protocol.Web3j;
-import org.web3j.protocol.http.HttpService;
+import org.web3j.protocol.Web3jService;
+import org.web3j.protocol.core.methods.response.TransactionReceipt;
 import org.web3j.tx.ClientTransactionManager;
 import org.web3j.tx.gas.DefaultGasProvider;
 
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLongArray;
 
-import co.rsk.rnssdk.contracts.AbstractMultiChainResolver;
 import co.rsk.rnssdk.contracts.AbstractResolver;
 import co.rsk.rnssdk.contracts.RNS;
-import co.rsk.rnssdk.contracts.ResolverInterface;
+import co.rsk.rnssdk.indexer.RegistryModel;
+import java8.util.concurrent.CompletableFuture;
+import java8.util.concurrent.CompletionException;
 
 public class RnsResolver {
 
@@ -26,34 +37,134 @@ public class RnsResolver {
     public static final String OK_STATUS = "0x1";
 
     private final Web3j web3;
+    private final BatchHttpService batchService;
     private final RNS rns;
     private String defaultResolver;
+    // the resolver of each node, by sender
+    private final NodeCache<AbstractResolverResult> cache;
+    // the address of each node, by chain
+    private final NodeCache<String> addresses;
+    private final BoundedCache<String, ResolverCapability> capabilities;
+    // what the default resolver answers, by chain, for the nodes without records
+    private final BoundedCache<String, String> unregisteredAnswers = new BoundedCache<>(MAX_CHAINS, EvictionPolicy.FIFO);
+    private final ContractRegistry contracts;
+    private final NameHasher hasher;
+    // identical concurrent lookups, same name and chain, share a single resolution; every call reads the latest block
+    private final SingleFlight<String> addressLookups = new SingleFlight<>();
+    private final LookupDispatcher dispatcher;
+    private final CacheInvalidator invalidator;
+    private volatile RegistryModel registry;
+    private final PersistentCache persistent;
+    private final Refresher refresher;
+    private final NegativeCache negatives;
+    private final ExecutorService refreshPool;
+    private final RnsResolverConfig config;
     public final static String EMPTY_ADDRESS = "0x0000000000000000000000000000000000000000";
 
+    private static final int GENERATION_STRIPES = 64;
+    private static final int MAX_CHAINS = 64;
+    // bumped before a node is evicted, an entry read while its stripe changed may be stale and is dropped
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
     //The default resolver is to MainNet
     public RnsResolver() {
         this(BuildConfig.NODE, BuildConfig.RESOLVER_ADDRESS, BuildConfig.RNS_ADDRESS);
     }
 
     public RnsResolver(String nodeDir, String publicResolverAddress, String rnsAddress) {
-        this(Web3j.build(new HttpService(nodeDir)), publicResolverAddress, rnsAddress);
+        this(nodeDir, publicResolverAddress, rnsAddress, new RnsResolverConfig());
+    }
+
+    public RnsResolver(String nodeDir, String publicResolverAddress, String rnsAddress, RnsResolverConfig config) {
+        this(new BatchHttpService(nodeDir), publicResolverAddress, rnsAddress, config);
+    }
+
+    /**
+     * Use this constructor with a {@link BatchHttpService} to send {@link #getAddresses(Collection, byte[])}
+     * stages as JSON-RPC batches.
+     */
+    public RnsResolver(Web3jService service, String defaultResolver, String rnsAddress, RnsResolverConfig config) {
+        this(Web3j.build(service), service instanceof BatchHttpService ? (BatchHttpService) service : null,
+                defaultResolver, rnsAddress, config);
     }
 
     public RnsResolver(Web3j web3, String defaultResolver, String rnsAddress) {
+        this(web3, defaultResolver, rnsAddress, new RnsResolverConfig());
+    }
+
+    public RnsResolver(Web3j web3, String defaultResolver, String rnsAddress, RnsResolverConfig config) {
+        this(web3, null, defaultResolver, rnsAddress, config);
+    }
+
+    private RnsResolver(Web3j web3, BatchHttpService batchService, String defaultResolver, String rnsAddress, RnsResolverConfig config) {
+        if (config.getCacheMode() != CacheMode.EXPIRE && !config.isTtlCacheEnabled()) {
+            throw new IllegalStateException(config.getCacheMode() + " needs the TTL cache");
+        }
         this.web3 = web3;
+        this.batchService = batchService;
         this.defaultResolver = defaultResolver;
+        this.config = config;
+        this.cache = new NodeCache<>(config.getMaxCacheEntries(), config.getEvictionPolicy());
+        this.addresses = new NodeCache<>(config.getMaxCacheEntries(), config.getEvictionPolicy());
+        this.capabilities = new BoundedCache<>(config.getMaxCacheEntries(), config.getEvictionPolicy());
+        this.contracts = new ContractRegistry(web3, config.getMaxCacheEntries(), config.getEvictionPolicy());
+        this.hasher = new NameHasher(config.getMaxCacheEntries(), config.getEvictionPolicy());
+        this.persistent = config.getPersistentCacheFile() != null
+                ? new PersistentCache(config.getPersistentCacheFile(), config.getMaxCacheEntries(),
+                        config.getEvictionPolicy(), Clock.SYSTEM)
+                : null;
+        this.negatives = config.isNegativeCacheEnabled()
+                ? new NegativeCache(config.getMaxNegativeCacheEntries(), config.getNegativeTtlSeconds(), Clock.SYSTEM)
+                : null;
+        if (config.getCacheMode() == CacheMode.EXPIRE) {
+            this.refreshPool = null;
+            this.refresher = null;
+        } else {
+            this.refreshPool = config.getRefreshExecutor() == null ? newRefreshPool(config.getMaxConcurrentRefreshes()) : null;
+            this.refresher = new Refresher(refreshPool != null ? refreshPool : config.getRefreshExecutor(),
+                    config.getMaxConcurrentRefreshes());
+        }
+        this.dispatcher = config.isLookupBatchingEnabled()
+                ? new LookupDispatcher(this, config.getLookupBatchWindowMillis(), config.getMaxBatchedLookups())
+                : null;
         ClientTransactionManager transactionManager = new ClientTransactionManager(web3,null);
         this.rns = RNS.load(
                 rnsAddress,
                 web3,
                 transactionManager,
-                DefaultGasProvider.GAS_PRICE,
-                DefaultGasProvider.GAS_LIMIT);
+                new DefaultGasProvider());
+        this.invalidator = config.isEventInvalidationEnabled() ? new CacheInvalidator(this, config.getMaxWatchedNodesPerFilter()) : null;
+        if (invalidator != null) {
+            invalidator.start(web3, rns);
+        }
+    }
+
+    /**
+     * Answers address, content and owner queries from the model when it has the record, kept up to
+     * date by a {@link co.rsk.rnssdk.indexer.RegistryIndexer}. Anything else is read from the node.
+     * If the model has a {@link co.rsk.rnssdk.indexer.RegisteredNames} filter and was caught up from
+     * the registry deployment, names it never saw have the zero address as owner without calling the
+     * node, and the empty address the node gave the last unregistered name looked up on that chain.
+     */
+    public void setRegistryModel(RegistryModel registry) {
+        this.registry = registry;
+    }
+
+    private static ExecutorService newRefreshPool(int threads) {
+        return Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "rns-cache-refresh");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
     }
 
     @VisibleForTesting
     public AbstractResolverResult getResolver(String name, String from) {
-        return loadResolver(name, from);
+        byte[] node = hasher.nameHash(name);
+        return loadResolver(node, from);
     }
 
     //Backwards compatibility
@@ -63,25 +174,20 @@ public class RnsResolver {
 
     //TODO: refactor with strategy pattern
     public boolean setAddress(String name, String address, String from, byte[] chainId) throws Exception {
-        AbstractResolverResult result = loadResolver(name, from);
+        byte[] node = hasher.nameHash(name);
+        AbstractResolverResult result = loadResolver(node, from);
         if (chainId == null || chainId.length != 4) {
             chainId = RSK_CHAIN_ID;
         }
-        byte[] node = NameHash.nameHashAsBytes(name);
-        if (result.getResolver().supportsInterface(CHAIN_ADDR_INTERFACE).send()) {
-            AbstractMultiChainResolver multi = AbstractMultiChainResolver.load(result.getResolverAddress(),
-                    web3,
-                    result.getClientTransactionManager(),
-                    DefaultGasProvider.GAS_PRICE,
-                    DefaultGasProvider.GAS_LIMIT);
-            return  multi.setChainAddr(node, chainId, address).send().getStatus().equals(OK_STATUS);
-        } else if (result.getResolver().supportsInterface(ADDR_INTERFACE).send()) {
-            ResolverInterface noMulti = ResolverInterface.load(result.getResolverAddress(),
-                    web3,
-                    result.getClientTransactionManager(),
-                    DefaultGasProvider.GAS_PRICE,
-                    DefaultGasProvider.GAS_LIMIT);
-            return noMulti.setAddr(node, address).send().getStatus().equals(OK_STATUS);
+        ResolverCapability capability = capabilityOf(result);
+        if (capability == ResolverCapability.MULTI_CHAIN_ADDR) {
+            boolean success = result.getMultiChainResolver().setChainAddr(node, chainId, address).send().getStatus().equals(OK_STATUS);
+            evictAddresses(node);
+            return success;
+        } else if (capability == ResolverCapability.ADDR) {
+            boolean success = result.getResolverInterface().setAddr(node, address).send().getStatus().equals(OK_STATUS);
+            evictAddresses(node);
+            return success;
         }
         return false;
     }
@@ -92,107 +198,852 @@ public class RnsResolver {
     }
 
     //TODO: refactor with strategy pattern
-    public String getAddress(String name, byte[] chainId) throws Exception {
-        if (isValidRnsName(name)) {
-            AbstractResolverResult result = loadResolver(name, null);
-            byte[] node = NameHash.nameHashAsBytes(name);
+    public String getAddress(final String name, final byte[] chainId) throws Exception {
+        if (!isValidRnsName(name)) {
+            return Hex.toHexString(new byte[0]);
+        }
+        return forgetIfEmpty(name, findAddress(name, chainId));
+    }
+
+    private String findAddress(final String name, final byte[] chainId) throws Exception {
+        final byte[] node = hasher.nameHash(name);
+        String indexed = indexedAddress(node, chainId);
+        if (indexed != null) {
+            return indexed;
+        }
+        final String addressKey = addressKey(node, chainId);
+        String missing = missingAddress(node, chainId);
+        if (missing != null) {
+            return missing;
+        }
+        if (config.isAddressCacheEnabled()) {
+            String cached = cachedAddress(addressKey, node, chainId);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        if (dispatcher != null) {
+            return addressLookups.execute(addressKey, () -> awaitLookup(dispatcher.submit(name, chainId)));
+        }
+        return addressLookups.execute(addressKey, () -> resolveAddress(node, chainId));
+    }
+
+    private String indexedAddress(byte[] node, byte[] chainId) {
+        RegistryModel model = registry;
+        if (model == null || chainId == null) {
+            return null;
+        }
+        if (!model.mightBeRegistered(node)) {
+            // the same empty answer the node gives, once a lookup of an unregistered name has seen it
+            return unregisteredAnswers.get(Hex.toHexString(chainId));
+        }
+        return model.getAddress(node, chainId);
+    }
+
+    /**
+     * Names that were never registered have no owner, the zero address is returned for them.
+     */
+    private String indexedOwner(byte[] node) {
+        RegistryModel model = registry;
+        if (model == null) {
+            return null;
+        }
+        return model.mightBeRegistered(node) ? model.getOwner(node) : EMPTY_ADDRESS;
+    }
+
+    /**
+     * @return what was answered the last time the address was not found, if it is still remembered
+     */
+    private String missingAddress(byte[] node, byte[] chainId) {
+        return negatives == null ? null : negatives.answer(node, chainKind(chainId));
+    }
+
+    private static boolean isEmptyAddress(String address) {
+        return address.isEmpty() || address.equals(EMPTY_ADDRESS);
+    }
+
+    /**
+     * Names without an address are not kept in the hasher, so lookups of unregistered names do not
+     * evict the nodes of the registered ones.
+     */
+    private String forgetIfEmpty(String name, String address) {
+        if (isEmptyAddress(address)) {
+            hasher.forget(name);
+        }
+        return address;
+    }
+
+    /**
+     * Caches a resolved address, positively or negatively, and returns what the lookup answers.
+     * Only answers are cached, failed reads never get here.
+     *
+     * @param address the record, or null if the resolver implements no address interface
+     * @param generation the generation of the node when the lookup started
+     */
+    private String completeAddress(byte[] node, byte[] chainId, String address,
+                                   AbstractResolverResult result, long generation, boolean refresh) {
+        String answer = cacheAnswer(node, chainId, address, result, refresh);
+        if (generation(node) != generation) {
+            // evicted while it was read, what was just cached may be older than the event
+            addresses.remove(node, chainKind(chainId));
+            if (negatives != null) {
+                negatives.remove(node, chainKind(chainId));
+            }
+            if (persistent != null) {
+                persistent.evictAddresses(node);
+            }
+        }
+        return answer;
+    }
+
+    private String cacheAnswer(byte[] node, byte[] chainId, String address,
+                               AbstractResolverResult result, boolean refresh) {
+        String answer = address == null ? Hex.toHexString(new byte[0]) : address;
+        if (result.isUnread()) {
+            return answer;
+        }
+        if (result.isFallback() && chainId != null && isEmptyAddress(answer)) {
+            unregisteredAnswers.put(Hex.toHexString(chainId), answer);
+        }
+        if (!isEmptyAddress(answer)) {
+            if (cachesAddressesOf(node)) {
+                cacheAddress(node, chainId, answer, result.getExpiresAt());
+            }
+            return answer;
+        }
+        if (negatives != null) {
+            NegativeCache.Outcome outcome;
+            if (result.isFallback()) {
+                outcome = NegativeCache.Outcome.NO_RESOLVER;
+            } else if (address == null) {
+                outcome = NegativeCache.Outcome.NO_ADDRESS_INTERFACE;
+            } else {
+                outcome = NegativeCache.Outcome.EMPTY_RECORD;
+            }
+            negatives.put(node, chainKind(chainId), outcome, answer);
+        } else if (address != null && !result.isFallback() && cachesAddressesOf(node)) {
+            // without a negative cache the empty records of registered names are cached as any other
+            cacheAddress(node, chainId, answer, result.getExpiresAt());
+            return answer;
+        }
+        if (refresh) {
+            addresses.remove(node, chainKind(chainId));
+        }
+        return answer;
+    }
+
+    private static String awaitLookup(CompletableFuture<String> lookup) throws Exception {
+        try {
+            return lookup.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof Exception ? (Exception) cause : e;
+        }
+    }
+
+    private String resolveAddress(byte[] node, byte[] chainId) throws Exception {
+        return resolveAddress(node, chainId, false);
+    }
+
+    /**
+     * @param refresh skips the cached resolver, so the TTL is read again
+     */
+    private String resolveAddress(byte[] node, byte[] chainId, boolean refresh) throws Exception {
+        long generation = generation(node);
+        AbstractResolverResult result = loadResolver(node, null, refresh);
+        String address = null;
+        ResolverCapability capability = capabilityOf(result);
+        if (capability == ResolverCapability.MULTI_CHAIN_ADDR) {
+            address = result.getMultiChainResolver().chainAddr(node, chainId).send();
+        } else if (capability == ResolverCapability.ADDR) {
+            address = result.getResolverInterface().addr(node).send();
+        }
+        return completeAddress(node, chainId, address, result, generation, refresh);
+    }
+
+    public CompletableFuture<String> getAddressAsync(String name) {
+        return getAddressAsync(name, RSK_CHAIN_ID);
+    }
+
+    /**
+     * Non blocking version of {@link #getAddress(String, byte[])}, the registry, interface and
+     * record reads are chained without holding a thread while they are in flight. Unlike it, the
+     * future fails when the registry cannot be read instead of asking the default resolver.
+     */
+    public CompletableFuture<String> getAddressAsync(final String name, final byte[] chainId) {
+        if (!isValidRnsName(name)) {
+            return CompletableFuture.completedFuture(Hex.toHexString(new byte[0]));
+        }
+        return findAddressAsync(name, chainId).thenApply(address -> forgetIfEmpty(name, address));
+    }
+
+    private CompletableFuture<String> findAddressAsync(final String name, final byte[] chainId) {
+        final byte[] node = hasher.nameHash(name);
+        String indexed = indexedAddress(node, chainId);
+        if (indexed != null) {
+            return CompletableFuture.completedFuture(indexed);
+        }
+        final String addressKey = addressKey(node, chainId);
+        String missing = missingAddress(node, chainId);
+        if (missing != null) {
+            return CompletableFuture.completedFuture(missing);
+        }
+        if (config.isAddressCacheEnabled()) {
+            String cached = cachedAddress(addressKey, node, chainId);
+            if (cached != null) {
+                return CompletableFuture.completedFuture(cached);
+            }
+        }
+        if (dispatcher != null) {
+            return addressLookups.executeAsync(addressKey, () -> dispatcher.submit(name, chainId));
+        }
+        return addressLookups.executeAsync(addressKey, () -> resolveAddressAsync(node, chainId));
+    }
+
+    private CompletableFuture<String> resolveAddressAsync(final byte[] node, final byte[] chainId) {
+        final long generation = generation(node);
+        return loadResolverAsync(node, null).thenCompose(result -> capabilityOfAsync(result)
+                .thenCompose(capability -> {
+                    if (capability == ResolverCapability.MULTI_CHAIN_ADDR) {
+                        return result.getMultiChainResolver().chainAddr(node, chainId).sendAsync();
+                    } else if (capability == ResolverCapability.ADDR) {
+                        return result.getResolverInterface().addr(node).sendAsync();
+                    }
+                    return CompletableFuture.<String>completedFuture(null);
+                })
+                .thenApply(address -> completeAddress(node, chainId, address, result, generation, false)));
+    }
+
+    /**
+     * Resolves many names at once. Instead of resolving name by name, every stage is sent as a
+     * group: first the registry reads, then the interface probes of the resolvers not seen before
+     * and last the address records. With a {@link BatchHttpService} each group is a JSON-RPC batch.
+     *
+     * @return the address of every name, in the order they were given
+     * @throws IOException if a batch fails, or the lookup of any of the names does
+     */
+    public Map<String, String> getAddresses(Collection<String> names, byte[] chainId) throws IOException {
+        Map<String, String> resolved = new LinkedHashMap<>();
+        for (Map.Entry<String, CompletableFuture<String>> lookup : lookupAddresses(names, chainId).entrySet()) {
+            resolved.put(lookup.getKey(), addressOf(lookup.getValue()));
+        }
+        return resolved;
+    }
+
+    private static String addressOf(CompletableFuture<String> lookup) throws IOException {
+        try {
+            return lookup.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+        }
+    }
+
+    /**
+     * Stages of {@link #getAddresses(Collection, byte[])}. A call that fails only fails the
+     * lookups that depend on it.
+     *
+     * @return the completed lookup of every name, in the order they were given
+     * @throws IOException if a whole batch fails
+     */
+    Map<String, CompletableFuture<String>> lookupAddresses(Collection<String> names, byte[] chainId) throws IOException {
+        Map<String, CompletableFuture<String>> lookups = new LinkedHashMap<>();
+        Map<String, byte[]> pending = new LinkedHashMap<>();
+        Map<String, Long> started = new HashMap<>();
+        for (String name : names) {
+            if (lookups.containsKey(name)) {
+                continue;
+            }
+            if (!isValidRnsName(name)) {
+                lookups.put(name, CompletableFuture.completedFuture(Hex.toHexString(new byte[0])));
+                continue;
+            }
+            byte[] node = hasher.nameHash(name);
+            String cached = indexedAddress(node, chainId);
+            if (cached == null) {
+                cached = missingAddress(node, chainId);
+            }
+            if (cached == null && config.isAddressCacheEnabled()) {
+                cached = cachedAddress(addressKey(node, chainId), node, chainId);
+            }
+            if (cached != null) {
+                lookups.put(name, CompletableFuture.completedFuture(forgetIfEmpty(name, cached)));
+            } else {
+                lookups.put(name, new CompletableFuture<String>());
+                pending.put(name, node);
+                started.put(name, generation(node));
+            }
+        }
+
+        Map<String, AbstractResolverResult> results = loadResolvers(pending, started, lookups);
+        Map<String, IOException> failures = new HashMap<>();
+        Map<String, ResolverCapability> detected = detectCapabilities(results.values(), failures);
+
+        CallBatch records = newCallBatch();
+        Map<String, Integer> positions = new LinkedHashMap<>();
+        for (Map.Entry<String, AbstractResolverResult> entry : results.entrySet()) {
+            String name = entry.getKey();
+            AbstractResolverResult result = entry.getValue();
+            String resolverAddress = result.getResolverAddress().toLowerCase();
+            byte[] node = pending.get(name);
+            ResolverCapability capability = detected.get(resolverAddress);
+            if (capability == null) {
+                lookups.get(name).completeExceptionally(failures.get(resolverAddress));
+            } else if (capability == ResolverCapability.MULTI_CHAIN_ADDR) {
+                positions.put(name, records.add(result.getResolverAddress(), ResolverCalls.chainAddr(node, chainId)));
+            } else if (capability == ResolverCapability.ADDR) {
+                positions.put(name, records.add(result.getResolverAddress(), ResolverCalls.addr(node)));
+            } else {
+                lookups.get(name).complete(forgetIfEmpty(name,
+                        completeAddress(node, chainId, null, result, started.get(name), false)));
+            }
+        }
+        CallBatch.Results values = records.send();
+        for (Map.Entry<String, Integer> position : positions.entrySet()) {
+            String name = position.getKey();
+            byte[] node = pending.get(name);
+            try {
+                String address = values.get(position.getValue());
+                lookups.get(name).complete(forgetIfEmpty(name,
+                        completeAddress(node, chainId, address, results.get(name),
+                                started.get(name), false)));
+            } catch (IOException e) {
+                lookups.get(name).completeExceptionally(e);
+            }
+        }
+        return lookups;
+    }
+
+    /**
+     * Registry stage of {@link #getAddresses(Collection, byte[])}, reads the resolver, and the TTL
+     * when needed, of every name that is not cached yet. The lookups of the names whose resolver
+     * cannot be read are failed and left out.
+     */
+    private Map<String, AbstractResolverResult> loadResolvers(Map<String, byte[]> nodes, Map<String, Long> started,
+                                                              Map<String, CompletableFuture<String>> lookups) throws IOException {
+        Map<String, AbstractResolverResult> results = new LinkedHashMap<>();
+        CallBatch batch = newCallBatch();
+        Map<String, Integer> positions = new LinkedHashMap<>();
+        for (Map.Entry<String, byte[]> entry : nodes.entrySet()) {
+            AbstractResolverResult result = cachedResolver(entry.getValue(), null);
+            if (result != null) {
+                results.put(entry.getKey(), result);
+                continue;
+            }
+            positions.put(entry.getKey(), batch.add(rns.getContractAddress(), ResolverCalls.resolver(entry.getValue())));
+            if (config.isTtlCacheEnabled()) {
+                batch.add(rns.getContractAddress(), ResolverCalls.ttl(entry.getValue()));
+            }
+        }
+        CallBatch.Results values = batch.send();
+        for (Map.Entry<String, Integer> position : positions.entrySet()) {
+            String resolverAddress;
+            try {
+                resolverAddress = values.get(position.getValue());
+            } catch (IOException e) {
+                lookups.get(position.getKey()).completeExceptionally(e);
+                continue;
+            }
+            if (resolverAddress.equals(EMPTY_ADDRESS)) {
+                results.put(position.getKey(), fallbackResolver(null));
+                continue;
+            }
+            long expiresAt = BoundedCache.NO_EXPIRATION;
+            if (config.isTtlCacheEnabled()) {
+                BigInteger ttl;
+                try {
+                    ttl = values.get(position.getValue() + 1);
+                } catch (IOException e) {
+                    // as in expirationFor, the minimum TTL is used
+                    ttl = BigInteger.ZERO;
+                }
+                expiresAt = expirationFromTtl(ttl);
+            }
+            results.put(position.getKey(), cacheResolver(nodes.get(position.getKey()), null, resolverAddress, expiresAt,
+                    started.get(position.getKey())));
+        }
+        return results;
+    }
+
+    /**
+     * Interface stage of {@link #getAddresses(Collection, byte[])}, probes the resolvers whose
+     * capability is not cached yet. Failed probes are not cached, they are left out of the result
+     * and added to {@code failures}.
+     */
+    private Map<String, ResolverCapability> detectCapabilities(Collection<AbstractResolverResult> results,
+                                                               Map<String, IOException> failures) throws IOException {
+        Map<String, ResolverCapability> detected = new HashMap<>();
+        CallBatch batch = newCallBatch();
+        Map<String, Integer> positions = new HashMap<>();
+        for (AbstractResolverResult result : results) {
+            String resolverAddress = result.getResolverAddress().toLowerCase();
+            if (detected.containsKey(resolverAddress) || positions.containsKey(resolverAddress)) {
+                continue;
+            }
+            ResolverCapability capability = capabilities.get(resolverAddress);
+            if (capability != null) {
+                detected.put(resolverAddress, capability);
+                continue;
+            }
+            positions.put(resolverAddress, batch.add(result.getResolverAddress(), ResolverCalls.supportsInterface(CHAIN_ADDR_INTERFACE)));
+            batch.add(result.getResolverAddress(), ResolverCalls.supportsInterface(ADDR_INTERFACE));
+        }
+        CallBatch.Results values = batch.send();
+        for (Map.Entry<String, Integer> position : positions.entrySet()) {
+            ResolverCapability capability;
+            try {
+                // same order as capabilityOf, the second probe only matters when the first is false
+                if (values.<Boolean>get(position.getValue())) {
+                    capability = ResolverCapability.MULTI_CHAIN_ADDR;
+                } else if (values.<Boolean>get(position.getValue() + 1)) {
+                    capability = ResolverCapability.ADDR;
+                } else {
+                    capability = ResolverCapability.NONE;
+                }
+            } catch (IOException e) {
+                failures.put(position.getKey(), e);
+                continue;
+            }
+            capabilities.put(position.getKey(), capability);
+            detected.put(position.getKey(), capability);
+        }
+        return detected;
+    }
+
+    private CallBatch newCallBatch() {
+        return new CallBatch(web3, batchService, config.getMaxBatchSize());
+    }
+
+    public CompletableFuture<Boolean> setAddressAsync(String name, String address, String from) {
+        return setAddressAsync(name, address, from, RSK_CHAIN_ID);
+    }
+
+    public CompletableFuture<Boolean> setAddressAsync(final String name, final String address, String from, byte[] chainId) {
+        final byte[] chain = chainId == null || chainId.length != 4 ? RSK_CHAIN_ID : chainId;
+        final byte[] node = hasher.nameHash(name);
+        return loadResolverAsync(node, from).thenCompose(result -> capabilityOfAsync(result)
+                .thenCompose(capability -> {
+                    CompletableFuture<TransactionReceipt> receipt;
+                    if (capability == ResolverCapability.MULTI_CHAIN_ADDR) {
+                        receipt = result.getMultiChainResolver().setChainAddr(node, chain, address).sendAsync();
+                    } else if (capability == ResolverCapability.ADDR) {
+                        receipt = result.getResolverInterface().setAddr(node, address).sendAsync();
+                    } else {
+                        return CompletableFuture.completedFuture(false);
+                    }
+                    return receipt.thenApply(transaction -> {
+                        evictAddresses(node);
+                        return transaction.getStatus().equals(OK_STATUS);
+                    });
+                }));
+    }
+
+    /**
+     * Detects which address interface the resolver implements. The answer is cached by
+     * resolver address, so the probes are done once per resolver contract.
+     */
+    private ResolverCapability capabilityOf(AbstractResolverResult result) throws Exception {
+        String resolverAddress = result.getResolverAddress().toLowerCase();
+        ResolverCapability capability = capabilities.get(resolverAddress);
+        if (capability == null) {
             if (result.getResolver().supportsInterface(CHAIN_ADDR_INTERFACE).send()) {
-                AbstractMultiChainResolver multi = AbstractMultiChainResolver.load(result.getResolverAddress(),
-                        web3,
-                        result.getClientTransactionManager(),
-                        DefaultGasProvider.GAS_PRICE,
-                        DefaultGasProvider.GAS_LIMIT);
-                return multi.chainAddr(node, chainId).send();
+                capability = ResolverCapability.MULTI_CHAIN_ADDR;
             } else if (result.getResolver().supportsInterface(ADDR_INTERFACE).send()) {
-                ResolverInterface noMulti = ResolverInterface.load(result.getResolverAddress(),
-                        web3,
-                        result.getClientTransactionManager(),
-                        DefaultGasProvider.GAS_PRICE,
-                        DefaultGasProvider.GAS_LIMIT);
-                return noMulti.addr(node).send();
+                capability = ResolverCapability.ADDR;
+            } else {
+                capability = ResolverCapability.NONE;
             }
+            capabilities.put(resolverAddress, capability);
         }
-        return Hex.toHexString(new byte[0]);
+        return capability;
     }
 
-    Map<String, AbstractResolverResult> cache = new HashMap<>();
+    private CompletableFuture<ResolverCapability> capabilityOfAsync(AbstractResolverResult result) {
+        final String resolverAddress = result.getResolverAddress().toLowerCase();
+        ResolverCapability cached = capabilities.get(resolverAddress);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        final AbstractResolver resolver = result.getResolver();
+        return resolver.supportsInterface(CHAIN_ADDR_INTERFACE).sendAsync()
+                .thenCompose(multiChain -> multiChain
+                        ? CompletableFuture.completedFuture(ResolverCapability.MULTI_CHAIN_ADDR)
+                        : resolver.supportsInterface(ADDR_INTERFACE).sendAsync()
+                                .thenApply(addr -> addr ? ResolverCapability.ADDR : ResolverCapability.NONE))
+                .thenApply(capability -> {
+                    capabilities.put(resolverAddress, capability);
+                    return capability;
+                });
+    }
+
+    private static String senderKind(String from) {
+        return String.valueOf(from);
+    }
+
+    private static String chainKind(byte[] chainId) {
+        return chainId == null ? "" : Hex.toHexString(chainId);
+    }
+
+    private static String addressKey(byte[] node, byte[] chainId) {
+        return Hex.toHexString(node) + ":" + chainKind(chainId);
+    }
 
-    private AbstractResolverResult loadResolver(String node) {
+    /**
+     * Limits event invalidation to the given names, only their logs are pulled from the node and
+     * only their addresses are cached without a TTL. Without a watchlist every name is followed, so
+     * watching a first name clears the caches, and the watched names are read again from the node.
+     * Requires {@link RnsResolverConfig#setEventInvalidationEnabled(boolean)}.
+     */
+    public void watch(Collection<String> names) {
+        CacheInvalidator invalidator = requireInvalidator();
+        for (String name : names) {
+            String normalised = NameHash.normalise(name);
+            int dot = normalised.indexOf('.');
+            String label = dot < 0 ? normalised : normalised.substring(0, dot);
+            String parent = dot < 0 ? "" : normalised.substring(dot + 1);
+            invalidator.watch(hasher.nameHash(normalised), hasher.nameHash(parent), hasher.labelHash(label));
+        }
+        invalidator.refresh();
+    }
+
+    public void unwatch(Collection<String> names) {
+        CacheInvalidator invalidator = requireInvalidator();
+        for (String name : names) {
+            byte[] node = hasher.nameHash(name);
+            invalidator.unwatch(node);
+            evictAddresses(node);
+        }
+        invalidator.refresh();
+    }
+
+    private CacheInvalidator requireInvalidator() {
+        if (invalidator == null) {
+            throw new IllegalStateException("Event invalidation is not enabled");
+        }
+        return invalidator;
+    }
+
+    private boolean cachesAddressesOf(byte[] node) {
+        return config.isTtlCacheEnabled() || (invalidator != null && invalidator.follows(node));
+    }
+
+    /**
+     * Drops the resolver and the addresses cached for the node.
+     */
+    void evictNode(byte[] node) {
+        nextGeneration(node);
+        if (persistent != null) {
+            persistent.evict(node);
+        }
+        cache.remove(node);
+        addresses.remove(node);
+        if (negatives != null) {
+            negatives.evict(node);
+        }
+    }
+
+    /**
+     * Clears the memory caches. The persistent cache only holds entries with a TTL, those are
+     * kept and served until they expire.
+     */
+    void clearCaches() {
+        for (int i = 0; i < GENERATION_STRIPES; i++) {
+            generations.incrementAndGet(i);
+        }
+        cache.clear();
+        addresses.clear();
+        unregisteredAnswers.clear();
+        if (negatives != null) {
+            negatives.clear();
+        }
+    }
+
+    void evictAddresses(byte[] node) {
+        nextGeneration(node);
+        if (persistent != null) {
+            persistent.evictAddresses(node);
+        }
+        if (negatives != null) {
+            negatives.evict(node);
+        }
+        addresses.remove(node);
+    }
+
+    /**
+     * Nodes are hashes, their last byte spreads them evenly over the stripes.
+     */
+    private long generation(byte[] node) {
+        return generations.get(node[node.length - 1] & (GENERATION_STRIPES - 1));
+    }
+
+    private void nextGeneration(byte[] node) {
+        generations.incrementAndGet(node[node.length - 1] & (GENERATION_STRIPES - 1));
+    }
+
+    private AbstractResolverResult loadResolver(byte[] node) {
         return loadResolver(node, null);
     }
 
-    private AbstractResolverResult loadResolver(String node, String from) {
-        AbstractResolverResult result = cache.get(node+":"+from);
-        String resolverAddress;
-        if (result == null) {
-            ClientTransactionManager transactionManager = new ClientTransactionManager(web3,from);
+    private AbstractResolverResult loadResolver(byte[] node, String from) {
+        return loadResolver(node, from, false);
+    }
 
+    /**
+     * As it always did, the default resolver is used when the registry cannot be read; neither the
+     * failure nor what is read through that resolver is cached.
+     */
+    private AbstractResolverResult loadResolver(byte[] node, String from, boolean refresh) {
+        AbstractResolverResult result = refresh ? null : cachedResolver(node, from);
+        if (result == null) {
+            long generation = generation(node);
+            String resolverAddress;
             try {
-                resolverAddress = rns.resolver(NameHash.nameHashAsBytes(node)).send();
-                resolverAddress = resolverAddress.equals(EMPTY_ADDRESS)? this.defaultResolver :resolverAddress;
+                resolverAddress = rns.resolver(node).send();
             } catch (Exception e) {
-                resolverAddress = this.defaultResolver;
+                return fallbackResolver(from).asUnread();
             }
+            if (resolverAddress.equals(EMPTY_ADDRESS)) {
+                return fallbackResolver(from);
+            }
+            long expiresAt = config.isTtlCacheEnabled() ? expirationFor(node) : BoundedCache.NO_EXPIRATION;
+            result = cacheResolver(node, from, resolverAddress, expiresAt, generation);
+        }
+
+        return result;
+    }
 
-            AbstractResolver resolver = AbstractResolver.load(
-                    resolverAddress,
-                    web3,
-                    transactionManager,
-                    DefaultGasProvider.GAS_PRICE,
-                    DefaultGasProvider.GAS_LIMIT);
-            result = new AbstractResolverResult(resolver, resolverAddress, transactionManager);
-            cache.put(node+":"+from, result);
+    /**
+     * The default resolver answers for the nodes that have no resolver in the registry. It is not
+     * cached for the node, unregistered names would evict the resolvers of the registered ones.
+     */
+    private AbstractResolverResult fallbackResolver(String from) {
+        return contracts.resolverContracts(this.defaultResolver, from).asFallback();
+    }
+
+    private CompletableFuture<AbstractResolverResult> loadResolverAsync(final byte[] node, final String from) {
+        AbstractResolverResult result = cachedResolver(node, from);
+        if (result != null) {
+            return CompletableFuture.completedFuture(result);
         }
+        final long generation = generation(node);
+        CompletableFuture<String> resolverAddress = rns.resolver(node).sendAsync();
+        CompletableFuture<Long> expiresAt = config.isTtlCacheEnabled()
+                ? rns.ttl(node).sendAsync().handle((ttl, error) -> expirationFromTtl(error != null ? BigInteger.ZERO : ttl))
+                : CompletableFuture.completedFuture(BoundedCache.NO_EXPIRATION);
+        return resolverAddress.thenCombine(expiresAt, (address, expiration) -> address.equals(EMPTY_ADDRESS)
+                ? fallbackResolver(from)
+                : cacheResolver(node, from, address, expiration, generation));
+    }
+
+    private AbstractResolverResult cachedResolver(byte[] node, String from) {
+        AbstractResolverResult result = cache.get(node, senderKind(from));
+        if (result == null && persistent != null) {
+            PersistentCache.Entry stored = persistent.resolver(node);
+            if (stored != null) {
+                result = contracts.resolverContracts(stored.value, from).withExpiration(stored.expiresAt);
+                cache.put(node, senderKind(from), result, stored.expiresAt);
+            }
+        }
+        return result;
+    }
 
+    /**
+     * @param generation the generation of the node when the resolver was read
+     */
+    private AbstractResolverResult cacheResolver(byte[] node, String from, String resolverAddress, long expiresAt, long generation) {
+        AbstractResolverResult result = contracts.resolverContracts(resolverAddress, from).withExpiration(expiresAt);
+        cache.put(node, senderKind(from), result, expiresAt);
+        if (persistent != null && expiresAt != BoundedCache.NO_EXPIRATION) {
+            persistent.putResolver(node, resolverAddress, expiresAt);
+        }
+        if (generation(node) != generation) {
+            cache.remove(node, senderKind(from));
+            if (persistent != null) {
+                persistent.evict(node);
+            }
+        }
         return result;
     }
 
+    private String cachedAddress(String addressKey, byte[] node, byte[] chainId) {
+        long graceMillis = config.getCacheMode() == CacheMode.STALE_WHILE_REVALIDATE
+                ? config.getStaleWindowSeconds() * 1000
+                : 0;
+        String address = addresses.get(node, chainKind(chainId), graceMillis);
+        if (address != null && refresher != null && needsRefresh(node, chainId)) {
+            refreshAddress(addressKey, node, chainId);
+        }
+        if (address == null && persistent != null && chainId != null) {
+            PersistentCache.Entry stored = persistent.address(node, chainId);
+            if (stored != null) {
+                address = stored.value;
+                addresses.put(node, chainKind(chainId), address, stored.expiresAt);
+            }
+        }
+        return address;
+    }
+
+    private boolean needsRefresh(byte[] node, byte[] chainId) {
+        long expiresAt = addresses.expiresAt(node, chainKind(chainId));
+        long aheadMillis = config.getCacheMode() == CacheMode.REFRESH_AHEAD ? config.getRefreshAheadSeconds() * 1000 : 0;
+        return expiresAt != BoundedCache.NO_EXPIRATION && expiresAt - aheadMillis <= addresses.now();
+    }
+
+    private void refreshAddress(final String addressKey, final byte[] node, final byte[] chainId) {
+        refresher.refresh(addressKey, () -> {
+            try {
+                addressLookups.execute(addressKey, () -> resolveAddress(node, chainId, true));
+            } catch (Exception e) {
+                // the cached address is still served, the next read asks for a refresh again
+            }
+        });
+    }
+
+    private void cacheAddress(byte[] node, byte[] chainId, String address, long expiresAt) {
+        addresses.put(node, chainKind(chainId), address, expiresAt);
+        if (persistent != null && chainId != null && expiresAt != BoundedCache.NO_EXPIRATION) {
+            persistent.putAddress(node, chainId, address, expiresAt);
+        }
+    }
+
+    /**
+     * Reads the TTL the registry holds for the node and turns it into an expiration time.
+     * If the registry cannot be read the minimum TTL is used.
+     */
+    private long expirationFor(byte[] node) {
+        BigInteger ttl;
+        try {
+            ttl = rns.ttl(node).send();
+        } catch (Exception e) {
+            ttl = BigInteger.ZERO;
+        }
+        return expirationFromTtl(ttl);
+    }
+
+    private long expirationFromTtl(BigInteger ttl) {
+        long ttlSeconds = ttl.bitLength() < 63 ? ttl.longValue() : Long.MAX_VALUE;
+        long now = cache.now();
+        long clamped = config.clampTtlSeconds(ttlSeconds);
+        if (clamped >= (BoundedCache.NO_EXPIRATION - now) / 1000) {
+            return BoundedCache.NO_EXPIRATION;
+        }
+        return now + clamped * 1000;
+    }
+
     private boolean isValidRnsName(String input) {
         return input != null && (input.contains(".") || !WalletUtils.isValidAddress(input));
     }
 
     public void setContent(String name, byte[] hash, String from) throws Exception {
-        AbstractResolverResult result = loadResolver(name, from);
-        ResolverInterface resolver = ResolverInterface.load(
-                result.getResolverAddress(),
-                web3,
-                result.getClientTransactionManager(),
-                DefaultGasProvider.GAS_PRICE,
-                DefaultGasProvider.GAS_LIMIT);
-        resolver.setContent(NameHash.nameHashAsBytes(name), hash).send();
+        byte[] node = hasher.nameHash(name);
+        AbstractResolverResult result = loadResolver(node, from);
+        result.getResolverInterface().setContent(node, hash).send();
     }
 
     public byte[] content(String name) throws Exception {
-        AbstractResolverResult result = loadResolver(name);
-        ResolverInterface resolver = ResolverInterface.load(
-                result.getResolverAddress(),
-                web3,
-                result.getClientTransactionManager(),
-                DefaultGasProvider.GAS_PRICE,
-                DefaultGasProvider.GAS_LIMIT);
-        return resolver.content(NameHash.nameHashAsBytes(name)).send();
+        byte[] node = hasher.nameHash(name);
+        RegistryModel model = registry;
+        byte[] indexed = model == null ? null : model.getContent(node);
+        if (indexed != null) {
+            return indexed;
+        }
+        AbstractResolverResult result = loadResolver(node);
+        return result.getResolverInterface().content(node).send();
+    }
+
+    public String getOwner(String name) throws Exception {
+        byte[] node = hasher.nameHash(name);
+        String indexed = indexedOwner(node);
+        if (indexed != null) {
+            return indexed;
+        }
+        if (negatives != null && negatives.get(node, NegativeCache.OWNER) != null) {
+            return EMPTY_ADDRESS;
+        }
+        long generation = generation(node);
+        return rememberOwner(node, rns.owner(node).send(), generation);
+    }
+
+    private String rememberOwner(byte[] node, String owner, long generation) {
+        if (negatives != null && EMPTY_ADDRESS.equals(owner)) {
+            negatives.put(node, NegativeCache.OWNER, NegativeCache.Outcome.NO_OWNER);
+            if (generation(node) != generation) {
+                negatives.remove(node, NegativeCache.OWNER);
+            }
+        }
+        return owner;
     }
 
     public Boolean has(String name, String kind) throws Exception {
-        AbstractResolverResult result = loadResolver(name);
-        ResolverInterface resolver = ResolverInterface.load(
-                result.getResolverAddress(),
-                web3,
-                result.getClientTransactionManager(),
-                DefaultGasProvider.GAS_PRICE,
-                DefaultGasProvider.GAS_LIMIT);
-        return resolver.has(NameHash.nameHashAsBytes(name), NameHash.nameHashAsBytes(kind)).send();
+        byte[] node = hasher.nameHash(name);
+        AbstractResolverResult result = loadResolver(node);
+        return result.getResolverInterface().has(node, hasher.nameHash(kind)).send();
     }
 
     public Boolean supportsInterface(String name, String interfaceID) throws Exception {
-        AbstractResolverResult result = loadResolver(name);
-        ResolverInterface resolver = ResolverInterface.load(
-                result.getResolverAddress(),
-                web3,
-                result.getClientTransactionManager(),
-                DefaultGasProvider.GAS_PRICE,
-                DefaultGasProvider.GAS_LIMIT);
-        return resolver.supportsInterface(Hex.decode(interfaceID)).send();
+        AbstractResolverResult result = loadResolver(hasher.nameHash(name));
+        return result.getResolverInterface().supportsInterface(Hex.decode(interfaceID)).send();
+    }
+
+    public CompletableFuture<Void> setContentAsync(String name, final byte[] hash, String from) {
+        final byte[] node = hasher.nameHash(name);
+        return loadResolverAsync(node, from).thenCompose(result -> result.getResolverInterface()
+                .setContent(node, hash).sendAsync()
+                .thenAccept(receipt -> { }));
+    }
+
+    public CompletableFuture<byte[]> contentAsync(String name) {
+        final byte[] node = hasher.nameHash(name);
+        RegistryModel model = registry;
+        byte[] indexed = model == null ? null : model.getContent(node);
+        if (indexed != null) {
+            return CompletableFuture.completedFuture(indexed);
+        }
+        return loadResolverAsync(node, null).thenCompose(result -> result.getResolverInterface()
+                .content(node).sendAsync());
+    }
+
+    public CompletableFuture<String> getOwnerAsync(String name) {
+        final byte[] node = hasher.nameHash(name);
+        String indexed = indexedOwner(node);
+        if (indexed != null) {
+            return CompletableFuture.completedFuture(indexed);
+        }
+        if (negatives != null && negatives.get(node, NegativeCache.OWNER) != null) {
+            return CompletableFuture.completedFuture(EMPTY_ADDRESS);
+        }
+        final long generation = generation(node);
+        return rns.owner(node).sendAsync().thenApply(owner -> rememberOwner(node, owner, generation));
+    }
+
+    public CompletableFuture<Boolean> hasAsync(String name, String kind) {
+        final byte[] node = hasher.nameHash(name);
+        final byte[] kindHash = hasher.nameHash(kind);
+        return loadResolverAsync(node, null).thenCompose(result -> result.getResolverInterface()
+                .has(node, kindHash).sendAsync());
+    }
+
+    public CompletableFuture<Boolean> supportsInterfaceAsync(String name, final String interfaceID) {
+        return loadResolverAsync(hasher.nameHash(name), null).thenCompose(result -> result.getResolverInterface()
+                .supportsInterface(Hex.decode(interfaceID)).sendAsync());
+    }
+
+    /**
+     * Stops the background threads and event subscriptions of the resolver, if any. Pending and later batched lookups fail.
+     */
+    public void shutdown() {
+        if (dispatcher != null) {
+            dispatcher.shutdown();
+        }
+        if (invalidator != null) {
+            invalidator.stop();
+        }
+        if (persistent != null) {
+            persistent.close();
+        }
+        if (refreshPool != null) {
+            refreshPool.shutdownNow();
+        }
     }
 
 }
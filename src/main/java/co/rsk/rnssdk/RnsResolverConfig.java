@@ -0,0 +1,288 @@
+package co.rsk.rnssdk;
+
+import java.io.File;
+import java.util.concurrent.Executor;
+
+/**
+ * Tuning options for {@link RnsResolver}. The constructors that take none use the defaults.
+ */
+public class RnsResolverConfig {
+
+    public static final int DEFAULT_MAX_CACHE_ENTRIES = 1024;
+    public static final long DEFAULT_MIN_TTL_SECONDS = 60;
+    public static final long DEFAULT_MAX_TTL_SECONDS = 24 * 60 * 60;
+    public static final int DEFAULT_MAX_BATCH_SIZE = 1000;
+    public static final int DEFAULT_MAX_BATCHED_LOOKUPS = 100;
+    public static final int DEFAULT_MAX_WATCHED_NODES_PER_FILTER = 500;
+    public static final long DEFAULT_STALE_WINDOW_SECONDS = 5 * 60;
+    public static final long DEFAULT_REFRESH_AHEAD_SECONDS = 30;
+    public static final int DEFAULT_MAX_CONCURRENT_REFRESHES = 2;
+    public static final long DEFAULT_NEGATIVE_TTL_SECONDS = 30;
+
+    private int maxCacheEntries = DEFAULT_MAX_CACHE_ENTRIES;
+    private EvictionPolicy evictionPolicy = EvictionPolicy.LRU;
+    private boolean ttlCacheEnabled = false;
+    private long minTtlSeconds = DEFAULT_MIN_TTL_SECONDS;
+    private long maxTtlSeconds = DEFAULT_MAX_TTL_SECONDS;
+    private int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+    private long lookupBatchWindowMillis = 0;
+    private int maxBatchedLookups = DEFAULT_MAX_BATCHED_LOOKUPS;
+    private boolean eventInvalidationEnabled = false;
+    private int maxWatchedNodesPerFilter = DEFAULT_MAX_WATCHED_NODES_PER_FILTER;
+    private File persistentCacheFile;
+    private CacheMode cacheMode = CacheMode.EXPIRE;
+    private long staleWindowSeconds = DEFAULT_STALE_WINDOW_SECONDS;
+    private long refreshAheadSeconds = DEFAULT_REFRESH_AHEAD_SECONDS;
+    private int maxConcurrentRefreshes = DEFAULT_MAX_CONCURRENT_REFRESHES;
+    private Executor refreshExecutor;
+    private int maxNegativeCacheEntries = 0;
+    private long negativeTtlSeconds = DEFAULT_NEGATIVE_TTL_SECONDS;
+
+    public int getMaxCacheEntries() {
+        return maxCacheEntries;
+    }
+
+    /**
+     * Maximum amount of names whose resolver and addresses are kept in memory, once reached names
+     * are evicted following the configured {@link EvictionPolicy}.
+     */
+    public RnsResolverConfig setMaxCacheEntries(int maxCacheEntries) {
+        if (maxCacheEntries <= 0) {
+            throw new IllegalArgumentException("The cache must allow at least one entry");
+        }
+        this.maxCacheEntries = maxCacheEntries;
+        return this;
+    }
+
+    public EvictionPolicy getEvictionPolicy() {
+        return evictionPolicy;
+    }
+
+    public RnsResolverConfig setEvictionPolicy(EvictionPolicy evictionPolicy) {
+        if (evictionPolicy == null) {
+            throw new IllegalArgumentException("An eviction policy is required");
+        }
+        this.evictionPolicy = evictionPolicy;
+        return this;
+    }
+
+    public boolean isTtlCacheEnabled() {
+        return ttlCacheEnabled;
+    }
+
+    /**
+     * When enabled every cached resolver, and every resolved address, expires after the
+     * TTL the registry returns for its node, clamped between the min and max TTL.
+     * When disabled resolvers are cached until evicted and addresses are never cached.
+     */
+    public RnsResolverConfig setTtlCacheEnabled(boolean ttlCacheEnabled) {
+        this.ttlCacheEnabled = ttlCacheEnabled;
+        return this;
+    }
+
+    public long getMinTtlSeconds() {
+        return minTtlSeconds;
+    }
+
+    public long getMaxTtlSeconds() {
+        return maxTtlSeconds;
+    }
+
+    public RnsResolverConfig setTtlBounds(long minTtlSeconds, long maxTtlSeconds) {
+        if (minTtlSeconds < 0 || maxTtlSeconds < minTtlSeconds) {
+            throw new IllegalArgumentException("Invalid TTL bounds: " + minTtlSeconds + ", " + maxTtlSeconds);
+        }
+        this.minTtlSeconds = minTtlSeconds;
+        this.maxTtlSeconds = maxTtlSeconds;
+        return this;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * Maximum amount of calls sent in a single JSON-RPC batch, bigger groups are split.
+     */
+    public RnsResolverConfig setMaxBatchSize(int maxBatchSize) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("A batch must allow at least one call");
+        }
+        this.maxBatchSize = maxBatchSize;
+        return this;
+    }
+
+    public boolean isLookupBatchingEnabled() {
+        return lookupBatchWindowMillis > 0;
+    }
+
+    public long getLookupBatchWindowMillis() {
+        return lookupBatchWindowMillis;
+    }
+
+    public int getMaxBatchedLookups() {
+        return maxBatchedLookups;
+    }
+
+    /**
+     * Makes single address lookups from any thread wait up to the given window, or until the
+     * given amount of lookups is queued, and resolves them together as a batch.
+     * A window of zero disables it.
+     */
+    public RnsResolverConfig setLookupBatching(long windowMillis, int maxBatchedLookups) {
+        if (windowMillis < 0 || maxBatchedLookups <= 0) {
+            throw new IllegalArgumentException("Invalid lookup batching: " + windowMillis + ", " + maxBatchedLookups);
+        }
+        this.lookupBatchWindowMillis = windowMillis;
+        this.maxBatchedLookups = maxBatchedLookups;
+        return this;
+    }
+
+    public boolean isEventInvalidationEnabled() {
+        return eventInvalidationEnabled;
+    }
+
+    /**
+     * When enabled the resolver follows the registry and resolver events and evicts only the nodes
+     * they change. Addresses are cached too, and entries only expire if the TTL cache is also enabled.
+     * Call {@link RnsResolver#shutdown()} to stop following the events.
+     */
+    public RnsResolverConfig setEventInvalidationEnabled(boolean eventInvalidationEnabled) {
+        this.eventInvalidationEnabled = eventInvalidationEnabled;
+        return this;
+    }
+
+    public int getMaxWatchedNodesPerFilter() {
+        return maxWatchedNodesPerFilter;
+    }
+
+    /**
+     * Maximum amount of watched names in the topics of a single log filter, bigger watchlists
+     * are split in several filters. See {@link RnsResolver#watch(java.util.Collection)}.
+     */
+    public RnsResolverConfig setMaxWatchedNodesPerFilter(int maxWatchedNodesPerFilter) {
+        if (maxWatchedNodesPerFilter <= 0) {
+            throw new IllegalArgumentException("A filter must allow at least one node");
+        }
+        this.maxWatchedNodesPerFilter = maxWatchedNodesPerFilter;
+        return this;
+    }
+
+    public File getPersistentCacheFile() {
+        return persistentCacheFile;
+    }
+
+    /**
+     * Saves resolvers and addresses to the given file so they survive restarts, for example a file
+     * in {@code Context.getCacheDir()}. Only entries with a TTL are saved, so it needs the TTL cache.
+     * It keeps the entries of {@link #getMaxCacheEntries()} names in memory at most. Null disables it.
+     */
+    public RnsResolverConfig setPersistentCacheFile(File persistentCacheFile) {
+        this.persistentCacheFile = persistentCacheFile;
+        return this;
+    }
+
+    public CacheMode getCacheMode() {
+        return cacheMode;
+    }
+
+    /**
+     * How cached addresses are refreshed, see {@link CacheMode}. Modes other than
+     * {@link CacheMode#EXPIRE} need the TTL cache, the resolver rejects them without it.
+     */
+    public RnsResolverConfig setCacheMode(CacheMode cacheMode) {
+        if (cacheMode == null) {
+            throw new IllegalArgumentException("A cache mode is required");
+        }
+        this.cacheMode = cacheMode;
+        return this;
+    }
+
+    public long getStaleWindowSeconds() {
+        return staleWindowSeconds;
+    }
+
+    /**
+     * How long after expiring an address is still returned in {@link CacheMode#STALE_WHILE_REVALIDATE}.
+     */
+    public RnsResolverConfig setStaleWindowSeconds(long staleWindowSeconds) {
+        if (staleWindowSeconds < 0) {
+            throw new IllegalArgumentException("Invalid stale window: " + staleWindowSeconds);
+        }
+        this.staleWindowSeconds = staleWindowSeconds;
+        return this;
+    }
+
+    public long getRefreshAheadSeconds() {
+        return refreshAheadSeconds;
+    }
+
+    /**
+     * How long before expiring a read address is refreshed in {@link CacheMode#REFRESH_AHEAD}.
+     */
+    public RnsResolverConfig setRefreshAheadSeconds(long refreshAheadSeconds) {
+        if (refreshAheadSeconds < 0) {
+            throw new IllegalArgumentException("Invalid refresh ahead: " + refreshAheadSeconds);
+        }
+        this.refreshAheadSeconds = refreshAheadSeconds;
+        return this;
+    }
+
+    public int getMaxConcurrentRefreshes() {
+        return maxConcurrentRefreshes;
+    }
+
+    public Executor getRefreshExecutor() {
+        return refreshExecutor;
+    }
+
+    /**
+     * Background refreshes run in the given executor, or in an own pool when it is null, and no
+     * more than the given amount run at once.
+     */
+    public RnsResolverConfig setRefresh(Executor refreshExecutor, int maxConcurrentRefreshes) {
+        if (maxConcurrentRefreshes <= 0) {
+            throw new IllegalArgumentException("At least one refresh must be allowed");
+        }
+        this.refreshExecutor = refreshExecutor;
+        this.maxConcurrentRefreshes = maxConcurrentRefreshes;
+        return this;
+    }
+
+    public int getMaxNegativeCacheEntries() {
+        return maxNegativeCacheEntries;
+    }
+
+    public long getNegativeTtlSeconds() {
+        return negativeTtlSeconds;
+    }
+
+    /**
+     * Remembers names without owner, without an address resolver or with an empty record for the
+     * given time, in a cache of its own so they do not take the place of resolved names. It holds
+     * {@code maxEntries} names at most, zero disables it.
+     */
+    public RnsResolverConfig setNegativeCache(int maxEntries, long ttlSeconds) {
+        if (maxEntries < 0) {
+            throw new IllegalArgumentException("Invalid negative cache size: " + maxEntries);
+        }
+        if (ttlSeconds <= 0) {
+            throw new IllegalArgumentException("Invalid negative cache TTL: " + ttlSeconds);
+        }
+        this.maxNegativeCacheEntries = maxEntries;
+        this.negativeTtlSeconds = ttlSeconds;
+        return this;
+    }
+
+    boolean isNegativeCacheEnabled() {
+        return maxNegativeCacheEntries > 0;
+    }
+
+    boolean isAddressCacheEnabled() {
+        return ttlCacheEnabled || eventInvalidationEnabled;
+    }
+
+    long clampTtlSeconds(long ttlSeconds) {
+        return Math.max(minTtlSeconds, Math.min(maxTtlSeconds, ttlSeconds));
+    }
+}
@@ -0,0 +1,88 @@
+package co.rsk.rnssdk;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+import java8.util.concurrent.CompletableFuture;
+import java8.util.function.Supplier;
+
+/**
+ * Coalesces identical concurrent operations: while an operation for a key is in flight, every other
+ * caller with the same key waits for it and receives its result instead of starting a new one.
+ */
+class SingleFlight<T> {
+
+    private final ConcurrentHashMap<String, CompletableFuture<T>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Runs the call in the current thread, unless there is already one running for the key.
+     */
+    T execute(String key, Callable<T> call) throws Exception {
+        CompletableFuture<T> created = new CompletableFuture<>();
+        CompletableFuture<T> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            return await(existing);
+        }
+        try {
+            T value = call.call();
+            inFlight.remove(key, created);
+            created.complete(value);
+            return value;
+        } catch (Exception e) {
+            inFlight.remove(key, created);
+            created.completeExceptionally(e);
+            throw e;
+        } catch (Error e) {
+            inFlight.remove(key, created);
+            created.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Starts the call, unless there is already one in flight for the key.
+     *
+     * @return a future of its own for every caller, so cancelling it does not affect the others
+     */
+    CompletableFuture<T> executeAsync(final String key, Supplier<CompletableFuture<T>> call) {
+        final CompletableFuture<T> created = new CompletableFuture<>();
+        CompletableFuture<T> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            return existing.thenApply(value -> value);
+        }
+        try {
+            call.get().whenComplete((value, error) -> {
+                inFlight.remove(key, created);
+                if (error != null) {
+                    created.completeExceptionally(error);
+                } else {
+                    created.complete(value);
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.remove(key, created);
+            created.completeExceptionally(e);
+        }
+        return created.thenApply(value -> value);
+    }
+
+    int inFlight() {
+        return inFlight.size();
+    }
+
+    private static <T> T await(CompletableFuture<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package co.rsk.rnssdk.indexer;
+
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.methods.request.EthFilter;
+import org.web3j.protocol.core.methods.response.EthLog;
+import org.web3j.protocol.core.methods.response.Log;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reads the logs of a long block range with eth_getLogs, split in chunks that are fetched
+ * concurrently. Chunks are halved when the node fails or returns more than
+ * {@code maxLogsPerChunk} logs, and doubled while responses are sparse. A failed chunk is split
+ * in two and fetched again; a single block is retried a few times before giving up.
+ * <p>
+ * Ranges are delivered to the {@link Listener} in block order, with their logs in chain order,
+ * no matter the order in which the chunks complete.
+ * <p>
+ * Chunks are fetched in the executor given to the constructor, or in daemon threads kept for the
+ * lifetime of the backfill that stop once idle.
+ */
+public class LogBackfill {
+
+    public static final int DEFAULT_PARALLELISM = 4;
+    public static final int DEFAULT_INITIAL_CHUNK = 2000;
+    public static final int DEFAULT_MIN_CHUNK = 1;
+    public static final int DEFAULT_MAX_CHUNK = 100000;
+    public static final int DEFAULT_MAX_LOGS_PER_CHUNK = 5000;
+
+    static final int MAX_ATTEMPTS = 3;
+
+    private static final long IDLE_SECONDS = 60;
+
+    static final Comparator<Log> CHAIN_ORDER = new Comparator<Log>() {
+        @Override
+        public int compare(Log a, Log b) {
+            int byBlock = a.getBlockNumber().compareTo(b.getBlockNumber());
+            return byBlock != 0 ? byBlock : a.getLogIndex().compareTo(b.getLogIndex());
+        }
+    };
+
+    /**
+     * Filters to read for a block range, their logs are merged.
+     */
+    public interface FilterFactory {
+        List<EthFilter> filtersFor(long fromBlock, long toBlock);
+    }
+
+    public interface Listener {
+        void onRange(long fromBlock, long toBlock, List<Log> logs);
+    }
+
+    private final Web3j web3;
+    private final ExecutorService executor;
+    private final ThreadPoolExecutor ownExecutor;
+    private int parallelism = DEFAULT_PARALLELISM;
+    private int initialChunk = DEFAULT_INITIAL_CHUNK;
+    private int minChunk = DEFAULT_MIN_CHUNK;
+    private int maxChunk = DEFAULT_MAX_CHUNK;
+    private int maxLogsPerChunk = DEFAULT_MAX_LOGS_PER_CHUNK;
+
+    public LogBackfill(Web3j web3) {
+        this.web3 = web3;
+        this.ownExecutor = new ThreadPoolExecutor(parallelism, parallelism, IDLE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "rns-log-backfill-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        this.ownExecutor.allowCoreThreadTimeOut(true);
+        this.executor = ownExecutor;
+    }
+
+    /**
+     * @param executor runs the requests, it is not shut down by the backfill
+     */
+    public LogBackfill(Web3j web3, ExecutorService executor) {
+        this.web3 = web3;
+        this.ownExecutor = null;
+        this.executor = executor;
+    }
+
+    public synchronized LogBackfill setParallelism(int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("At least one request must be allowed");
+        }
+        if (ownExecutor != null) {
+            // the core size can not go over the maximum size
+            if (parallelism > ownExecutor.getMaximumPoolSize()) {
+                ownExecutor.setMaximumPoolSize(parallelism);
+                ownExecutor.setCorePoolSize(parallelism);
+            } else {
+                ownExecutor.setCorePoolSize(parallelism);
+                ownExecutor.setMaximumPoolSize(parallelism);
+            }
+        }
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    public LogBackfill setChunkBounds(int initialChunk, int minChunk, int maxChunk) {
+        if (minChunk <= 0 || initialChunk < minChunk || maxChunk < initialChunk) {
+            throw new IllegalArgumentException("Invalid chunk bounds: " + initialChunk + ", " + minChunk + ", " + maxChunk);
+        }
+        this.initialChunk = initialChunk;
+        this.minChunk = minChunk;
+        this.maxChunk = maxChunk;
+        return this;
+    }
+
+    /**
+     * Responses with more logs than this shrink the chunks, responses with less than a quarter grow them.
+     */
+    public LogBackfill setMaxLogsPerChunk(int maxLogsPerChunk) {
+        if (maxLogsPerChunk <= 0) {
+            throw new IllegalArgumentException("Invalid max logs per chunk: " + maxLogsPerChunk);
+        }
+        this.maxLogsPerChunk = maxLogsPerChunk;
+        return this;
+    }
+
+    /**
+     * Reads every block from {@code fromBlock} to {@code toBlock}, both included. If a block can not
+     * be read the ranges before it have already been delivered and the error is thrown.
+     */
+    public void run(long fromBlock, long toBlock, final FilterFactory filters, Listener listener) throws IOException {
+        if (fromBlock > toBlock) {
+            return;
+        }
+        List<Future<Chunk>> submitted = new ArrayList<>();
+        try {
+            CompletionService<Chunk> completion = new ExecutorCompletionService<>(executor);
+            PriorityQueue<Range> retries = new PriorityQueue<>();
+            TreeMap<Long, Chunk> completed = new TreeMap<>();
+            int chunkSize = initialChunk;
+            long cursor = fromBlock;
+            long nextToDeliver = fromBlock;
+            int inFlight = 0;
+            while (nextToDeliver <= toBlock) {
+                while (inFlight < parallelism && (!retries.isEmpty() || cursor <= toBlock)) {
+                    Range range;
+                    if (!retries.isEmpty()) {
+                        range = retries.poll();
+                    } else {
+                        range = new Range(cursor, Math.min(toBlock, cursor + chunkSize - 1), 1);
+                        cursor = range.to + 1;
+                    }
+                    submitted.add(completion.submit(fetch(range, filters)));
+                    inFlight++;
+                }
+                Chunk chunk = take(completion);
+                inFlight--;
+                Range range = chunk.range;
+                if (chunk.error != null) {
+                    chunkSize = (int) Math.max(minChunk, Math.min(chunkSize, range.size()) / 2);
+                    if (range.size() > 1) {
+                        long middle = range.from + range.size() / 2;
+                        retries.add(new Range(range.from, middle - 1, 1));
+                        retries.add(new Range(middle, range.to, 1));
+                    } else if (range.attempt < MAX_ATTEMPTS) {
+                        retries.add(new Range(range.from, range.to, range.attempt + 1));
+                    } else {
+                        throw chunk.error;
+                    }
+                    continue;
+                }
+                if (chunk.logs.size() > maxLogsPerChunk) {
+                    chunkSize = (int) Math.max(minChunk, range.size() / 2);
+                } else if (chunk.logs.size() < maxLogsPerChunk / 4 && range.size() >= chunkSize) {
+                    chunkSize = (int) Math.min(maxChunk, chunkSize * 2L);
+                }
+                completed.put(range.from, chunk);
+                while (!completed.isEmpty() && completed.firstKey() == nextToDeliver) {
+                    Chunk next = completed.pollFirstEntry().getValue();
+                    listener.onRange(next.range.from, next.range.to, next.logs);
+                    nextToDeliver = next.range.to + 1;
+                }
+            }
+        } finally {
+            // the chunks still in flight when a block can not be read are not needed
+            for (Future<Chunk> chunk : submitted) {
+                chunk.cancel(true);
+            }
+        }
+    }
+
+    private Callable<Chunk> fetch(final Range range, final FilterFactory filters) {
+        return new Callable<Chunk>() {
+            @Override
+            public Chunk call() {
+                try {
+                    List<Log> logs = new ArrayList<>();
+                    for (EthFilter filter : filters.filtersFor(range.from, range.to)) {
+                        logs.addAll(getLogs(filter));
+                    }
+                    Collections.sort(logs, CHAIN_ORDER);
+                    return new Chunk(range, logs, null);
+                } catch (IOException e) {
+                    return new Chunk(range, null, e);
+                } catch (RuntimeException e) {
+                    return new Chunk(range, null, new IOException(e));
+                }
+            }
+        };
+    }
+
+    private List<Log> getLogs(EthFilter filter) throws IOException {
+        EthLog response = web3.ethGetLogs(filter).send();
+        if (response.hasError()) {
+            throw new IOException("eth_getLogs failed: " + response.getError().getMessage());
+        }
+        List<Log> logs = new ArrayList<>();
+        for (EthLog.LogResult<?> result : response.getLogs()) {
+            logs.add((Log) result.get());
+        }
+        return logs;
+    }
+
+    private static Chunk take(CompletionService<Chunk> completion) throws IOException {
+        try {
+            return completion.take().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading logs", e);
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private static class Range implements Comparable<Range> {
+        private final long from;
+        private final long to;
+        private final int attempt;
+
+        Range(long from, long to, int attempt) {
+            this.from = from;
+            this.to = to;
+            this.attempt = attempt;
+        }
+
+        long size() {
+            return to - from + 1;
+        }
+
+        @Override
+        public int compareTo(Range other) {
+            return from < other.from ? -1 : (from == other.from ? 0 : 1);
+        }
+    }
+
+    private static class Chunk {
+        private final Range range;
+        private final List<Log> logs;
+        private final IOException error;
+
+        Chunk(Range range, List<Log> logs, IOException error) {
+            this.range = range;
+            this.logs = logs;
+            this.error = error;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package co.rsk.rnssdk.indexer;
+
+import co.rsk.commons.ByteArrayWrapper;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter over the nodes created in the registry. A node it does not contain was never
+ * registered, a node it contains probably was.
+ * <p>
+ * Nodes are keccak hashes, so their first two words are used as the two hashes of the filter
+ * and nothing is hashed again. It only knows the names registered in the blocks it has seen, start
+ * it with the indexer at the deployment block, or from a snapshot of such an indexer. The filter
+ * records the last block it holds the names of, so it is only attached to a model indexed up to
+ * that same block.
+ */
+public class RegisteredNames {
+
+    static final int MAGIC = 0x524e5342;
+    static final int VERSION = 2;
+
+    private static final double LN2 = Math.log(2);
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+    private volatile long lastIndexedBlock = -1;
+
+    /**
+     * @param expectedNames amount of names the filter is sized for, beyond it the false positive
+     *                      rate grows
+     * @param falsePositiveRate chance that a name that was never registered is reported as registered
+     */
+    public RegisteredNames(long expectedNames, double falsePositiveRate) {
+        if (expectedNames <= 0) {
+            throw new IllegalArgumentException("Invalid expected names: " + expectedNames);
+        }
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("Invalid false positive rate: " + falsePositiveRate);
+        }
+        long bitCount = (long) Math.ceil(-expectedNames * Math.log(falsePositiveRate) / (LN2 * LN2));
+        if (bitCount > (long) Integer.MAX_VALUE * 64) {
+            throw new IllegalArgumentException("Filter too big for " + expectedNames + " names");
+        }
+        this.bitCount = Math.max(64, (bitCount + 63) / 64 * 64);
+        this.hashCount = Math.max(1, (int) Math.round((double) this.bitCount / expectedNames * LN2));
+        this.bits = new AtomicLongArray((int) (this.bitCount / 64));
+    }
+
+    private RegisteredNames(long[] words, int hashCount, long lastIndexedBlock) {
+        this.bits = new AtomicLongArray(words);
+        this.bitCount = words.length * 64L;
+        this.hashCount = hashCount;
+        this.lastIndexedBlock = lastIndexedBlock;
+    }
+
+    /**
+     * Builds a filter with every node the model knows, for example to start using it with a model
+     * loaded from a snapshot.
+     */
+    public static RegisteredNames of(RegistryModel model, double falsePositiveRate) {
+        TreeSet<ByteArrayWrapper> nodes = model.nodes();
+        RegisteredNames names = new RegisteredNames(Math.max(1, nodes.size()), falsePositiveRate);
+        for (ByteArrayWrapper node : nodes) {
+            names.add(node.getData());
+        }
+        names.lastIndexedBlock = model.getLastIndexedBlock();
+        return names;
+    }
+
+    public void add(byte[] node) {
+        long first = word(node, 0);
+        long second = word(node, 8);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = index(first, second, i);
+            int position = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current = bits.get(position);
+            while ((current & mask) == 0 && !bits.compareAndSet(position, current, current | mask)) {
+                current = bits.get(position);
+            }
+        }
+    }
+
+    /**
+     * @return false if the node was never registered, true if it probably was
+     */
+    public boolean mightContain(byte[] node) {
+        long first = word(node, 0);
+        long second = word(node, 8);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = index(first, second, i);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long getBitCount() {
+        return bitCount;
+    }
+
+    public int getHashCount() {
+        return hashCount;
+    }
+
+    /**
+     * @return the last block whose names are in the filter, -1 for a new filter
+     */
+    public long getLastIndexedBlock() {
+        return lastIndexedBlock;
+    }
+
+    void setLastIndexedBlock(long lastIndexedBlock) {
+        this.lastIndexedBlock = lastIndexedBlock;
+    }
+
+    /**
+     * Saves the filter, usually next to the {@link RegistrySnapshot} written at the same time.
+     * The file is replaced at once.
+     */
+    public void write(File file) throws IOException {
+        // read before the bits, names added meanwhile only make the filter hold more
+        long block = lastIndexedBlock;
+        File temporary = new File(file.getPath() + ".tmp");
+        DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)));
+        try {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(hashCount);
+            output.writeInt(bits.length());
+            output.writeLong(block);
+            for (int i = 0; i < bits.length(); i++) {
+                output.writeLong(bits.get(i));
+            }
+        } finally {
+            output.close();
+        }
+        if (!temporary.renameTo(file)) {
+            file.delete();
+            if (!temporary.renameTo(file)) {
+                throw new IOException("Could not replace " + file);
+            }
+        }
+    }
+
+    public static RegisteredNames read(File file) throws IOException {
+        DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        try {
+            if (input.readInt() != MAGIC) {
+                throw new IOException("Not a registered names filter");
+            }
+            int version = input.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported filter version " + version);
+            }
+            int hashCount = input.readInt();
+            int length = input.readInt();
+            long block = input.readLong();
+            if (hashCount <= 0 || length <= 0 || block < -1 || (long) length * 8 > file.length()) {
+                throw new IOException("Corrupted registered names filter");
+            }
+            long[] words = new long[length];
+            for (int i = 0; i < length; i++) {
+                words[i] = input.readLong();
+            }
+            return new RegisteredNames(words, hashCount, block);
+        } finally {
+            input.close();
+        }
+    }
+
+    private long index(long first, long second, int i) {
+        return ((first + i * second) & Long.MAX_VALUE) % bitCount;
+    }
+
+    private static long word(byte[] node, int offset) {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (node[offset + i] & 0xff);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,179 @@
+package co.rsk.rnssdk.indexer;
+
+import org.web3j.abi.EventEncoder;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.DefaultBlockParameter;
+import org.web3j.protocol.core.methods.request.EthFilter;
+import org.web3j.protocol.core.methods.response.Log;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import co.rsk.rnssdk.contracts.MultiChainResolver;
+import co.rsk.rnssdk.contracts.RNS;
+
+/**
+ * Keeps a {@link RegistryModel} caught up with the chain. Registry events are read from the
+ * registry contract and resolver events from any contract, both are applied in chain order.
+ * <p>
+ * To answer every name the indexer has to start at the block the registry was deployed in. Only
+ * then, and once it reached the head of the chain, the model trusts its {@link RegisteredNames}
+ * filter to answer names that were never registered.
+ * <p>
+ * Only blocks with enough confirmations are indexed, events applied to the model are not undone
+ * if their block is reorganized away.
+ */
+public class RegistryIndexer {
+
+    public static final int DEFAULT_CONFIRMATIONS = 12;
+
+    private final Web3j web3;
+    private final String registryAddress;
+    private final RegistryModel model;
+    private final long startBlock;
+    private final LogBackfill backfill;
+    private volatile int confirmations = DEFAULT_CONFIRMATIONS;
+    private ScheduledExecutorService scheduler;
+
+    public RegistryIndexer(Web3j web3, String registryAddress, RegistryModel model, long startBlock) {
+        this(web3, registryAddress, model, startBlock, new LogBackfill(web3));
+    }
+
+    /**
+     * @param backfill reads the logs, tune it to the limits of the node
+     */
+    public RegistryIndexer(Web3j web3, String registryAddress, RegistryModel model, long startBlock, LogBackfill backfill) {
+        this.web3 = web3;
+        this.registryAddress = registryAddress;
+        this.model = model;
+        this.startBlock = startBlock;
+        this.backfill = backfill;
+    }
+
+    public RegistryModel getModel() {
+        return model;
+    }
+
+    /**
+     * Blocks newer than the latest block minus this are not indexed yet. Names changed in them are
+     * answered from the previous state until they are.
+     */
+    public RegistryIndexer setConfirmations(int confirmations) {
+        if (confirmations < 0) {
+            throw new IllegalArgumentException("Invalid confirmations: " + confirmations);
+        }
+        this.confirmations = confirmations;
+        return this;
+    }
+
+    /**
+     * Applies every event up to the latest confirmed block. Blocks are applied in ranges, if a range fails the
+     * model stays at the previous one and the next call continues from there.
+     *
+     * @return the last indexed block
+     */
+    public synchronized long catchUp() throws IOException {
+        if (model.getLastIndexedBlock() < 0 && !model.isFromDeployment()) {
+            model.setFromDeployment(startsBeforeDeployment());
+        }
+        long latest = web3.ethBlockNumber().send().getBlockNumber().longValue() - confirmations;
+        long from = Math.max(startBlock, model.getLastIndexedBlock() + 1);
+        backfill.run(from, latest, new LogBackfill.FilterFactory() {
+            @Override
+            public List<EthFilter> filtersFor(long fromBlock, long toBlock) {
+                List<EthFilter> filters = new ArrayList<>();
+                filters.add(registryFilter(fromBlock, toBlock));
+                filters.add(resolversFilter(fromBlock, toBlock));
+                return filters;
+            }
+        }, new LogBackfill.Listener() {
+            @Override
+            public void onRange(long fromBlock, long toBlock, List<Log> logs) {
+                for (Log log : logs) {
+                    model.apply(log, registryAddress);
+                }
+                model.setLastIndexedBlock(toBlock);
+            }
+        });
+        if (model.getLastIndexedBlock() >= latest) {
+            model.setCaughtUp();
+        }
+        return model.getLastIndexedBlock();
+    }
+
+    /**
+     * @return true if the registry has no code in the block before the start block
+     */
+    private boolean startsBeforeDeployment() throws IOException {
+        if (startBlock <= 0) {
+            return true;
+        }
+        String code = web3.ethGetCode(registryAddress, block(startBlock - 1)).send().getCode();
+        return code == null || code.equals("0x") || code.isEmpty();
+    }
+
+    /**
+     * Calls {@link #catchUp()} in a background thread every given interval, failures are retried
+     * on the next run.
+     */
+    public synchronized void start(long intervalMillis) {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "rns-registry-indexer");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        scheduler.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    catchUp();
+                } catch (Exception e) {
+                    // the node may be unreachable, try again on the next run
+                }
+            }
+        }, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    EthFilter registryFilter(long from, long to) {
+        EthFilter filter = new EthFilter(block(from), block(to), registryAddress);
+        filter.addOptionalTopics(
+                EventEncoder.encode(RNS.NEWOWNER_EVENT),
+                EventEncoder.encode(RNS.TRANSFER_EVENT),
+                EventEncoder.encode(RNS.NEWRESOLVER_EVENT),
+                EventEncoder.encode(RNS.NEWTTL_EVENT));
+        return filter;
+    }
+
+    EthFilter resolversFilter(long from, long to) {
+        EthFilter filter = new EthFilter(block(from), block(to), Collections.<String>emptyList());
+        filter.addOptionalTopics(
+                EventEncoder.encode(MultiChainResolver.ADDRCHANGED_EVENT),
+                EventEncoder.encode(MultiChainResolver.CHAINADDRCHANGED_EVENT),
+                EventEncoder.encode(MultiChainResolver.CONTENTCHANGED_EVENT));
+        return filter;
+    }
+
+    private static DefaultBlockParameter block(long number) {
+        return DefaultBlockParameter.valueOf(BigInteger.valueOf(number));
+    }
+}
@@ -0,0 +1,319 @@
+package co.rsk.rnssdk.indexer;
+
+import co.rsk.commons.ByteArrayWrapper;
+import co.rsk.commons.Keccak256;
+
+import org.bouncycastle.util.encoders.Hex;
+import org.web3j.abi.EventEncoder;
+import org.web3j.abi.EventValues;
+import org.web3j.abi.datatypes.Event;
+import org.web3j.protocol.core.methods.response.Log;
+import org.web3j.tx.Contract;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import co.rsk.rnssdk.contracts.MultiChainResolver;
+import co.rsk.rnssdk.contracts.RNS;
+
+/**
+ * In memory copy of the registry and of the resolver records, built by replaying their events.
+ * Records are kept per resolver contract, a node only sees the records of its current resolver.
+ * <p>
+ * Queries return {@code null} for anything the model has not seen, which is also the case for
+ * everything set before the first indexed block. A model can start from a {@link RegistrySnapshot},
+ * events applied afterwards take precedence over it.
+ */
+public class RegistryModel {
+
+    private static final String NEW_OWNER = EventEncoder.encode(RNS.NEWOWNER_EVENT);
+    private static final String TRANSFER = EventEncoder.encode(RNS.TRANSFER_EVENT);
+    private static final String NEW_RESOLVER = EventEncoder.encode(RNS.NEWRESOLVER_EVENT);
+    private static final String NEW_TTL = EventEncoder.encode(RNS.NEWTTL_EVENT);
+    private static final String ADDR_CHANGED = EventEncoder.encode(MultiChainResolver.ADDRCHANGED_EVENT);
+    private static final String CHAIN_ADDR_CHANGED = EventEncoder.encode(MultiChainResolver.CHAINADDRCHANGED_EVENT);
+    private static final String CONTENT_CHANGED = EventEncoder.encode(MultiChainResolver.CONTENTCHANGED_EVENT);
+
+    private static final String RSK_CHAIN_ID = "80000089";
+
+    private final ConcurrentHashMap<String, NodeState> nodes = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Records> records = new ConcurrentHashMap<>();
+    private final RegistrySnapshot snapshot;
+    private volatile long lastIndexedBlock;
+    private volatile RegisteredNames registeredNames;
+    // every event since the registry was deployed is in the model, up to the last indexed block
+    private volatile boolean fromDeployment;
+    // the indexer reached the head of the chain at least once
+    private volatile boolean caughtUp;
+
+    public RegistryModel() {
+        this.snapshot = null;
+        this.lastIndexedBlock = -1;
+    }
+
+    public RegistryModel(RegistrySnapshot snapshot) {
+        this.snapshot = snapshot;
+        this.lastIndexedBlock = snapshot.getLastIndexedBlock();
+        this.fromDeployment = snapshot.isFromDeployment();
+    }
+
+    /**
+     * Events of the registry are applied to the nodes, resolver events to the records of the
+     * contract that emitted them. Logs of other events are ignored.
+     */
+    public void apply(Log log, String registryAddress) {
+        List<String> topics = log.getTopics();
+        if (topics == null || topics.isEmpty()) {
+            return;
+        }
+        String event = topics.get(0);
+        if (log.getAddress().equalsIgnoreCase(registryAddress)) {
+            applyRegistryEvent(event, log);
+        } else {
+            applyResolverEvent(event, log);
+        }
+    }
+
+    private void applyRegistryEvent(String event, Log log) {
+        if (NEW_OWNER.equals(event)) {
+            EventValues values = extract(RNS.NEWOWNER_EVENT, log);
+            byte[] node = new byte[Keccak256.DIGEST_LENGTH];
+            Keccak256.hash64((byte[]) values.getIndexedValues().get(0).getValue(), 0,
+                    (byte[]) values.getIndexedValues().get(1).getValue(), 0, node, 0);
+            node(node).owner = (String) values.getNonIndexedValues().get(0).getValue();
+            RegisteredNames names = registeredNames;
+            if (names != null) {
+                names.add(node);
+            }
+        } else if (TRANSFER.equals(event)) {
+            EventValues values = extract(RNS.TRANSFER_EVENT, log);
+            node(values).owner = (String) values.getNonIndexedValues().get(0).getValue();
+        } else if (NEW_RESOLVER.equals(event)) {
+            EventValues values = extract(RNS.NEWRESOLVER_EVENT, log);
+            node(values).resolver = (String) values.getNonIndexedValues().get(0).getValue();
+        } else if (NEW_TTL.equals(event)) {
+            EventValues values = extract(RNS.NEWTTL_EVENT, log);
+            node(values).ttl = (BigInteger) values.getNonIndexedValues().get(0).getValue();
+        }
+    }
+
+    private void applyResolverEvent(String event, Log log) {
+        String resolver = log.getAddress();
+        if (ADDR_CHANGED.equals(event)) {
+            EventValues values = extract(MultiChainResolver.ADDRCHANGED_EVENT, log);
+            records(resolver, (byte[]) values.getIndexedValues().get(0).getValue()).addr =
+                    (String) values.getNonIndexedValues().get(0).getValue();
+        } else if (CHAIN_ADDR_CHANGED.equals(event)) {
+            EventValues values = extract(MultiChainResolver.CHAINADDRCHANGED_EVENT, log);
+            String chain = Hex.toHexString((byte[]) values.getNonIndexedValues().get(0).getValue());
+            records(resolver, (byte[]) values.getIndexedValues().get(0).getValue()).chainAddrs.put(chain,
+                    (String) values.getNonIndexedValues().get(1).getValue());
+        } else if (CONTENT_CHANGED.equals(event)) {
+            EventValues values = extract(MultiChainResolver.CONTENTCHANGED_EVENT, log);
+            records(resolver, (byte[]) values.getNonIndexedValues().get(0).getValue()).content =
+                    (byte[]) values.getNonIndexedValues().get(1).getValue();
+        }
+    }
+
+    public long getLastIndexedBlock() {
+        return lastIndexedBlock;
+    }
+
+    public void setLastIndexedBlock(long lastIndexedBlock) {
+        this.lastIndexedBlock = lastIndexedBlock;
+        RegisteredNames names = registeredNames;
+        if (names != null) {
+            names.setLastIndexedBlock(lastIndexedBlock);
+        }
+    }
+
+    public RegisteredNames getRegisteredNames() {
+        return registeredNames;
+    }
+
+    /**
+     * Adds the nodes of the next {@code NewOwner} events to the filter. It has to know every node
+     * registered before too, see {@link RegisteredNames#of(RegistryModel, double)}.
+     *
+     * @throws IllegalArgumentException if the filter holds the names of fewer blocks than the model,
+     *                                  such as a new filter for a model loaded from a snapshot
+     */
+    public void setRegisteredNames(RegisteredNames registeredNames) {
+        // a filter written after the snapshot only holds more names, which is still safe
+        if (registeredNames != null && registeredNames.getLastIndexedBlock() < lastIndexedBlock) {
+            throw new IllegalArgumentException("Filter has the names up to block "
+                    + registeredNames.getLastIndexedBlock() + ", the model up to " + lastIndexedBlock);
+        }
+        this.registeredNames = registeredNames;
+    }
+
+    /**
+     * @return true if the model holds every event since the registry was deployed
+     */
+    public boolean isFromDeployment() {
+        return fromDeployment;
+    }
+
+    void setFromDeployment(boolean fromDeployment) {
+        this.fromDeployment = fromDeployment;
+    }
+
+    /**
+     * @return true once a {@link RegistryIndexer} indexed up to the head of the chain
+     */
+    public boolean isCaughtUp() {
+        return caughtUp;
+    }
+
+    void setCaughtUp() {
+        this.caughtUp = true;
+    }
+
+    /**
+     * @return false if the node was never registered up to the last indexed block, true if it was
+     * or if the model cannot tell: there is no {@link RegisteredNames} filter, or the model was not
+     * indexed from the deployment of the registry up to the head of the chain yet
+     */
+    public boolean mightBeRegistered(byte[] node) {
+        RegisteredNames names = registeredNames;
+        return names == null || !fromDeployment || !caughtUp || names.mightContain(node);
+    }
+
+    public String getOwner(byte[] node) {
+        NodeState state = nodes.get(Hex.toHexString(node));
+        if (state != null && state.owner != null) {
+            return state.owner;
+        }
+        return snapshot == null ? null : snapshot.getOwner(node);
+    }
+
+    public String getResolver(byte[] node) {
+        NodeState state = nodes.get(Hex.toHexString(node));
+        if (state != null && state.resolver != null) {
+            return state.resolver;
+        }
+        return snapshot == null ? null : snapshot.getResolver(node);
+    }
+
+    public BigInteger getTtl(byte[] node) {
+        NodeState state = nodes.get(Hex.toHexString(node));
+        if (state != null && state.ttl != null) {
+            return state.ttl;
+        }
+        return snapshot == null ? null : snapshot.getTtl(node);
+    }
+
+    /**
+     * @return the address for the chain in the current resolver of the node. RSK addresses set
+     * with {@code setAddr} are returned for the RSK chain id.
+     */
+    public String getAddress(byte[] node, byte[] chainId) {
+        String resolver = getResolver(node);
+        if (resolver == null) {
+            return null;
+        }
+        String chain = Hex.toHexString(chainId);
+        Records current = records.get(recordsKey(resolver, node));
+        String address = current == null ? null : current.chainAddrs.get(chain);
+        if (address == null && current != null && RSK_CHAIN_ID.equals(chain)) {
+            address = current.addr;
+        }
+        if (address == null && RSK_CHAIN_ID.equals(chain) && fromSnapshotResolver(resolver, node)) {
+            address = snapshot.getAddress(node);
+        }
+        return address;
+    }
+
+    public byte[] getContent(byte[] node) {
+        String resolver = getResolver(node);
+        if (resolver == null) {
+            return null;
+        }
+        Records current = records.get(recordsKey(resolver, node));
+        if (current != null && current.content != null) {
+            return current.content;
+        }
+        return fromSnapshotResolver(resolver, node) ? snapshot.getContent(node) : null;
+    }
+
+    /**
+     * @return the amount of nodes changed since the snapshot, or since the first indexed block
+     */
+    public int size() {
+        return nodes.size();
+    }
+
+    /**
+     * Every node known by the model, sorted.
+     */
+    TreeSet<ByteArrayWrapper> nodes() {
+        TreeSet<ByteArrayWrapper> all = new TreeSet<>();
+        for (String node : nodes.keySet()) {
+            all.add(new ByteArrayWrapper(Hex.decode(node)));
+        }
+        if (snapshot != null) {
+            for (int i = 0; i < snapshot.size(); i++) {
+                all.add(new ByteArrayWrapper(snapshot.nodeAt(i)));
+            }
+        }
+        return all;
+    }
+
+    private boolean fromSnapshotResolver(String resolver, byte[] node) {
+        return snapshot != null && resolver.equalsIgnoreCase(snapshot.getResolver(node));
+    }
+
+    private NodeState node(EventValues values) {
+        return node((byte[]) values.getIndexedValues().get(0).getValue());
+    }
+
+    private NodeState node(byte[] node) {
+        String key = Hex.toHexString(node);
+        NodeState state = nodes.get(key);
+        if (state == null) {
+            state = new NodeState();
+            NodeState existing = nodes.putIfAbsent(key, state);
+            if (existing != null) {
+                state = existing;
+            }
+        }
+        return state;
+    }
+
+    private Records records(String resolver, byte[] node) {
+        String key = recordsKey(resolver, node);
+        Records current = records.get(key);
+        if (current == null) {
+            current = new Records();
+            Records existing = records.putIfAbsent(key, current);
+            if (existing != null) {
+                current = existing;
+            }
+        }
+        return current;
+    }
+
+    private static String recordsKey(String resolver, byte[] node) {
+        // addresses are returned as they were given, only compared without case
+        return resolver.toLowerCase() + ":" + Hex.toHexString(node);
+    }
+
+    private static EventValues extract(Event event, Log log) {
+        return Contract.staticExtractEventParameters(event, log);
+    }
+
+    private static class NodeState {
+        private volatile String owner;
+        private volatile String resolver;
+        private volatile BigInteger ttl;
+    }
+
+    private static class Records {
+        private volatile String addr;
+        private volatile byte[] content;
+        private final Map<String, String> chainAddrs = new ConcurrentHashMap<>();
+    }
+}
@@ -0,0 +1,283 @@
+package co.rsk.rnssdk.indexer;
+
+import co.rsk.commons.ByteArrayWrapper;
+
+import org.bouncycastle.util.encoders.Hex;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.TreeSet;
+
+/**
+ * Registry state saved to a file so an indexer can start from it instead of replaying the chain.
+ * <p>
+ * The file has a header with the last indexed block, whether the model was indexed from the
+ * deployment of the registry, and fixed width records sorted by node:
+ * <pre>
+ * node (32) | owner (20) | resolver (20) | ttl (8) | rsk address (20) | content (32) | flags (1) | padding (3)
+ * </pre>
+ * It is memory mapped and searched in place, nothing is loaded in the heap. Only the records of the
+ * current resolver of each node are kept, and only its RSK address; the model returns
+ * {@code null} for the rest and they are read from the node.
+ */
+public class RegistrySnapshot {
+
+    static final int MAGIC = 0x524e5353;
+    static final int VERSION = 2;
+    static final int HEADER_SIZE = 24;
+    static final int RECORD_SIZE = 136;
+    // a mapping can not be longer than Integer.MAX_VALUE bytes, offsets are ints
+    static final int MAX_RECORDS = (Integer.MAX_VALUE - HEADER_SIZE) / RECORD_SIZE;
+
+    private static final int NODE = 0;
+    private static final int OWNER = 32;
+    private static final int RESOLVER = 52;
+    private static final int TTL = 72;
+    private static final int ADDRESS = 80;
+    private static final int CONTENT = 100;
+    private static final int FLAGS = 132;
+
+    private static final int HAS_OWNER = 1;
+    private static final int HAS_RESOLVER = 2;
+    private static final int HAS_TTL = 4;
+    private static final int HAS_ADDRESS = 8;
+    private static final int HAS_CONTENT = 16;
+
+    private static final int FROM_DEPLOYMENT = 1;
+
+    private static final byte[] RSK_CHAIN_ID = Hex.decode("80000089");
+
+    private final ByteBuffer buffer;
+    private final long lastIndexedBlock;
+    private final int size;
+    private final boolean fromDeployment;
+
+    private RegistrySnapshot(ByteBuffer buffer) throws IOException {
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a registry snapshot");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported snapshot version " + buffer.getInt(4));
+        }
+        this.buffer = buffer;
+        this.lastIndexedBlock = buffer.getLong(8);
+        this.size = buffer.getInt(16);
+        this.fromDeployment = (buffer.getInt(20) & FROM_DEPLOYMENT) != 0;
+        if (size < 0 || size > MAX_RECORDS) {
+            throw new IOException("Invalid registry snapshot size " + size);
+        }
+        if ((long) HEADER_SIZE + (long) size * RECORD_SIZE > buffer.capacity()) {
+            throw new IOException("Truncated registry snapshot");
+        }
+    }
+
+    public static RegistrySnapshot open(File file) throws IOException {
+        RandomAccessFile input = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = input.getChannel();
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Registry snapshot too large: " + channel.size() + " bytes");
+            }
+            return new RegistrySnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } finally {
+            input.close();
+        }
+    }
+
+    /**
+     * Writes the state of the model, including any snapshot it was started from. The file is
+     * replaced at once, readers of the previous file keep their mapping.
+     */
+    public static void write(RegistryModel model, File file) throws IOException {
+        TreeSet<ByteArrayWrapper> nodes = model.nodes();
+        if (nodes.size() > MAX_RECORDS) {
+            throw new IOException("Too many nodes for a registry snapshot: " + nodes.size());
+        }
+        File temporary = new File(file.getPath() + ".tmp");
+        DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)));
+        try {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeLong(model.getLastIndexedBlock());
+            output.writeInt(nodes.size());
+            output.writeInt(model.isFromDeployment() ? FROM_DEPLOYMENT : 0);
+            byte[] record = new byte[RECORD_SIZE];
+            for (ByteArrayWrapper wrapper : nodes) {
+                byte[] node = wrapper.getData();
+                Arrays.fill(record, (byte) 0);
+                int flags = 0;
+                System.arraycopy(node, 0, record, NODE, 32);
+                flags |= putAddress(model.getOwner(node), record, OWNER) ? HAS_OWNER : 0;
+                flags |= putAddress(model.getResolver(node), record, RESOLVER) ? HAS_RESOLVER : 0;
+                flags |= putAddress(model.getAddress(node, RSK_CHAIN_ID), record, ADDRESS) ? HAS_ADDRESS : 0;
+                BigInteger ttl = model.getTtl(node);
+                if (ttl != null) {
+                    long value = ttl.longValue();
+                    for (int i = 0; i < 8; i++) {
+                        record[TTL + i] = (byte) (value >>> (56 - 8 * i));
+                    }
+                    flags |= HAS_TTL;
+                }
+                byte[] content = model.getContent(node);
+                if (content != null && content.length == 32) {
+                    System.arraycopy(content, 0, record, CONTENT, 32);
+                    flags |= HAS_CONTENT;
+                }
+                record[FLAGS] = (byte) flags;
+                output.write(record);
+            }
+        } finally {
+            output.close();
+        }
+        if (!temporary.renameTo(file)) {
+            file.delete();
+            if (!temporary.renameTo(file)) {
+                throw new IOException("Could not replace " + file);
+            }
+        }
+    }
+
+    public long getLastIndexedBlock() {
+        return lastIndexedBlock;
+    }
+
+    /**
+     * @return true if the model it was written from held every event since the registry was deployed
+     */
+    public boolean isFromDeployment() {
+        return fromDeployment;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String getOwner(byte[] node) {
+        return address(find(node), OWNER, HAS_OWNER);
+    }
+
+    public String getResolver(byte[] node) {
+        return address(find(node), RESOLVER, HAS_RESOLVER);
+    }
+
+    /**
+     * @return the RSK address of the node in its current resolver
+     */
+    public String getAddress(byte[] node) {
+        return address(find(node), ADDRESS, HAS_ADDRESS);
+    }
+
+    public BigInteger getTtl(byte[] node) {
+        int offset = find(node);
+        if (offset < 0 || !has(offset, HAS_TTL)) {
+            return null;
+        }
+        long ttl = buffer.getLong(offset + TTL);
+        return ttl >= 0 ? BigInteger.valueOf(ttl) : BigInteger.valueOf(ttl).add(BigInteger.ONE.shiftLeft(64));
+    }
+
+    public byte[] getContent(byte[] node) {
+        int offset = find(node);
+        return offset < 0 || !has(offset, HAS_CONTENT) ? null : bytes(offset + CONTENT, 32);
+    }
+
+    byte[] nodeAt(int index) {
+        return bytes(HEADER_SIZE + index * RECORD_SIZE + NODE, 32);
+    }
+
+    /**
+     * @return the offset of the record of the node, or -1
+     */
+    private int find(byte[] node) {
+        if (node.length != 32) {
+            return -1;
+        }
+        // compared a word at a time in place, nodes are sorted as unsigned big endian numbers
+        long w0 = readLong(node, 0);
+        long w1 = readLong(node, 8);
+        long w2 = readLong(node, 16);
+        long w3 = readLong(node, 24);
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int offset = HEADER_SIZE + middle * RECORD_SIZE;
+            int comparison = compareUnsigned(buffer.getLong(offset + NODE), w0);
+            if (comparison == 0) {
+                comparison = compareUnsigned(buffer.getLong(offset + NODE + 8), w1);
+            }
+            if (comparison == 0) {
+                comparison = compareUnsigned(buffer.getLong(offset + NODE + 16), w2);
+            }
+            if (comparison == 0) {
+                comparison = compareUnsigned(buffer.getLong(offset + NODE + 24), w3);
+            }
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return offset;
+            }
+        }
+        return -1;
+    }
+
+    private static int compareUnsigned(long a, long b) {
+        if (a == b) {
+            return 0;
+        }
+        return (a ^ Long.MIN_VALUE) < (b ^ Long.MIN_VALUE) ? -1 : 1;
+    }
+
+    private static long readLong(byte[] in, int offset) {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (in[offset + i] & 0xff);
+        }
+        return value;
+    }
+
+    private boolean has(int offset, int flag) {
+        return (buffer.get(offset + FLAGS) & flag) != 0;
+    }
+
+    private String address(int offset, int field, int flag) {
+        if (offset < 0 || !has(offset, flag)) {
+            return null;
+        }
+        return "0x" + Hex.toHexString(bytes(offset + field, 20));
+    }
+
+    private byte[] bytes(int offset, int length) {
+        byte[] result = new byte[length];
+        for (int i = 0; i < length; i++) {
+            result[i] = buffer.get(offset + i);
+        }
+        return result;
+    }
+
+    private static boolean putAddress(String address, byte[] record, int offset) {
+        if (address == null) {
+            return false;
+        }
+        String hex = address.startsWith("0x") ? address.substring(2) : address;
+        if (hex.length() != 40) {
+            return false;
+        }
+        try {
+            System.arraycopy(Hex.decode(hex), 0, record, offset, 20);
+            return true;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package co.rsk.commons;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class Bytes32LongMapTest {
+
+    @Test
+    public void testPutGetAndReplace() {
+        Bytes32LongMap map = new Bytes32LongMap();
+        byte[] key = key(1);
+        assertEquals(-1, map.get(key, -1));
+        map.put(key, 10);
+        assertEquals(10, map.get(key, -1));
+        map.put(key, 20);
+        assertEquals(20, map.get(key, -1));
+        assertEquals(1, map.size());
+        assertTrue(map.containsKey(key));
+        assertFalse(map.containsKey(key(2)));
+    }
+
+    @Test
+    public void testKeysAtAnOffset() {
+        Bytes32LongMap map = new Bytes32LongMap();
+        byte[] buffer = new byte[40];
+        System.arraycopy(key(7), 0, buffer, 8, 32);
+        map.put(buffer, 8, 70);
+        assertEquals(70, map.get(key(7), -1));
+        assertTrue(map.remove(buffer, 8));
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    public void testZeroKey() {
+        Bytes32LongMap map = new Bytes32LongMap();
+        byte[] zero = new byte[32];
+        assertFalse(map.containsKey(zero));
+        map.put(zero, 5);
+        map.put(key(1), 6);
+        assertEquals(5, map.get(zero, -1));
+        assertEquals(2, map.size());
+        assertTrue(map.remove(zero));
+        assertFalse(map.remove(zero));
+        assertEquals(-1, map.get(zero, -1));
+        assertEquals(6, map.get(key(1), -1));
+    }
+
+    @Test
+    public void testMatchesHashMapUnderRandomOperations() {
+        Random random = new Random(3);
+        Bytes32LongMap map = new Bytes32LongMap(4);
+        Map<ByteArrayWrapper, Long> expected = new HashMap<>();
+        List<byte[]> keys = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            byte[] key = new byte[32];
+            random.nextBytes(key);
+            keys.add(key);
+        }
+        for (int i = 0; i < 100000; i++) {
+            byte[] key = keys.get(random.nextInt(keys.size()));
+            int operation = random.nextInt(3);
+            if (operation == 0) {
+                long value = random.nextLong();
+                map.put(key, value);
+                expected.put(new ByteArrayWrapper(key), value);
+            } else if (operation == 1) {
+                assertEquals(expected.remove(new ByteArrayWrapper(key)) != null, map.remove(key));
+            } else {
+                Long value = expected.get(new ByteArrayWrapper(key));
+                assertEquals(value == null ? Long.MIN_VALUE : value, map.get(key, Long.MIN_VALUE));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (byte[] key : keys) {
+            Long value = expected.get(new ByteArrayWrapper(key));
+            assertEquals(value == null ? Long.MIN_VALUE : value, map.get(key, Long.MIN_VALUE));
+        }
+    }
+
+    @Test
+    public void testClear() {
+        Bytes32LongMap map = new Bytes32LongMap();
+        for (int i = 1; i <= 100; i++) {
+            map.put(key(i), i);
+        }
+        map.clear();
+        assertEquals(0, map.size());
+        assertFalse(map.containsKey(key(50)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeExpectedSize() {
+        new Bytes32LongMap(-1);
+    }
+
+    private static byte[] key(int value) {
+        return Keccak256.hash(new byte[]{(byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value});
+    }
+}
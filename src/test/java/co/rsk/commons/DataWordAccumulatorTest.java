@@ -0,0 +1,141 @@
+package co.rsk.commons;
+
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DataWordAccumulatorTest {
+
+    private static final BigInteger MAX_VALUE = DataWord.MAX_VALUE;
+
+    @Test
+    public void testSumMatchesBigInteger() {
+        Random random = new Random(1);
+        DataWordAccumulator accumulator = new DataWordAccumulator();
+        BigInteger expected = BigInteger.ZERO;
+        for (int i = 0; i < 10000; i++) {
+            BigInteger balance = new BigInteger(1 + random.nextInt(256), random);
+            accumulator.add(DataWord.valueOf(balance.toByteArray().length > 32
+                    ? Arrays.copyOfRange(balance.toByteArray(), 1, 33)
+                    : balance.toByteArray()));
+            expected = expected.add(balance).and(MAX_VALUE);
+        }
+        assertEquals(expected, accumulator.toBigInteger());
+    }
+
+    @Test
+    public void testMixedOperations() {
+        Random random = new Random(2);
+        DataWordAccumulator accumulator = new DataWordAccumulator(DataWord.valueOf(7));
+        BigInteger expected = BigInteger.valueOf(7);
+        for (int i = 0; i < 10000; i++) {
+            BigInteger operand = new BigInteger(1 + random.nextInt(256), random);
+            Word256 word = Word256.valueOf(operand.toByteArray().length > 32
+                    ? Arrays.copyOfRange(operand.toByteArray(), 1, 33)
+                    : operand.toByteArray());
+            byte[] raw = new byte[40];
+            word.copyTo(raw, 8);
+            int kind = random.nextInt(3);
+            switch (random.nextInt(5)) {
+                case 0:
+                    if (kind == 0) {
+                        accumulator.add(operand);
+                    } else if (kind == 1) {
+                        accumulator.add(word);
+                    } else {
+                        accumulator.add(raw, 8);
+                    }
+                    expected = expected.add(operand);
+                    break;
+                case 1:
+                    if (kind == 0) {
+                        accumulator.sub(operand);
+                    } else if (kind == 1) {
+                        accumulator.sub(word);
+                    } else {
+                        accumulator.sub(raw, 8);
+                    }
+                    expected = expected.subtract(operand);
+                    break;
+                case 2:
+                    if (kind == 0) {
+                        accumulator.mul(operand);
+                    } else if (kind == 1) {
+                        accumulator.mul(word);
+                    } else {
+                        accumulator.mul(raw, 8);
+                    }
+                    expected = expected.multiply(operand);
+                    break;
+                case 3:
+                    if (kind == 0) {
+                        accumulator.mod(operand);
+                    } else if (kind == 1) {
+                        accumulator.mod(word);
+                    } else {
+                        accumulator.mod(raw, 8);
+                    }
+                    expected = operand.signum() == 0 ? BigInteger.ZERO : expected.mod(operand);
+                    break;
+                default:
+                    if (kind == 0) {
+                        accumulator.set(operand);
+                    } else if (kind == 1) {
+                        accumulator.set(word);
+                    } else {
+                        accumulator.set(raw, 8);
+                    }
+                    expected = operand;
+                    break;
+            }
+            expected = expected.and(MAX_VALUE);
+            assertEquals(expected, accumulator.toBigInteger());
+        }
+    }
+
+    @Test
+    public void testPricesTimesCounts() {
+        DataWordAccumulator total = new DataWordAccumulator();
+        DataWordAccumulator line = new DataWordAccumulator();
+        BigInteger price = new BigInteger("2000000000000000000");
+        for (long count = 1; count <= 100; count++) {
+            total.add(line.reset().add(price).mul(count).toWord256());
+        }
+        assertEquals(price.multiply(BigInteger.valueOf(5050)), total.toBigInteger());
+    }
+
+    @Test
+    public void testRawWordsAndWrapping() {
+        byte[] encoded = new byte[64];
+        encoded[31] = 5;
+        encoded[63] = 6;
+        DataWordAccumulator accumulator = new DataWordAccumulator().add(encoded, 0).add(encoded, 32);
+        assertEquals(DataWord.valueOf(11), accumulator.toDataWord());
+
+        accumulator.sub(12);
+        assertEquals(MAX_VALUE, accumulator.toBigInteger());
+        accumulator.add(1);
+        assertTrue(accumulator.isZero());
+    }
+
+    @Test
+    public void testModByZero() {
+        DataWordAccumulator accumulator = new DataWordAccumulator().set(10).mod(0);
+        assertTrue(accumulator.isZero());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeBigInteger() {
+        new DataWordAccumulator().add(BigInteger.valueOf(-1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooLargeBigInteger() {
+        new DataWordAccumulator().mod(BigInteger.ONE.shiftLeft(256));
+    }
+}
@@ -0,0 +1,152 @@
+package co.rsk.commons;
+
+import org.bouncycastle.util.encoders.Hex;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks the limb arithmetic of {@link DataWord} against the {@code BigInteger} formulas it replaced.
+ */
+public class DataWordArithmeticTest {
+
+    private static final BigInteger MAX_VALUE = DataWord.MAX_VALUE;
+    private static final int RANDOM_PAIRS = 20000;
+
+    @Test
+    public void testMul() {
+        for (DataWord[] pair : pairs(1)) {
+            BigInteger expected = pair[0].value().multiply(pair[1].value()).and(MAX_VALUE);
+            assertEquals(message(pair), expected, pair[0].mul(pair[1]).value());
+        }
+    }
+
+    @Test
+    public void testSub() {
+        for (DataWord[] pair : pairs(2)) {
+            BigInteger expected = pair[0].value().subtract(pair[1].value()).and(MAX_VALUE);
+            assertEquals(message(pair), expected, pair[0].sub(pair[1]).value());
+        }
+    }
+
+    @Test
+    public void testDivAndMod() {
+        for (DataWord[] pair : pairs(3)) {
+            if (pair[1].isZero()) {
+                assertEquals(DataWord.ZERO, pair[0].div(pair[1]));
+                assertEquals(DataWord.ZERO, pair[0].mod(pair[1]));
+                continue;
+            }
+            assertEquals(message(pair), pair[0].value().divide(pair[1].value()), pair[0].div(pair[1]).value());
+            assertEquals(message(pair), pair[0].value().mod(pair[1].value()), pair[0].mod(pair[1]).value());
+        }
+    }
+
+    @Test
+    public void testSignedDivAndMod() {
+        for (DataWord[] pair : pairs(4)) {
+            if (pair[1].isZero()) {
+                assertEquals(DataWord.ZERO, pair[0].sDiv(pair[1]));
+                assertEquals(DataWord.ZERO, pair[0].sMod(pair[1]));
+                continue;
+            }
+            BigInteger quotient = pair[0].sValue().divide(pair[1].sValue()).and(MAX_VALUE);
+            assertEquals(message(pair), quotient, pair[0].sDiv(pair[1]).value());
+            BigInteger remainder = pair[0].sValue().abs().mod(pair[1].sValue().abs());
+            remainder = pair[0].sValue().signum() == -1 ? remainder.negate() : remainder;
+            assertEquals(message(pair), remainder.and(MAX_VALUE), pair[0].sMod(pair[1]).value());
+        }
+    }
+
+    @Test
+    public void testExp() {
+        for (DataWord[] pair : pairs(5)) {
+            BigInteger expected = pair[0].value().modPow(pair[1].value(), DataWord._2_256);
+            assertEquals(message(pair), expected, pair[0].exp(pair[1]).value());
+        }
+    }
+
+    @Test
+    public void testAddModAndMulMod() {
+        List<DataWord[]> pairs = pairs(6);
+        Random random = new Random(6);
+        for (DataWord[] pair : pairs) {
+            DataWord modulus = pairs.get(random.nextInt(pairs.size()))[random.nextInt(2)];
+            if (modulus.isZero()) {
+                assertEquals(DataWord.ZERO, pair[0].addmod(pair[1], modulus));
+                assertEquals(DataWord.ZERO, pair[0].mulmod(pair[1], modulus));
+                continue;
+            }
+            String message = message(pair) + " " + modulus;
+            BigInteger sum = pair[0].value().add(pair[1].value()).mod(modulus.value());
+            assertEquals(message, sum, pair[0].addmod(pair[1], modulus).value());
+            BigInteger product = pair[0].value().multiply(pair[1].value()).mod(modulus.value());
+            assertEquals(message, product, pair[0].mulmod(pair[1], modulus).value());
+        }
+    }
+
+    @Test
+    public void testDivisionNeedingACorrection() {
+        // the estimated quotient digit is one too big and the divisor has to be added back
+        DataWord dividend = DataWord.valueFromHex("000000000000000000000000000000007fffffff800000000000000000000000");
+        DataWord divisor = DataWord.valueFromHex("0000000000000000000000000000000000000000800000000000000000000001");
+        assertEquals(dividend.value().divide(divisor.value()), dividend.div(divisor).value());
+        assertEquals(dividend.value().mod(divisor.value()), dividend.mod(divisor).value());
+    }
+
+    /**
+     * Edge values combined with each other, and random values of every length and bit pattern.
+     */
+    private static List<DataWord[]> pairs(long seed) {
+        Random random = new Random(seed);
+        List<DataWord> values = new ArrayList<>();
+        values.add(DataWord.ZERO);
+        values.add(DataWord.ONE);
+        values.add(DataWord.valueOf(2));
+        values.add(DataWord.valueOf(-1L));
+        values.add(DataWord.valueFromHex(MAX_VALUE.toString(16)));
+        values.add(DataWord.valueFromHex("8000000000000000000000000000000000000000000000000000000000000000"));
+        values.add(DataWord.valueFromHex("7fffffffffffffffffffffffffffffffffffffffffffffffffffffffffffffff"));
+        values.add(DataWord.valueFromHex("ffffffffffffffffffffffffffffffffffffffffffffffffffffffffffffffff"));
+        values.add(DataWord.valueFromHex("0000000000000000000000000000000100000000000000000000000000000000"));
+        values.add(DataWord.valueFromHex("00000000000000000000000000000000ffffffffffffffffffffffffffffffff"));
+        List<DataWord[]> pairs = new ArrayList<>();
+        for (DataWord a : values) {
+            for (DataWord b : values) {
+                pairs.add(new DataWord[]{a, b});
+            }
+        }
+        for (int i = 0; i < RANDOM_PAIRS; i++) {
+            pairs.add(new DataWord[]{randomWord(random), randomWord(random)});
+        }
+        return pairs;
+    }
+
+    private static DataWord randomWord(Random random) {
+        byte[] data = new byte[1 + random.nextInt(32)];
+        random.nextBytes(data);
+        switch (random.nextInt(4)) {
+            case 0:
+                // runs of ones and zeros stress the carries and the quotient estimate
+                for (int i = 0; i < data.length; i++) {
+                    data[i] = random.nextBoolean() ? (byte) 0xff : 0;
+                }
+                break;
+            case 1:
+                data[0] = (byte) 0x80;
+                break;
+            default:
+                break;
+        }
+        return DataWord.valueOf(data);
+    }
+
+    private static String message(DataWord[] pair) {
+        return Hex.toHexString(pair[0].getData()) + " " + Hex.toHexString(pair[1].getData());
+    }
+}
@@ -0,0 +1,108 @@
+package co.rsk.commons;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FastByteComparisonsTest {
+
+    private final Random random = new Random(42);
+
+    @Test
+    public void comparesLikeByteAtATime() {
+        for (int i = 0; i < 20000; i++) {
+            int length1 = random.nextInt(40);
+            int length2 = random.nextBoolean() ? length1 : random.nextInt(40);
+            int offset1 = random.nextInt(5);
+            int offset2 = random.nextInt(5);
+            byte[] b1 = randomBytes(offset1 + length1 + random.nextInt(5));
+            byte[] b2 = randomBytes(offset2 + length2 + random.nextInt(5));
+            // share a random prefix so the difference is not always in the first byte
+            int common = random.nextInt(Math.min(length1, length2) + 1);
+            System.arraycopy(b1, offset1, b2, offset2, common);
+
+            assertEquals(expected(b1, offset1, length1, b2, offset2, length2),
+                    FastByteComparisons.compareTo(b1, offset1, length1, b2, offset2, length2));
+        }
+    }
+
+    @Test
+    public void comparesHashesAndAddresses() {
+        for (int length : new int[]{20, 32}) {
+            for (int position = 0; position < length; position++) {
+                byte[] b1 = randomBytes(length);
+                byte[] b2 = b1.clone();
+                assertEquals(0, FastByteComparisons.compareTo(b1, 0, length, b2, 0, length));
+
+                b2[position] = (byte) (b1[position] ^ 0x80);
+                assertEquals(expected(b1, 0, length, b2, 0, length),
+                        FastByteComparisons.compareTo(b1, 0, length, b2, 0, length));
+                assertEquals(expected(b2, 0, length, b1, 0, length),
+                        FastByteComparisons.compareTo(b2, 0, length, b1, 0, length));
+            }
+        }
+    }
+
+    @Test
+    public void comparesEveryByteOfTheWordsAndTheTail() {
+        for (int length = 1; length <= 48; length++) {
+            for (int position = 0; position < length; position++) {
+                byte[] b1 = randomBytes(length + 3);
+                byte[] b2 = new byte[length + 1];
+                System.arraycopy(b1, 3, b2, 1, length);
+                b2[1 + position] = (byte) (b1[3 + position] ^ (1 << random.nextInt(8)));
+
+                assertEquals(expected(b1, 3, length, b2, 1, length),
+                        FastByteComparisons.compareTo(b1, 3, length, b2, 1, length));
+                assertEquals(expected(b2, 1, length, b1, 3, length),
+                        FastByteComparisons.compareTo(b2, 1, length, b1, 3, length));
+            }
+        }
+    }
+
+    @Test
+    public void shorterPrefixComesFirst() {
+        byte[] b1 = new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9};
+        assertTrue(FastByteComparisons.compareTo(b1, 0, 8, b1, 0, 9) < 0);
+        assertTrue(FastByteComparisons.compareTo(b1, 0, 9, b1, 0, 8) > 0);
+        assertEquals(0, FastByteComparisons.compareTo(b1, 1, 0, b1, 3, 0));
+    }
+
+    @Test
+    public void equalBytes() {
+        byte[] b1 = randomBytes(32);
+        assertTrue(FastByteComparisons.equalBytes(b1, b1.clone()));
+        assertFalse(FastByteComparisons.equalBytes(b1, new byte[31]));
+        byte[] b2 = b1.clone();
+        b2[31]++;
+        assertFalse(FastByteComparisons.equalBytes(b1, b2));
+        assertFalse(ByteUtil.fastEquals(b1, b2));
+        assertTrue(ByteUtil.fastEquals(b1, b1.clone()));
+    }
+
+    @Test(expected = ArrayIndexOutOfBoundsException.class)
+    public void outOfBoundsIsRejected() {
+        FastByteComparisons.compareTo(new byte[32], 8, 32, new byte[32], 0, 32);
+    }
+
+    private byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+
+    private static int expected(byte[] b1, int s1, int l1, byte[] b2, int s2, int l2) {
+        for (int i = 0; i < Math.min(l1, l2); i++) {
+            int a = b1[s1 + i] & 0xff;
+            int b = b2[s2 + i] & 0xff;
+            if (a != b) {
+                return a - b;
+            }
+        }
+        return l1 - l2;
+    }
+}
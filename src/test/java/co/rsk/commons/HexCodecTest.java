@@ -0,0 +1,115 @@
+package co.rsk.commons;
+
+import org.bouncycastle.util.encoders.DecoderException;
+import org.bouncycastle.util.encoders.Hex;
+import org.junit.Test;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class HexCodecTest {
+
+    private final Random random = new Random(42);
+
+    @Test
+    public void encodesLikeBouncyCastle() {
+        for (int length = 0; length < 70; length++) {
+            byte[] data = randomBytes(length);
+            assertEquals(Hex.toHexString(data), HexCodec.encode(data));
+            assertEquals("0x" + Hex.toHexString(data), HexCodec.encodeWithPrefix(data));
+        }
+        byte[] data = randomBytes(10);
+        assertEquals(Hex.toHexString(data, 3, 4), HexCodec.encode(data, 3, 4));
+    }
+
+    @Test
+    public void decodesWithAndWithoutPrefix() {
+        byte[] data = randomBytes(32);
+        String hex = Hex.toHexString(data);
+        assertArrayEquals(data, HexCodec.decode(hex));
+        assertArrayEquals(data, HexCodec.decode("0x" + hex));
+        assertArrayEquals(data, HexCodec.decode(hex.toUpperCase()));
+        assertArrayEquals(new byte[0], HexCodec.decode("0x"));
+        assertArrayEquals(new byte[0], HexCodec.decode(""));
+    }
+
+    @Test
+    public void decodesOddLengths() {
+        assertArrayEquals(new byte[]{0x0a}, HexCodec.decode("a"));
+        assertArrayEquals(new byte[]{0x01, 0x23}, HexCodec.decode("0x123"));
+        assertEquals(2, HexCodec.decodedLength("0x123"));
+        assertArrayEquals(new byte[]{0x00}, HexCodec.decode("0"));
+    }
+
+    @Test
+    public void decodesIntoArray() {
+        byte[] out = new byte[6];
+        assertEquals(3, HexCodec.decode("0xabcdef", out, 2));
+        assertArrayEquals(new byte[]{0, 0, (byte) 0xab, (byte) 0xcd, (byte) 0xef, 0}, out);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void rejectsTooSmallArray() {
+        HexCodec.decode("abcdef", new byte[4], 2);
+    }
+
+    @Test
+    public void decodesIntoBuffer() {
+        byte[] data = randomBytes(20);
+        for (ByteBuffer buffer : new ByteBuffer[]{ByteBuffer.allocate(24), ByteBuffer.allocateDirect(24)}) {
+            buffer.position(1);
+            ByteBuffer slice = buffer.slice();
+            slice.position(2);
+            assertEquals(20, HexCodec.decode("0x" + Hex.toHexString(data), slice));
+            assertEquals(22, slice.position());
+
+            byte[] written = new byte[20];
+            slice.position(2);
+            slice.get(written);
+            assertArrayEquals(data, written);
+        }
+    }
+
+    @Test(expected = BufferOverflowException.class)
+    public void rejectsTooSmallBuffer() {
+        HexCodec.decode("abcdef", ByteBuffer.allocate(2));
+    }
+
+    @Test(expected = DecoderException.class)
+    public void rejectsInvalidCharacters() {
+        HexCodec.decode("0x12g4");
+    }
+
+    @Test(expected = DecoderException.class)
+    public void rejectsNonAsciiCharacters() {
+        HexCodec.decode("12\u00e9", new byte[2], 0);
+    }
+
+    @Test(expected = DecoderException.class)
+    public void rejectsInvalidCharactersInBuffer() {
+        HexCodec.decode("12g4", ByteBuffer.allocateDirect(2));
+    }
+
+    @Test
+    public void skipsWhitespaceLikeBouncyCastle() {
+        assertArrayEquals(new byte[]{0x12, 0x34}, HexCodec.decode("12 34 "));
+    }
+
+    @Test
+    public void typeConverterUsesCodec() {
+        assertArrayEquals(new byte[]{0x01, 0x23}, TypeConverter.stringHexToByteArray("0x123"));
+        assertEquals("0x00", TypeConverter.toJsonHex((byte[]) null));
+        assertEquals("0x00", TypeConverter.toJsonHex(new byte[0]));
+        assertEquals("0x0aff", TypeConverter.toJsonHex(new byte[]{0x0a, (byte) 0xff}));
+    }
+
+    private byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,84 @@
+package co.rsk.commons;
+
+import org.bouncycastle.util.encoders.Hex;
+import org.junit.Test;
+import org.web3j.crypto.Hash;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class Keccak256Test {
+
+    @Test
+    public void testEmptyInput() {
+        assertEquals("c5d2460186f7233c927e7db2dcc703c0e500b653ca82273b7bfad8045d85a470",
+                Hex.toHexString(Keccak256.hash(new byte[0])));
+    }
+
+    @Test
+    public void testMatchesSha3ForAllLengthsAroundRate() {
+        Random random = new Random(42);
+        for (int len = 0; len <= 300; len++) {
+            byte[] input = new byte[len];
+            random.nextBytes(input);
+            assertArrayEquals("length " + len, Hash.sha3(input), Keccak256.hash(input));
+        }
+    }
+
+    @Test
+    public void testHashWithOffsets() {
+        byte[] input = new byte[100];
+        new Random(1).nextBytes(input);
+        byte[] out = new byte[40];
+        Keccak256.hash(input, 10, 50, out, 8);
+        byte[] expected = Hash.sha3(input, 10, 50);
+        for (int i = 0; i < 32; i++) {
+            assertEquals(expected[i], out[8 + i]);
+        }
+    }
+
+    @Test
+    public void testHash32() {
+        byte[] input = new byte[36];
+        new Random(2).nextBytes(input);
+        byte[] out = new byte[32];
+        Keccak256.hash32(input, 4, out, 0);
+        assertArrayEquals(Hash.sha3(input, 4, 32), out);
+    }
+
+    @Test
+    public void testHash64() {
+        byte[] input = new byte[64];
+        new Random(3).nextBytes(input);
+        byte[] out = new byte[32];
+        Keccak256.hash64(input, 0, out, 0);
+        assertArrayEquals(Hash.sha3(input), out);
+    }
+
+    @Test
+    public void testHash64FromTwoParts() {
+        byte[] left = new byte[32];
+        byte[] right = new byte[32];
+        new Random(4).nextBytes(left);
+        new Random(5).nextBytes(right);
+        byte[] joined = new byte[64];
+        System.arraycopy(left, 0, joined, 0, 32);
+        System.arraycopy(right, 0, joined, 32, 32);
+        byte[] out = new byte[32];
+        Keccak256.hash64(left, 0, right, 0, out, 0);
+        assertArrayEquals(Hash.sha3(joined), out);
+    }
+
+    @Test
+    public void testStateIsResetBetweenCalls() {
+        byte[] big = new byte[500];
+        new Random(6).nextBytes(big);
+        Keccak256.hash(big);
+        byte[] input = new byte[32];
+        byte[] out = new byte[32];
+        Keccak256.hash32(input, 0, out, 0);
+        assertArrayEquals(Hash.sha3(input), out);
+    }
+}
@@ -0,0 +1,99 @@
+package co.rsk.commons;
+
+import org.bouncycastle.util.encoders.Hex;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class Word256Test {
+
+    @Test
+    public void testBytesRoundTrip() {
+        byte[] data = Hex.decode("0102030405060708090a0b0c0d0e0f101112131415161718191a1b1c1d1e1f20");
+        Word256 word = Word256.valueOf(data);
+        assertArrayEquals(data, word.getData());
+        assertArrayEquals(DataWord.valueOf(data).getLast20Bytes(), word.getLast20Bytes());
+        assertEquals(DataWord.valueOf(data), word.toDataWord());
+        assertEquals(Hex.toHexString(data), word.toString());
+        byte[] out = new byte[40];
+        word.copyTo(out, 8);
+        assertArrayEquals(data, Arrays.copyOfRange(out, 8, 40));
+    }
+
+    @Test
+    public void testShortArraysArePadded() {
+        assertEquals(Word256.valueOf(0x1234), Word256.valueOf(new byte[]{0x12, 0x34}));
+        assertEquals(Word256.ZERO, Word256.valueOf(new byte[0]));
+        assertEquals(0x1234, Word256.valueFromHex("1234").intValue());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooLong() {
+        Word256.valueOf(new byte[33]);
+    }
+
+    @Test
+    public void testEqualsAndHashCodeAsMapKey() {
+        Map<Word256, String> map = new HashMap<>();
+        map.put(Word256.valueFromHex("ff00000000000000000000000000000000000000000000000000000000000001"), "a");
+        assertEquals("a", map.get(Word256.valueFromHex("ff00000000000000000000000000000000000000000000000000000000000001")));
+        assertNotEquals(Word256.ONE, Word256.ZERO);
+        assertTrue(Word256.ZERO.isZero());
+        assertFalse(Word256.ONE.isZero());
+    }
+
+    @Test
+    public void testMatchesDataWord() {
+        Random random = new Random(7);
+        List<byte[]> values = new ArrayList<>();
+        values.add(new byte[0]);
+        values.add(Hex.decode("8000000000000000000000000000000000000000000000000000000000000000"));
+        values.add(Hex.decode("ffffffffffffffffffffffffffffffffffffffffffffffffffffffffffffffff"));
+        for (int i = 0; i < 500; i++) {
+            byte[] data = new byte[1 + random.nextInt(32)];
+            random.nextBytes(data);
+            values.add(data);
+        }
+        for (int i = 0; i < values.size(); i++) {
+            byte[] left = values.get(i);
+            byte[] right = values.get((i * 31 + 7) % values.size());
+            byte[] modulus = values.get((i * 17 + 3) % values.size());
+            DataWord a = DataWord.valueOf(left);
+            DataWord b = DataWord.valueOf(right);
+            DataWord m = DataWord.valueOf(modulus);
+            Word256 x = Word256.valueOf(left);
+            Word256 y = Word256.valueOf(right);
+            Word256 n = Word256.valueOf(modulus);
+
+            assertEquals(a.and(b), x.and(y).toDataWord());
+            assertEquals(a.or(b), x.or(y).toDataWord());
+            assertEquals(a.xor(b), x.xor(y).toDataWord());
+            assertEquals(a.bnot(), x.bnot().toDataWord());
+            assertEquals(a.add(b), x.add(y).toDataWord());
+            assertEquals(a.sub(b), x.sub(y).toDataWord());
+            assertEquals(a.mul(b), x.mul(y).toDataWord());
+            assertEquals(a.div(b), x.div(y).toDataWord());
+            assertEquals(a.mod(b), x.mod(y).toDataWord());
+            assertEquals(a.sDiv(b), x.sDiv(y).toDataWord());
+            assertEquals(a.sMod(b), x.sMod(y).toDataWord());
+            assertEquals(a.addmod(b, m), x.addmod(y, n).toDataWord());
+            assertEquals(a.mulmod(b, m), x.mulmod(y, n).toDataWord());
+            assertEquals(a.longValue(), x.longValue());
+            assertEquals(a.isNegative(), x.isNegative());
+            assertEquals(Integer.signum(a.compareTo(b)), x.compareTo(y));
+        }
+        assertEquals(DataWord.valueOf(3).exp(DataWord.valueOf(200)),
+                Word256.valueOf(3).exp(Word256.valueOf(200)).toDataWord());
+    }
+}
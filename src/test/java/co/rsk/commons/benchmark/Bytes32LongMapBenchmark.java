@@ -0,0 +1,67 @@
+package co.rsk.commons.benchmark;
+
+import co.rsk.commons.ByteArrayWrapper;
+import co.rsk.commons.Bytes32LongMap;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares node lookups in {@link Bytes32LongMap} with a {@code HashMap} keyed by {@link ByteArrayWrapper}.
+ * Run on a desktop JVM, e.g. {@code java -cp <test classpath> org.openjdk.jmh.Main Bytes32LongMapBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class Bytes32LongMapBenchmark {
+
+    @Param({"100000", "1000000"})
+    private int size;
+
+    private byte[][] nodes;
+    private Bytes32LongMap map;
+    private Map<ByteArrayWrapper, Long> hashMap;
+    private int next;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(0);
+        nodes = new byte[size][32];
+        map = new Bytes32LongMap(size);
+        hashMap = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            random.nextBytes(nodes[i]);
+            map.put(nodes[i], i);
+            hashMap.put(new ByteArrayWrapper(nodes[i]), (long) i);
+        }
+    }
+
+    @Benchmark
+    public long bytes32LongMapGet() {
+        byte[] node = nodes[next++ % size];
+        return map.get(node, -1);
+    }
+
+    @Benchmark
+    public Long hashMapGet() {
+        byte[] node = nodes[next++ % size];
+        return hashMap.get(new ByteArrayWrapper(node));
+    }
+}
@@ -0,0 +1,147 @@
+package co.rsk.commons.benchmark;
+
+import co.rsk.commons.DataWord;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the limb arithmetic of {@link DataWord} with the {@code BigInteger} round trip it replaced,
+ * on full width operands. Run on a desktop JVM, e.g.
+ * {@code java -cp <test classpath> org.openjdk.jmh.Main DataWordBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DataWordBenchmark {
+
+    private DataWord a;
+    private DataWord b;
+    private DataWord small;
+    private DataWord modulus;
+    private DataWord exponent;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(0);
+        a = randomWord(random, 32);
+        b = randomWord(random, 32);
+        small = randomWord(random, 12);
+        modulus = randomWord(random, 20);
+        exponent = randomWord(random, 32);
+    }
+
+    @Benchmark
+    public DataWord mul() {
+        return a.mul(b);
+    }
+
+    @Benchmark
+    public BigInteger mulBigInteger() {
+        return a.value().multiply(b.value()).and(DataWord.MAX_VALUE);
+    }
+
+    @Benchmark
+    public DataWord sub() {
+        return a.sub(b);
+    }
+
+    @Benchmark
+    public BigInteger subBigInteger() {
+        return a.value().subtract(b.value()).and(DataWord.MAX_VALUE);
+    }
+
+    @Benchmark
+    public DataWord div() {
+        return a.div(small);
+    }
+
+    @Benchmark
+    public BigInteger divBigInteger() {
+        return a.value().divide(small.value()).and(DataWord.MAX_VALUE);
+    }
+
+    @Benchmark
+    public DataWord sDiv() {
+        return a.sDiv(small);
+    }
+
+    @Benchmark
+    public BigInteger sDivBigInteger() {
+        return a.sValue().divide(small.sValue()).and(DataWord.MAX_VALUE);
+    }
+
+    @Benchmark
+    public DataWord mod() {
+        return a.mod(modulus);
+    }
+
+    @Benchmark
+    public BigInteger modBigInteger() {
+        return a.value().mod(modulus.value()).and(DataWord.MAX_VALUE);
+    }
+
+    @Benchmark
+    public DataWord sMod() {
+        return a.sMod(modulus);
+    }
+
+    @Benchmark
+    public BigInteger sModBigInteger() {
+        BigInteger result = a.sValue().abs().mod(modulus.sValue().abs());
+        result = (a.sValue().signum() == -1) ? result.negate() : result;
+        return result.and(DataWord.MAX_VALUE);
+    }
+
+    @Benchmark
+    public DataWord exp() {
+        return a.exp(exponent);
+    }
+
+    @Benchmark
+    public BigInteger expBigInteger() {
+        return a.value().modPow(exponent.value(), DataWord._2_256);
+    }
+
+    @Benchmark
+    public DataWord addmod() {
+        return a.addmod(b, modulus);
+    }
+
+    @Benchmark
+    public BigInteger addmodBigInteger() {
+        return a.value().add(b.value()).mod(modulus.value()).and(DataWord.MAX_VALUE);
+    }
+
+    @Benchmark
+    public DataWord mulmod() {
+        return a.mulmod(b, modulus);
+    }
+
+    @Benchmark
+    public BigInteger mulmodBigInteger() {
+        return a.value().multiply(b.value()).mod(modulus.value()).and(DataWord.MAX_VALUE);
+    }
+
+    private static DataWord randomWord(Random random, int length) {
+        byte[] data = new byte[length];
+        random.nextBytes(data);
+        data[0] |= (byte) 0x80;
+        return DataWord.valueOf(data);
+    }
+}
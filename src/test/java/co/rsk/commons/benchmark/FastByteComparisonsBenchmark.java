@@ -0,0 +1,86 @@
+package co.rsk.commons.benchmark;
+
+import co.rsk.commons.FastByteComparisons;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link FastByteComparisons}, eight bytes at a time with longs assembled from the bytes and
+ * a fast path for hashes and addresses, with a byte at a time loop and with longs read through a
+ * wrapping {@code ByteBuffer}. The keys are equal, so every byte is read.
+ * Run on a desktop JVM, e.g. {@code java -cp <test classpath> org.openjdk.jmh.Main FastByteComparisonsBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FastByteComparisonsBenchmark {
+
+    @Param({"20", "32", "128"})
+    private int size;
+
+    private byte[] key;
+    private byte[] equal;
+
+    @Setup
+    public void setup() {
+        key = new byte[size];
+        new Random(0).nextBytes(key);
+        equal = key.clone();
+    }
+
+    @Benchmark
+    public int words() {
+        return FastByteComparisons.compareTo(key, 0, size, equal, 0, size);
+    }
+
+    @Benchmark
+    public int bytes() {
+        for (int i = 0; i < size; i++) {
+            int a = key[i] & 0xff;
+            int b = equal[i] & 0xff;
+            if (a != b) {
+                return a - b;
+            }
+        }
+        return 0;
+    }
+
+    @Benchmark
+    public int bufferLongs() {
+        ByteBuffer left = ByteBuffer.wrap(key);
+        ByteBuffer right = ByteBuffer.wrap(equal);
+        int words = size & ~7;
+        for (int i = 0; i < words; i += 8) {
+            long a = left.getLong(i);
+            long b = right.getLong(i);
+            if (a != b) {
+                return (a ^ Long.MIN_VALUE) < (b ^ Long.MIN_VALUE) ? -1 : 1;
+            }
+        }
+        for (int i = words; i < size; i++) {
+            int a = key[i] & 0xff;
+            int b = equal[i] & 0xff;
+            if (a != b) {
+                return a - b;
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,82 @@
+package co.rsk.commons.benchmark;
+
+import co.rsk.commons.HexCodec;
+
+import org.bouncycastle.util.encoders.Hex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link HexCodec} with the BouncyCastle {@link Hex} and string operations it replaced, for an
+ * address and a typical {@code eth_call} result.
+ * Run on a desktop JVM, e.g. {@code java -cp <test classpath> org.openjdk.jmh.Main HexCodecBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HexCodecBenchmark {
+
+    @Param({"20", "256"})
+    private int size;
+
+    private byte[] data;
+    private String hex;
+    private byte[] out;
+
+    @Setup
+    public void setup() {
+        data = new byte[size];
+        new Random(0).nextBytes(data);
+        // odd length, as node results often are once leading zeroes are dropped
+        hex = "0x" + Hex.toHexString(data).substring(1);
+        out = new byte[size];
+    }
+
+    @Benchmark
+    public String encodeBouncyCastle() {
+        return "0x" + Hex.toHexString(data);
+    }
+
+    @Benchmark
+    public String encodeCodec() {
+        return HexCodec.encodeWithPrefix(data);
+    }
+
+    @Benchmark
+    public byte[] decodeBouncyCastle() {
+        String result = hex;
+        if (hex.startsWith("0x")) {
+            result = hex.substring(2);
+        }
+        if (result.length() % 2 != 0) {
+            result = "0" + result;
+        }
+        return Hex.decode(result);
+    }
+
+    @Benchmark
+    public byte[] decodeCodec() {
+        return HexCodec.decode(hex);
+    }
+
+    @Benchmark
+    public byte[] decodeCodecIntoArray() {
+        HexCodec.decode(hex, out, 0);
+        return out;
+    }
+}
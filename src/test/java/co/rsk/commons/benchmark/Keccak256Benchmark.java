@@ -0,0 +1,67 @@
+package co.rsk.commons.benchmark;
+
+import co.rsk.commons.Keccak256;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.web3j.crypto.Hash;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link Keccak256} with web3j {@link Hash#sha3(byte[])} for the input sizes namehash uses.
+ * Run on a desktop JVM, e.g. {@code java -cp <test classpath> org.openjdk.jmh.Main Keccak256Benchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class Keccak256Benchmark {
+
+    private byte[] input32;
+    private byte[] input64;
+    private byte[] out;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(0);
+        input32 = new byte[32];
+        input64 = new byte[64];
+        random.nextBytes(input32);
+        random.nextBytes(input64);
+        out = new byte[Keccak256.DIGEST_LENGTH];
+    }
+
+    @Benchmark
+    public byte[] sha3Of32() {
+        return Hash.sha3(input32);
+    }
+
+    @Benchmark
+    public byte[] keccakOf32() {
+        Keccak256.hash32(input32, 0, out, 0);
+        return out;
+    }
+
+    @Benchmark
+    public byte[] sha3Of64() {
+        return Hash.sha3(input64);
+    }
+
+    @Benchmark
+    public byte[] keccakOf64() {
+        Keccak256.hash64(input64, 0, out, 0);
+        return out;
+    }
+}
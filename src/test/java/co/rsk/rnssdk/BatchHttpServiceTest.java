@@ -0,0 +1,75 @@
+package co.rsk.rnssdk;
+
+import org.junit.Test;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.methods.response.EthCall;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BatchHttpServiceTest {
+
+    @Test
+    public void testResponsesFollowRequestOrder() throws IOException {
+        FakeBatchHttpService service = new FakeBatchHttpService();
+        List<Request<?, EthCall>> requests = new ArrayList<>();
+        requests.add(request(service));
+        requests.add(request(service));
+        long first = requests.get(0).getId();
+        long second = requests.get(1).getId();
+        service.response = "[{\"jsonrpc\":\"2.0\",\"id\":" + second + ",\"result\":\"0x02\"},"
+                + "{\"jsonrpc\":\"2.0\",\"id\":" + first + ",\"result\":\"0x01\"}]";
+
+        List<EthCall> responses = service.sendBatch(requests, EthCall.class);
+
+        assertTrue(service.payload.startsWith("["));
+        assertEquals(2, responses.size());
+        assertEquals("0x01", responses.get(0).getValue());
+        assertEquals("0x02", responses.get(1).getValue());
+    }
+
+    @Test
+    public void testEmptyBatchDoesNotCallTheNode() throws IOException {
+        FakeBatchHttpService service = new FakeBatchHttpService();
+        List<EthCall> responses = service.sendBatch(Collections.<Request<?, EthCall>>emptyList(), EthCall.class);
+        assertTrue(responses.isEmpty());
+        assertEquals(null, service.payload);
+    }
+
+    @Test
+    public void testNodeWithoutBatchSupport() {
+        FakeBatchHttpService service = new FakeBatchHttpService();
+        service.response = "{\"jsonrpc\":\"2.0\",\"id\":null,\"error\":{\"code\":-32600,\"message\":\"Invalid request\"}}";
+        try {
+            service.sendBatch(Collections.singletonList(request(service)), EthCall.class);
+            fail("An exception should rise");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("batch"));
+        }
+    }
+
+    private static Request<?, EthCall> request(FakeBatchHttpService service) {
+        return new Request<>("eth_call", Arrays.asList("0x00", "latest"), service, EthCall.class);
+    }
+
+    private static class FakeBatchHttpService extends BatchHttpService {
+        private String payload;
+        private String response;
+
+        @Override
+        protected InputStream performIO(String request) {
+            payload = request;
+            return new ByteArrayInputStream(response.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package co.rsk.rnssdk;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class BoundedCacheTest {
+
+    @Test
+    public void testGetAndPut() {
+        BoundedCache<String, String> cache = new BoundedCache<>(2, EvictionPolicy.LRU);
+        cache.put("foo.rsk", "0x01");
+        assertEquals("0x01", cache.get("foo.rsk"));
+        cache.put("foo.rsk", "0x02");
+        assertEquals("0x02", cache.get("foo.rsk"));
+        assertEquals(1, cache.size());
+        assertNull(cache.get("bar.rsk"));
+    }
+
+    @Test
+    public void testFifoEvictsOldest() {
+        BoundedCache<String, String> cache = new BoundedCache<>(2, EvictionPolicy.FIFO);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.get("a");
+        cache.put("c", "3");
+        assertEquals(2, cache.size());
+        assertNull(cache.get("a"));
+        assertEquals("2", cache.get("b"));
+        assertEquals("3", cache.get("c"));
+    }
+
+    @Test
+    public void testLruKeepsRecentlyRead() {
+        BoundedCache<String, String> cache = new BoundedCache<>(2, EvictionPolicy.LRU);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.get("a");
+        cache.put("c", "3");
+        assertEquals(2, cache.size());
+        assertEquals("1", cache.get("a"));
+        assertNull(cache.get("b"));
+    }
+
+    @Test
+    public void testRemoveAndReinsert() {
+        BoundedCache<String, String> cache = new BoundedCache<>(2, EvictionPolicy.FIFO);
+        cache.put("a", "1");
+        cache.remove("a");
+        assertNull(cache.get("a"));
+        cache.put("b", "2");
+        cache.put("a", "1");
+        cache.put("c", "3");
+        assertNull(cache.get("b"));
+        assertEquals("1", cache.get("a"));
+    }
+
+    @Test
+    public void testRemovedEntriesDoNotPileUpInTheQueue() {
+        ManualClock clock = new ManualClock();
+        BoundedCache<String, String> cache = new BoundedCache<>(4, EvictionPolicy.LRU, clock);
+        for (int i = 0; i < 10000; i++) {
+            cache.put("a", "1");
+            cache.remove("a");
+            cache.put("b", "2", clock.now + 1);
+            clock.now++;
+            assertNull(cache.get("b"));
+            assertTrue(cache.queuedEntries() <= 2 * 4 + 1);
+        }
+        cache.put("c", "3");
+        assertEquals("3", cache.get("c"));
+    }
+
+    @Test
+    public void testUpdateReplacesValueAndExpiration() {
+        ManualClock clock = new ManualClock();
+        BoundedCache<String, String> cache = new BoundedCache<>(2, EvictionPolicy.LRU, clock);
+        cache.put("a", "1", 1000);
+        cache.put("a", "2", 3000);
+        assertEquals(3000, cache.expiresAt("a"));
+        clock.now = 2000;
+        assertEquals("2", cache.get("a"));
+        assertEquals(1, cache.queuedEntries());
+    }
+
+    @Test
+    public void testExpiredEntriesAreNotServed() {
+        ManualClock clock = new ManualClock();
+        BoundedCache<String, String> cache = new BoundedCache<>(2, EvictionPolicy.LRU, clock);
+        cache.put("a", "1", 1000);
+        cache.put("b", "2");
+        clock.now = 999;
+        assertEquals("1", cache.get("a"));
+        clock.now = 1000;
+        assertNull(cache.get("a"));
+        assertEquals(1, cache.size());
+        assertEquals("2", cache.get("b"));
+    }
+
+    @Test
+    public void testExpiredEntriesAreServedWithinGrace() {
+        ManualClock clock = new ManualClock();
+        BoundedCache<String, String> cache = new BoundedCache<>(2, EvictionPolicy.LRU, clock);
+        cache.put("a", "1", 1000);
+        clock.now = 1499;
+        assertEquals("1", cache.get("a", 500));
+        assertEquals(1000, cache.expiresAt("a"));
+        clock.now = 1500;
+        assertNull(cache.get("a", 500));
+        assertEquals(-1, cache.expiresAt("a"));
+    }
+
+    @Test
+    public void testPutIfAbsentKeepsTheCachedValue() {
+        BoundedCache<String, String> cache = new BoundedCache<>(10, EvictionPolicy.LRU);
+        assertNull(cache.putIfAbsent("a", "1"));
+        assertEquals("1", cache.putIfAbsent("a", "2"));
+        assertEquals("1", cache.get("a"));
+    }
+
+    @Test
+    public void testConcurrentAccessKeepsBound() throws InterruptedException {
+        final BoundedCache<Integer, Integer> cache = new BoundedCache<>(100, EvictionPolicy.LRU);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            final int seed = t;
+            Thread thread = new Thread(() -> {
+                try {
+                    for (int i = 0; i < 10000; i++) {
+                        int key = (i * 31 + seed) % 1000;
+                        cache.put(key, key);
+                        Integer value = cache.get(key);
+                        if (value != null && value != key) {
+                            throw new AssertionError("Wrong value for " + key);
+                        }
+                    }
+                } catch (Throwable e) {
+                    failure.set(e);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertNull(failure.get());
+        assertTrue(cache.size() <= 100);
+    }
+
+    private static class ManualClock implements Clock {
+        private long now;
+
+        @Override
+        public long millis() {
+            return now;
+        }
+    }
+}
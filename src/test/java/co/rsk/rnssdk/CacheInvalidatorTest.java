@@ -0,0 +1,226 @@
+package co.rsk.rnssdk;
+
+import org.bouncycastle.util.encoders.Hex;
+import org.junit.Test;
+import org.web3j.abi.EventEncoder;
+import org.web3j.crypto.Hash;
+import org.web3j.ens.NameHash;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.methods.request.EthFilter;
+import org.web3j.protocol.core.methods.request.Filter;
+import org.web3j.protocol.core.methods.response.Log;
+import org.web3j.protocol.http.HttpService;
+import org.web3j.tx.ClientTransactionManager;
+import org.web3j.tx.gas.DefaultGasProvider;
+import org.web3j.utils.Numeric;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import co.rsk.rnssdk.contracts.AbstractMultiChainResolver;
+import co.rsk.rnssdk.contracts.RNS;
+
+import io.reactivex.disposables.Disposable;
+import io.reactivex.disposables.Disposables;
+import io.reactivex.processors.PublishProcessor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CacheInvalidatorTest {
+
+    @Test
+    public void testNewOwnerEvictsTheSubnode() {
+        RecordingResolver resolver = new RecordingResolver();
+        CacheInvalidator invalidator = new CacheInvalidator(resolver, 2);
+        byte[] label = Hash.sha3("foo".getBytes());
+
+        invalidator.onNewOwner(NameHash.nameHashAsBytes("rsk"), label);
+
+        assertEquals(Arrays.asList("node:" + NameHash.nameHash("foo.rsk").substring(2)), resolver.evicted);
+    }
+
+    @Test
+    public void testNewResolverEvictsTheNode() {
+        RecordingResolver resolver = new RecordingResolver();
+        Log log = new Log();
+        log.setTopics(Arrays.asList(EventEncoder.encode(RNS.NEWRESOLVER_EVENT), NameHash.nameHash("foo.rsk")));
+
+        new CacheInvalidator(resolver, 2).onLog(log);
+
+        assertEquals(Arrays.asList("node:" + NameHash.nameHash("foo.rsk").substring(2)), resolver.evicted);
+    }
+
+    @Test
+    public void testResolverLogEvictsOnlyAddresses() {
+        RecordingResolver resolver = new RecordingResolver();
+        Log log = new Log();
+        log.setTopics(Arrays.asList(EventEncoder.encode(AbstractMultiChainResolver.ADDRCHANGED_EVENT),
+                NameHash.nameHash("foo.rsk")));
+
+        new CacheInvalidator(resolver, 2).onLog(log);
+
+        assertEquals(Arrays.asList("addresses:" + NameHash.nameHash("foo.rsk").substring(2)), resolver.evicted);
+    }
+
+    @Test
+    public void testNewOwnerLogEvictsTheSubnode() {
+        RecordingResolver resolver = new RecordingResolver();
+        Log log = new Log();
+        log.setTopics(Arrays.asList(EventEncoder.encode(RNS.NEWOWNER_EVENT),
+                NameHash.nameHash("rsk"), Numeric.toHexString(Hash.sha3("foo".getBytes()))));
+
+        new CacheInvalidator(resolver, 2).onLog(log);
+
+        assertEquals(Arrays.asList("node:" + NameHash.nameHash("foo.rsk").substring(2)), resolver.evicted);
+    }
+
+    @Test
+    public void testWatchlistIsShardedInFilters() {
+        CacheInvalidator invalidator = new CacheInvalidator(new RecordingResolver(), 2);
+        for (String name : new String[]{"a.rsk", "b.rsk", "c.rsk"}) {
+            invalidator.watch(NameHash.nameHashAsBytes(name), NameHash.nameHashAsBytes("rsk"),
+                    Hash.sha3(name.substring(0, 1).getBytes()));
+        }
+
+        List<EthFilter> filters = invalidator.filtersForWatchlist();
+
+        // registry, owners and resolvers filters for each of the two shards
+        assertEquals(6, filters.size());
+        int nodes = 0;
+        for (int i = 0; i < filters.size(); i += 3) {
+            nodes += ((Filter.ListTopic) filters.get(i).getTopics().get(1)).getValue().size();
+        }
+        assertEquals(3, nodes);
+    }
+
+    @Test
+    public void testFollowsOnlyWatchedNodes() {
+        CacheInvalidator invalidator = new CacheInvalidator(new RecordingResolver(), 2);
+        assertTrue(invalidator.follows(NameHash.nameHashAsBytes("b.rsk")));
+
+        invalidator.watch(NameHash.nameHashAsBytes("a.rsk"), NameHash.nameHashAsBytes("rsk"), Hash.sha3("a".getBytes()));
+
+        assertTrue(invalidator.follows(NameHash.nameHashAsBytes("a.rsk")));
+        assertFalse(invalidator.follows(NameHash.nameHashAsBytes("b.rsk")));
+    }
+
+    @Test
+    public void testCachesAreClearedOnlyAfterAnError() {
+        RecordingResolver resolver = new RecordingResolver();
+        CacheInvalidator invalidator = new CacheInvalidator(resolver, 2);
+        PublishProcessor<byte[]> events = PublishProcessor.create();
+        Disposable subscription = invalidator.watch(events, resolver::evictNode);
+        assertEquals(0, resolver.clears);
+
+        events.onNext(NameHash.nameHashAsBytes("foo.rsk"));
+        events.onError(new RuntimeException("filter not found"));
+
+        assertEquals(1, resolver.clears);
+        assertEquals(1, resolver.evicted.size());
+        subscription.dispose();
+    }
+
+    @Test
+    public void testOnlyChangedShardsAreResubscribed() {
+        RecordingResolver resolver = new RecordingResolver();
+        SubscriptionCountingInvalidator invalidator = new SubscriptionCountingInvalidator(resolver);
+        watch(invalidator, "a.rsk", "b.rsk", "c.rsk");
+        invalidator.start(resolver.web3, RNS.load(RnsResolver.EMPTY_ADDRESS, resolver.web3,
+                new ClientTransactionManager(resolver.web3, null), new DefaultGasProvider()));
+        // registry, owners and resolvers filters for each of the two shards
+        assertEquals(6, invalidator.subscribed);
+        assertEquals(3, resolver.evicted.size());
+
+        watch(invalidator, "d.rsk");
+        invalidator.refresh();
+        assertEquals(9, invalidator.subscribed);
+        assertEquals(3, invalidator.disposed);
+        // the nodes of the resubscribed shard, c.rsk and d.rsk
+        assertEquals(5, resolver.evicted.size());
+
+        invalidator.unwatch(NameHash.nameHashAsBytes("a.rsk"));
+        invalidator.refresh();
+        assertEquals(12, invalidator.subscribed);
+        assertEquals(6, invalidator.disposed);
+        assertEquals(6, resolver.evicted.size());
+
+        invalidator.refresh();
+        assertEquals(12, invalidator.subscribed);
+        assertEquals(6, resolver.evicted.size());
+        assertEquals(0, resolver.clears);
+    }
+
+    @Test
+    public void testFirstWatchedNameClearsTheCaches() {
+        RecordingResolver resolver = new RecordingResolver();
+        SubscriptionCountingInvalidator invalidator = new SubscriptionCountingInvalidator(resolver);
+        invalidator.start(resolver.web3, RNS.load(RnsResolver.EMPTY_ADDRESS, resolver.web3,
+                new ClientTransactionManager(resolver.web3, null), new DefaultGasProvider()));
+        // registry and resolvers filters for every name
+        assertEquals(2, invalidator.subscribed);
+
+        watch(invalidator, "a.rsk");
+        invalidator.refresh();
+        assertEquals(2, invalidator.disposed);
+        assertEquals(1, resolver.clears);
+
+        watch(invalidator, "b.rsk");
+        invalidator.refresh();
+        assertEquals(1, resolver.clears);
+    }
+
+    private static void watch(CacheInvalidator invalidator, String... names) {
+        for (String name : names) {
+            invalidator.watch(NameHash.nameHashAsBytes(name), NameHash.nameHashAsBytes("rsk"),
+                    Hash.sha3(name.substring(0, 1).getBytes()));
+        }
+    }
+
+    private static class SubscriptionCountingInvalidator extends CacheInvalidator {
+        private int subscribed;
+        private int disposed;
+
+        SubscriptionCountingInvalidator(RnsResolver resolver) {
+            super(resolver, 2);
+        }
+
+        @Override
+        Disposable subscribe(EthFilter filter) {
+            subscribed++;
+            return Disposables.fromAction(() -> disposed++);
+        }
+    }
+
+    private static class RecordingResolver extends RnsResolver {
+        private final Web3j web3;
+        private final List<String> evicted = new ArrayList<>();
+        private int clears;
+
+        RecordingResolver() {
+            this(Web3j.build(new HttpService("http://localhost:1")));
+        }
+
+        private RecordingResolver(Web3j web3) {
+            super(web3, RnsResolver.EMPTY_ADDRESS, RnsResolver.EMPTY_ADDRESS);
+            this.web3 = web3;
+        }
+
+        @Override
+        void evictNode(byte[] node) {
+            evicted.add("node:" + Hex.toHexString(node));
+        }
+
+        @Override
+        void evictAddresses(byte[] node) {
+            evicted.add("addresses:" + Hex.toHexString(node));
+        }
+
+        @Override
+        void clearCaches() {
+            clears++;
+        }
+    }
+}
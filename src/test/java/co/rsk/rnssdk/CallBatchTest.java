@@ -0,0 +1,94 @@
+package co.rsk.rnssdk;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import org.junit.Test;
+import org.web3j.protocol.Web3j;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CallBatchTest {
+
+    private static final String CONTRACT = "0x1234567890123456789012345678901234567890";
+    private static final String RESOLVER = "0x000000000000000000000000abcdefabcdefabcdefabcdefabcdefabcdefabcd";
+
+    @Test
+    public void testFailedCallsOnlyFailTheirOwnResult() throws IOException {
+        ScriptedBatchHttpService service = new ScriptedBatchHttpService(
+                "\"result\":\"" + RESOLVER + "\"",
+                "\"error\":{\"code\":-32000,\"message\":\"execution reverted\"}",
+                "\"result\":\"0x\"");
+        CallBatch batch = new CallBatch(Web3j.build(service), service, 10);
+        byte[] node = new byte[32];
+        int resolver = batch.add(CONTRACT, ResolverCalls.resolver(node));
+        int reverted = batch.add(CONTRACT, ResolverCalls.addr(node));
+        int empty = batch.add(CONTRACT, ResolverCalls.addr(node));
+
+        CallBatch.Results results = batch.send();
+
+        assertEquals("0xabcdefabcdefabcdefabcdefabcdefabcdefabcd", results.<String>get(resolver));
+        try {
+            results.get(reverted);
+            fail("An exception should rise");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("execution reverted"));
+        }
+        try {
+            results.get(empty);
+            fail("An exception should rise");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("Empty value"));
+        }
+    }
+
+    @Test
+    public void testCallsAreSplitInBatches() throws IOException {
+        ScriptedBatchHttpService service = new ScriptedBatchHttpService(
+                "\"result\":\"" + RESOLVER + "\"",
+                "\"result\":\"" + RESOLVER + "\"",
+                "\"result\":\"" + RESOLVER + "\"");
+        CallBatch batch = new CallBatch(Web3j.build(service), service, 2);
+        for (int i = 0; i < 3; i++) {
+            batch.add(CONTRACT, ResolverCalls.resolver(new byte[32]));
+        }
+
+        CallBatch.Results results = batch.send();
+
+        assertEquals(2, service.batches);
+        assertEquals("0xabcdefabcdefabcdefabcdefabcdefabcdefabcd", results.<String>get(2));
+    }
+
+    /**
+     * Answers the n-th request it receives with the n-th scripted response body.
+     */
+    private static class ScriptedBatchHttpService extends BatchHttpService {
+        private final List<String> responses;
+        private int answered;
+        private int batches;
+
+        ScriptedBatchHttpService(String... responses) {
+            this.responses = Arrays.asList(responses);
+        }
+
+        @Override
+        protected InputStream performIO(String request) throws IOException {
+            batches++;
+            List<String> items = new ArrayList<>();
+            for (JsonNode item : objectMapper.readTree(request)) {
+                items.add("{\"jsonrpc\":\"2.0\",\"id\":" + item.get("id").asLong() + "," + responses.get(answered++) + "}");
+            }
+            String response = "[" + String.join(",", items) + "]";
+            return new ByteArrayInputStream(response.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package co.rsk.rnssdk;
+
+import org.junit.Test;
+import org.web3j.protocol.Web3j;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class ContractRegistryTest {
+
+    private static final String RESOLVER = "0xabcdefabcdefabcdefabcdefabcdefabcdefabcd";
+    private static final String OTHER_RESOLVER = "0x3333333333333333333333333333333333333333";
+    private static final String THIRD_RESOLVER = "0x4444444444444444444444444444444444444444";
+    private static final String SENDER = "0x5555555555555555555555555555555555555555";
+
+    private final Web3j web3 = Web3j.build(new FakeNodeService("0x1111111111111111111111111111111111111111"));
+
+    @Test
+    public void testWrappersAreReusedPerResolverAndSender() {
+        ContractRegistry registry = new ContractRegistry(web3, 10, EvictionPolicy.LRU);
+        AbstractResolverResult contracts = registry.resolverContracts(RESOLVER, SENDER);
+
+        assertSame(contracts, registry.resolverContracts(RESOLVER, SENDER));
+        assertSame(contracts, registry.resolverContracts(RESOLVER.toUpperCase().replace("0X", "0x"), SENDER));
+        assertNotSame(contracts, registry.resolverContracts(RESOLVER, null));
+        assertNotSame(contracts, registry.resolverContracts(OTHER_RESOLVER, SENDER));
+        assertSame(registry.resolverContracts(RESOLVER, null), registry.resolverContracts(RESOLVER, null));
+        assertEquals(SENDER, contracts.getClientTransactionManager().getFromAddress());
+        assertEquals(RESOLVER, contracts.getResolverAddress());
+    }
+
+    @Test
+    public void testWrappersAreBounded() {
+        ContractRegistry registry = new ContractRegistry(web3, 2, EvictionPolicy.LRU);
+        AbstractResolverResult first = registry.resolverContracts(RESOLVER, SENDER);
+        AbstractResolverResult second = registry.resolverContracts(OTHER_RESOLVER, SENDER);
+
+        registry.resolverContracts(THIRD_RESOLVER, SENDER);
+
+        assertSame(second, registry.resolverContracts(OTHER_RESOLVER, SENDER));
+        assertNotSame(first, registry.resolverContracts(RESOLVER, SENDER));
+    }
+}
@@ -0,0 +1,174 @@
+package co.rsk.rnssdk;
+
+import org.bouncycastle.util.encoders.Hex;
+import org.web3j.abi.TypeEncoder;
+import org.web3j.abi.datatypes.Address;
+import org.web3j.abi.datatypes.Bool;
+import org.web3j.abi.datatypes.Utf8String;
+import org.web3j.abi.datatypes.generated.Bytes32;
+import org.web3j.abi.datatypes.generated.Uint64;
+import org.web3j.crypto.Hash;
+import org.web3j.protocol.Web3jService;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+import org.web3j.protocol.core.methods.request.Transaction;
+import org.web3j.protocol.core.methods.response.EthCall;
+import org.web3j.protocol.core.methods.response.EthGetTransactionReceipt;
+import org.web3j.protocol.core.methods.response.EthSendTransaction;
+import org.web3j.protocol.core.methods.response.TransactionReceipt;
+import org.web3j.protocol.websocket.events.Notification;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.reactivex.Flowable;
+import java8.util.concurrent.CompletableFuture;
+
+/**
+ * Serves the registry and resolver calls of {@link RnsResolver} from maps, keyed by the hex of
+ * the node. Transactions are mined at once and only setContent changes the records. Calls are
+ * counted by function name, and the functions named in {@link #failing} fail.
+ */
+class FakeNodeService implements Web3jService {
+
+    private static final String TRANSACTION_HASH = "0x" + Hex.toHexString(new byte[32]);
+
+    final String registry;
+    // node to resolver and owner, in the registry
+    final Map<String, String> resolvers = new ConcurrentHashMap<>();
+    final Map<String, String> owners = new ConcurrentHashMap<>();
+    // resolver address to the interface ids it supports
+    final Map<String, Set<String>> interfaces = new ConcurrentHashMap<>();
+    // resolver address and node to the records
+    final Map<String, String> addrs = new ConcurrentHashMap<>();
+    final Map<String, String> chainAddrs = new ConcurrentHashMap<>();
+    final Map<String, byte[]> contents = new ConcurrentHashMap<>();
+    final Set<String> failing = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    private final ConcurrentHashMap<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+    private final Map<String, String> functions = new HashMap<>();
+
+    FakeNodeService(String registry) {
+        this.registry = registry;
+        for (String signature : new String[]{"resolver(bytes32)", "ttl(bytes32)", "owner(bytes32)",
+                "supportsInterface(bytes4)", "addr(bytes32)", "chainAddr(bytes32,bytes4)", "content(bytes32)",
+                "setContent(bytes32,bytes32)"}) {
+            functions.put(Hash.sha3String(signature).substring(0, 10), signature.substring(0, signature.indexOf('(')));
+        }
+    }
+
+    void supports(String resolver, String... interfaceIds) {
+        Set<String> supported = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+        Collections.addAll(supported, interfaceIds);
+        interfaces.put(resolver.toLowerCase(), supported);
+    }
+
+    static String key(String resolver, byte[] node) {
+        return resolver.toLowerCase() + ":" + Hex.toHexString(node);
+    }
+
+    int calls(String function) {
+        AtomicInteger count = calls.get(function);
+        return count == null ? 0 : count.get();
+    }
+
+    // Web3jService declares its methods with the raw Request and Response
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public <T extends Response> T send(Request request, Class<T> responseType) throws IOException {
+        if (request.getMethod().equals("eth_call")) {
+            EthCall response = new EthCall();
+            response.setResult("0x" + call((Transaction) request.getParams().get(0)));
+            return (T) response;
+        }
+        if (request.getMethod().equals("eth_sendTransaction")) {
+            call((Transaction) request.getParams().get(0));
+            EthSendTransaction response = new EthSendTransaction();
+            response.setResult(TRANSACTION_HASH);
+            return (T) response;
+        }
+        if (request.getMethod().equals("eth_getTransactionReceipt")) {
+            TransactionReceipt receipt = new TransactionReceipt();
+            receipt.setTransactionHash(TRANSACTION_HASH);
+            receipt.setStatus("0x1");
+            receipt.setGasUsed("0x0");
+            EthGetTransactionReceipt response = new EthGetTransactionReceipt();
+            response.setResult(receipt);
+            return (T) response;
+        }
+        throw new IOException("Unsupported " + request.getMethod());
+    }
+
+    private String call(Transaction transaction) throws IOException {
+        String data = transaction.getData();
+        String function = functions.get(data.substring(0, 10));
+        if (function == null) {
+            throw new IOException("Unsupported call " + data.substring(0, 10));
+        }
+        calls.putIfAbsent(function, new AtomicInteger());
+        calls.get(function).incrementAndGet();
+        if (failing.contains(function)) {
+            throw new IOException(function + " failed");
+        }
+        String contract = transaction.getTo().toLowerCase();
+        String node = data.substring(10, 74);
+        if (contract.equals(registry.toLowerCase())) {
+            if (function.equals("resolver")) {
+                return address(resolvers.get(node));
+            } else if (function.equals("owner")) {
+                return address(owners.get(node));
+            } else if (function.equals("ttl")) {
+                return TypeEncoder.encode(new Uint64(0));
+            }
+            throw new IOException("Unsupported registry call " + function);
+        }
+        String record = contract + ":" + node;
+        if (function.equals("supportsInterface")) {
+            Set<String> supported = interfaces.get(contract);
+            return TypeEncoder.encode(new Bool(supported != null && supported.contains(data.substring(10, 18))));
+        } else if (function.equals("addr")) {
+            return address(addrs.get(record));
+        } else if (function.equals("chainAddr")) {
+            String address = chainAddrs.get(record + ":" + data.substring(74, 82));
+            // a dynamic value is the offset of its contents followed by them
+            return TypeEncoder.encode(new Uint64(32)) + TypeEncoder.encode(new Utf8String(address == null ? "" : address));
+        } else if (function.equals("content")) {
+            byte[] content = contents.get(record);
+            return TypeEncoder.encode(new Bytes32(content == null ? new byte[32] : content));
+        } else if (function.equals("setContent")) {
+            contents.put(record, Hex.decode(data.substring(74, 138)));
+            return "";
+        }
+        throw new IOException("Unsupported resolver call " + function);
+    }
+
+    private static String address(String address) {
+        return TypeEncoder.encode(new Address(address == null ? RnsResolver.EMPTY_ADDRESS : address));
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public <T extends Response> CompletableFuture<T> sendAsync(Request request, Class<T> responseType) {
+        try {
+            return CompletableFuture.completedFuture(send(request, responseType));
+        } catch (IOException e) {
+            CompletableFuture<T> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public <T extends Notification<?>> Flowable<T> subscribe(Request request, String unsubscribeMethod, Class<T> responseType) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void close() {
+    }
+}
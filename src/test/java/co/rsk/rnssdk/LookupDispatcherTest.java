@@ -0,0 +1,112 @@
+package co.rsk.rnssdk;
+
+import org.bouncycastle.util.encoders.Hex;
+import org.junit.Test;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.http.HttpService;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import java8.util.concurrent.CompletableFuture;
+import java8.util.concurrent.CompletionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class LookupDispatcherTest {
+
+    @Test
+    public void testLookupsInTheSameWindowAreBatched() {
+        RecordingResolver resolver = new RecordingResolver();
+        LookupDispatcher dispatcher = new LookupDispatcher(resolver, 50, 100);
+        CompletableFuture<String> foo = dispatcher.submit("foo.rsk", RnsResolver.RSK_CHAIN_ID);
+        CompletableFuture<String> bar = dispatcher.submit("bar.rsk", RnsResolver.RSK_CHAIN_ID);
+        CompletableFuture<String> other = dispatcher.submit("foo.rsk", new byte[]{0x12, 0x34, 0x56, 0x78});
+
+        assertEquals("foo.rsk@80000089", foo.join());
+        assertEquals("bar.rsk@80000089", bar.join());
+        assertEquals("foo.rsk@12345678", other.join());
+        assertEquals(2, resolver.batches.size());
+        assertEquals(2, resolver.batches.get(0).size());
+        dispatcher.shutdown();
+    }
+
+    @Test
+    public void testFullBatchIsSentBeforeTheWindowEnds() {
+        RecordingResolver resolver = new RecordingResolver();
+        LookupDispatcher dispatcher = new LookupDispatcher(resolver, 60000, 2);
+        CompletableFuture<String> foo = dispatcher.submit("foo.rsk", RnsResolver.RSK_CHAIN_ID);
+        CompletableFuture<String> bar = dispatcher.submit("bar.rsk", RnsResolver.RSK_CHAIN_ID);
+
+        assertEquals("foo.rsk@80000089", foo.join());
+        assertEquals("bar.rsk@80000089", bar.join());
+        assertEquals(1, resolver.batches.size());
+        dispatcher.shutdown();
+    }
+
+    @Test
+    public void testShutdownFailsPendingLookups() {
+        RecordingResolver resolver = new RecordingResolver();
+        LookupDispatcher dispatcher = new LookupDispatcher(resolver, 60000, 100);
+        CompletableFuture<String> foo = dispatcher.submit("foo.rsk", RnsResolver.RSK_CHAIN_ID);
+        dispatcher.shutdown();
+        assertTrue(foo.isCompletedExceptionally());
+    }
+
+    @Test
+    public void testFailedNamesOnlyFailTheirOwnLookup() {
+        RecordingResolver resolver = new RecordingResolver();
+        LookupDispatcher dispatcher = new LookupDispatcher(resolver, 50, 100);
+        CompletableFuture<String> foo = dispatcher.submit("foo.rsk", RnsResolver.RSK_CHAIN_ID);
+        CompletableFuture<String> failing = dispatcher.submit("fail.rsk", RnsResolver.RSK_CHAIN_ID);
+
+        assertEquals("foo.rsk@80000089", foo.join());
+        try {
+            failing.join();
+            fail("An exception should rise");
+        } catch (CompletionException e) {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+        dispatcher.shutdown();
+    }
+
+    @Test
+    public void testSubmitAfterShutdownFails() {
+        RecordingResolver resolver = new RecordingResolver();
+        LookupDispatcher dispatcher = new LookupDispatcher(resolver, 60000, 1);
+        dispatcher.shutdown();
+        CompletableFuture<String> foo = dispatcher.submit("foo.rsk", RnsResolver.RSK_CHAIN_ID);
+        assertTrue(foo.isCompletedExceptionally());
+        assertTrue(resolver.batches.isEmpty());
+    }
+
+    private static class RecordingResolver extends RnsResolver {
+        private final List<List<String>> batches = new ArrayList<>();
+
+        private RecordingResolver() {
+            super(Web3j.build(new HttpService()), RnsResolver.EMPTY_ADDRESS, RnsResolver.EMPTY_ADDRESS);
+        }
+
+        @Override
+        synchronized Map<String, CompletableFuture<String>> lookupAddresses(Collection<String> names, byte[] chainId) {
+            batches.add(new ArrayList<>(names));
+            Map<String, CompletableFuture<String>> result = new LinkedHashMap<>();
+            for (String name : names) {
+                CompletableFuture<String> address = new CompletableFuture<>();
+                if (name.startsWith("fail.")) {
+                    address.completeExceptionally(new IOException("execution reverted"));
+                } else {
+                    address.complete(name + "@" + Hex.toHexString(chainId));
+                }
+                result.put(name, address);
+            }
+            return result;
+        }
+    }
+}
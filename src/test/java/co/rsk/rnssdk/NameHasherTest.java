@@ -0,0 +1,53 @@
+package co.rsk.rnssdk;
+
+import org.junit.Test;
+import org.web3j.ens.NameHash;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class NameHasherTest {
+
+    @Test
+    public void testMatchesWeb3jNameHash() {
+        NameHasher hasher = new NameHasher(16, EvictionPolicy.LRU);
+        String[] names = { "rsk", "foo.rsk", "a.b.rsk", "FOO.rsk", "a.b.", "", "subdomain.testing.rsk" };
+        for (String name : names) {
+            assertArrayEquals(name, NameHash.nameHashAsBytes(name), hasher.nameHash(name));
+        }
+    }
+
+    @Test
+    public void testRepeatedCallsReturnCachedNode() {
+        NameHasher hasher = new NameHasher(16, EvictionPolicy.LRU);
+        byte[] node = hasher.nameHash("foo.rsk");
+        assertSame(node, hasher.nameHash("foo.rsk"));
+    }
+
+    @Test
+    public void testNormalisedNamesShareNode() {
+        NameHasher hasher = new NameHasher(16, EvictionPolicy.LRU);
+        byte[] node = hasher.nameHash("foo.rsk");
+        assertSame(node, hasher.nameHash("FOO.rsk"));
+    }
+
+    @Test
+    public void testSubdomainReusesParentNode() {
+        NameHasher hasher = new NameHasher(16, EvictionPolicy.LRU);
+        byte[] child = hasher.nameHash("a.foo.rsk");
+        assertArrayEquals(NameHash.nameHashAsBytes("foo.rsk"), hasher.nameHash("foo.rsk"));
+        assertArrayEquals(NameHash.nameHashAsBytes("a.foo.rsk"), child);
+    }
+
+    @Test
+    public void testForgetKeepsParentNodes() {
+        NameHasher hasher = new NameHasher(16, EvictionPolicy.LRU);
+        byte[] parent = hasher.nameHash("foo.rsk");
+        byte[] child = hasher.nameHash("A.foo.rsk");
+        hasher.forget("A.foo.rsk");
+        assertNotSame(child, hasher.nameHash("a.foo.rsk"));
+        assertArrayEquals(child, hasher.nameHash("A.foo.rsk"));
+        assertSame(parent, hasher.nameHash("foo.rsk"));
+    }
+}
@@ -0,0 +1,68 @@
+package co.rsk.rnssdk;
+
+import org.bouncycastle.util.encoders.Hex;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class NegativeCacheTest {
+
+    private static final byte[] FOO = Hex.decode("0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f");
+    private static final byte[] BAR = Hex.decode("baaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa");
+    private static final byte[] BAZ = Hex.decode("bbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbb");
+
+    @Test
+    public void testOutcomesExpireAfterTheirTtl() {
+        ManualClock clock = new ManualClock();
+        NegativeCache cache = new NegativeCache(10, 30, clock);
+        cache.put(FOO, NegativeCache.OWNER, NegativeCache.Outcome.NO_OWNER);
+        clock.now = 29999;
+        assertEquals(NegativeCache.Outcome.NO_OWNER, cache.get(FOO, NegativeCache.OWNER));
+        clock.now = 30000;
+        assertNull(cache.get(FOO, NegativeCache.OWNER));
+    }
+
+    @Test
+    public void testOldestNodesAreEvicted() {
+        NegativeCache cache = new NegativeCache(2, 30, new ManualClock());
+        cache.put(FOO, "80000089", NegativeCache.Outcome.EMPTY_RECORD);
+        cache.put(FOO, NegativeCache.OWNER, NegativeCache.Outcome.NO_OWNER);
+        cache.put(BAR, "80000089", NegativeCache.Outcome.NO_RESOLVER);
+        assertEquals(3, cache.size());
+        cache.put(BAZ, "80000089", NegativeCache.Outcome.NO_RESOLVER);
+        assertNull(cache.get(FOO, "80000089"));
+        assertNull(cache.get(FOO, NegativeCache.OWNER));
+        assertEquals(NegativeCache.Outcome.NO_RESOLVER, cache.get(BAR, "80000089"));
+    }
+
+    @Test
+    public void testEvictDropsEveryOutcomeOfTheNode() {
+        NegativeCache cache = new NegativeCache(10, 30, new ManualClock());
+        cache.put(FOO, "80000089", NegativeCache.Outcome.EMPTY_RECORD);
+        cache.put(FOO, NegativeCache.OWNER, NegativeCache.Outcome.NO_OWNER);
+        cache.put(BAR, NegativeCache.OWNER, NegativeCache.Outcome.NO_OWNER);
+        cache.evict(FOO);
+        assertEquals(1, cache.size());
+        assertEquals(NegativeCache.Outcome.NO_OWNER, cache.get(BAR, NegativeCache.OWNER));
+    }
+
+    @Test
+    public void testRemembersTheAnswer() {
+        NegativeCache cache = new NegativeCache(10, 30, new ManualClock());
+        cache.put(FOO, "80000089", NegativeCache.Outcome.NO_RESOLVER, "");
+        cache.put(BAR, "80000089", NegativeCache.Outcome.EMPTY_RECORD, RnsResolver.EMPTY_ADDRESS);
+        assertEquals("", cache.answer(FOO, "80000089"));
+        assertEquals(RnsResolver.EMPTY_ADDRESS, cache.answer(BAR, "80000089"));
+        assertNull(cache.answer(FOO, NegativeCache.OWNER));
+    }
+
+    private static class ManualClock implements Clock {
+        private long now;
+
+        @Override
+        public long millis() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package co.rsk.rnssdk;
+
+import org.bouncycastle.util.encoders.Hex;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class NodeCacheTest {
+
+    private static final byte[] FOO = Hex.decode("0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f0f");
+    private static final byte[] BAR = Hex.decode("baaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa");
+
+    @Test
+    public void testRemoveDropsEveryEntryOfTheNode() {
+        NodeCache<String> cache = new NodeCache<>(10, EvictionPolicy.LRU);
+        cache.put(FOO, "80000089", "1");
+        cache.put(FOO, "12345678", "2");
+        cache.put(BAR, "80000089", "3");
+        cache.remove(FOO);
+        assertNull(cache.get(FOO, "80000089"));
+        assertNull(cache.get(FOO, "12345678"));
+        assertEquals("3", cache.get(BAR, "80000089"));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testRetainKeepsOneKind() {
+        NodeCache<String> cache = new NodeCache<>(10, EvictionPolicy.LRU);
+        cache.put(FOO, "resolver", "1");
+        cache.put(FOO, "80000089", "2");
+        cache.retain(FOO, "resolver");
+        assertEquals("1", cache.get(FOO, "resolver"));
+        assertNull(cache.get(FOO, "80000089"));
+    }
+
+    @Test
+    public void testEntriesExpireOnTheirOwn() {
+        ManualClock clock = new ManualClock();
+        NodeCache<String> cache = new NodeCache<>(10, EvictionPolicy.LRU, clock);
+        cache.put(FOO, "80000089", "1", 1000);
+        cache.put(FOO, "12345678", "2", 2000);
+        clock.now = 1000;
+        assertEquals("1", cache.get(FOO, "80000089", 1));
+        assertNull(cache.get(FOO, "80000089"));
+        assertEquals("2", cache.get(FOO, "12345678"));
+        assertEquals(2000, cache.expiresAt(FOO, "12345678"));
+    }
+
+    @Test
+    public void testBoundIsOnNodes() {
+        NodeCache<String> cache = new NodeCache<>(1, EvictionPolicy.FIFO);
+        cache.put(FOO, "80000089", "1");
+        cache.put(FOO, "12345678", "2");
+        assertEquals(1, cache.nodes());
+        assertEquals(2, cache.size());
+        cache.put(BAR, "80000089", "3");
+        assertEquals(1, cache.nodes());
+        assertNull(cache.get(FOO, "80000089"));
+        assertEquals("3", cache.get(BAR, "80000089"));
+    }
+
+    private static class ManualClock implements Clock {
+        private long now;
+
+        @Override
+        public long millis() {
+            return now;
+        }
+    }
+}
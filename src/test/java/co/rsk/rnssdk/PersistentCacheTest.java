@@ -0,0 +1,165 @@
+package co.rsk.rnssdk;
+
+import org.bouncycastle.util.encoders.Hex;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.web3j.ens.NameHash;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class PersistentCacheTest {
+
+    private static final byte[] FOO = NameHash.nameHashAsBytes("foo.rsk");
+    private static final byte[] BAR = NameHash.nameHashAsBytes("bar.rsk");
+    private static final byte[] RSK = Hex.decode("80000089");
+    private static final String RESOLVER = "0x4efd25e3d348f8f25a14fb7655fba6f72edfe93a";
+    private static final String ADDRESS = "0x1111111111111111111111111111111111111111";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final ManualClock clock = new ManualClock();
+
+    @Test
+    public void testEntriesSurviveARestart() throws IOException {
+        File file = new File(folder.getRoot(), "rns.cache");
+        PersistentCache cache = open(file);
+        cache.putResolver(FOO, RESOLVER, 1000);
+        cache.putAddress(FOO, RSK, ADDRESS, 1000);
+        cache.close();
+
+        PersistentCache restarted = open(file);
+        assertEquals(RESOLVER, restarted.resolver(FOO).value);
+        assertEquals(1000, restarted.resolver(FOO).expiresAt);
+        assertEquals(ADDRESS, restarted.address(FOO, RSK).value);
+        assertNull(restarted.resolver(BAR));
+    }
+
+    @Test
+    public void testExpiredEntriesAreNotServed() throws IOException {
+        File file = new File(folder.getRoot(), "rns.cache");
+        PersistentCache cache = open(file);
+        cache.putResolver(FOO, RESOLVER, 1000);
+        cache.close();
+
+        clock.now = 1000;
+        assertNull(open(file).resolver(FOO));
+    }
+
+    @Test
+    public void testEvictionsArePersisted() throws IOException {
+        File file = new File(folder.getRoot(), "rns.cache");
+        PersistentCache cache = open(file);
+        cache.putResolver(FOO, RESOLVER, 1000);
+        cache.putAddress(FOO, RSK, ADDRESS, 1000);
+        cache.putAddress(BAR, RSK, ADDRESS, 1000);
+        cache.evictAddresses(BAR);
+        cache.evict(FOO);
+        cache.close();
+
+        PersistentCache restarted = open(file);
+        assertNull(restarted.resolver(FOO));
+        assertNull(restarted.address(FOO, RSK));
+        assertNull(restarted.address(BAR, RSK));
+    }
+
+    @Test
+    public void testAddressEvictionsKeepTheResolver() throws IOException {
+        File file = new File(folder.getRoot(), "rns.cache");
+        PersistentCache cache = open(file);
+        cache.putResolver(FOO, RESOLVER, 1000);
+        cache.putAddress(FOO, RSK, ADDRESS, 1000);
+        cache.putAddress(FOO, Hex.decode("80000000"), ADDRESS, 1000);
+        cache.evictAddresses(FOO);
+        assertEquals(RESOLVER, cache.resolver(FOO).value);
+        assertNull(cache.address(FOO, RSK));
+        cache.close();
+
+        PersistentCache restarted = open(file);
+        assertEquals(RESOLVER, restarted.resolver(FOO).value);
+        assertNull(restarted.address(FOO, Hex.decode("80000000")));
+    }
+
+    @Test
+    public void testTornWriteIsDropped() throws IOException {
+        File file = new File(folder.getRoot(), "rns.cache");
+        PersistentCache cache = open(file);
+        cache.putResolver(FOO, RESOLVER, 1000);
+        cache.putResolver(BAR, RESOLVER, 1000);
+        cache.close();
+        RandomAccessFile raw = new RandomAccessFile(file, "rw");
+        raw.setLength(raw.length() - 5);
+        raw.close();
+
+        PersistentCache restarted = open(file);
+        assertEquals(RESOLVER, restarted.resolver(FOO).value);
+        assertNull(restarted.resolver(BAR));
+        restarted.putResolver(BAR, RESOLVER, 1000);
+        restarted.close();
+
+        assertEquals(RESOLVER, open(file).resolver(BAR).value);
+    }
+
+    @Test
+    public void testGarbageIsCompacted() throws IOException {
+        File file = new File(folder.getRoot(), "rns.cache");
+        PersistentCache cache = open(file);
+        for (int i = 0; i < 100; i++) {
+            cache.putResolver(FOO, RESOLVER, 1000 + i);
+        }
+        cache.close();
+        long before = file.length();
+
+        PersistentCache restarted = open(file);
+        assertEquals(1099, restarted.resolver(FOO).expiresAt);
+        restarted.close();
+        assertTrue(file.length() < before / 10);
+    }
+
+    @Test
+    public void testMemoryIsBounded() throws IOException {
+        File file = new File(folder.getRoot(), "rns.cache");
+        PersistentCache cache = new PersistentCache(file, 2, EvictionPolicy.FIFO, clock);
+        cache.putResolver(FOO, RESOLVER, 1000);
+        cache.putResolver(BAR, RESOLVER, 1000);
+        cache.putResolver(NameHash.nameHashAsBytes("baz.rsk"), RESOLVER, 1000);
+        assertNull(cache.resolver(FOO));
+        assertEquals(RESOLVER, cache.resolver(BAR).value);
+        cache.close();
+    }
+
+    @Test
+    public void testGarbageIsCompactedWhileRunning() throws IOException {
+        File file = new File(folder.getRoot(), "rns.cache");
+        PersistentCache cache = open(file);
+        int puts = 10 * PersistentCache.MIN_COMPACTED_RECORDS;
+        for (int i = 0; i < puts; i++) {
+            cache.putResolver(FOO, RESOLVER, 1000 + i);
+        }
+        cache.close();
+
+        // one resolver record is 85 bytes
+        assertTrue(file.length() < 85L * 2 * PersistentCache.MIN_COMPACTED_RECORDS);
+        assertEquals(1000 + puts - 1, open(file).resolver(FOO).expiresAt);
+    }
+
+    private PersistentCache open(File file) {
+        return new PersistentCache(file, 100, EvictionPolicy.LRU, clock);
+    }
+
+    private static class ManualClock implements Clock {
+        private long now;
+
+        @Override
+        public long millis() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package co.rsk.rnssdk;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RefresherTest {
+
+    @Test
+    public void testOneRefreshPerKey() {
+        QueueExecutor executor = new QueueExecutor();
+        Refresher refresher = new Refresher(executor, 10);
+        AtomicInteger runs = new AtomicInteger();
+        assertTrue(refresher.refresh("foo.rsk", runs::incrementAndGet));
+        assertFalse(refresher.refresh("foo.rsk", runs::incrementAndGet));
+        assertTrue(refresher.refresh("bar.rsk", runs::incrementAndGet));
+        executor.runAll();
+        assertEquals(2, runs.get());
+        assertTrue(refresher.refresh("foo.rsk", runs::incrementAndGet));
+    }
+
+    @Test
+    public void testConcurrentRefreshesAreBounded() {
+        QueueExecutor executor = new QueueExecutor();
+        Refresher refresher = new Refresher(executor, 1);
+        assertTrue(refresher.refresh("foo.rsk", () -> { }));
+        assertFalse(refresher.refresh("bar.rsk", () -> { }));
+        executor.runAll();
+        assertTrue(refresher.refresh("bar.rsk", () -> { }));
+    }
+
+    @Test
+    public void testRejectedRefreshReleasesTheKey() {
+        final AtomicInteger attempts = new AtomicInteger();
+        Refresher refresher = new Refresher(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                attempts.incrementAndGet();
+                throw new RejectedExecutionException();
+            }
+        }, 1);
+        assertFalse(refresher.refresh("foo.rsk", () -> { }));
+        assertFalse(refresher.refresh("foo.rsk", () -> { }));
+        assertEquals(2, attempts.get());
+    }
+
+    @Test
+    public void testFailedRefreshReleasesTheKey() {
+        QueueExecutor executor = new QueueExecutor();
+        Refresher refresher = new Refresher(executor, 1);
+        refresher.refresh("foo.rsk", () -> {
+            throw new IllegalStateException("node down");
+        });
+        try {
+            executor.runAll();
+        } catch (IllegalStateException expected) {
+            // the executor sees the failure
+        }
+        assertTrue(refresher.refresh("foo.rsk", () -> { }));
+    }
+
+    private static class QueueExecutor implements Executor {
+        private final List<Runnable> queue = new ArrayList<>();
+
+        @Override
+        public void execute(Runnable command) {
+            queue.add(command);
+        }
+
+        private void runAll() {
+            List<Runnable> tasks = new ArrayList<>(queue);
+            queue.clear();
+            for (Runnable task : tasks) {
+                task.run();
+            }
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package co.rsk.rnssdk;
+
+import org.bouncycastle.util.encoders.Hex;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.web3j.ens.NameHash;
+import org.web3j.protocol.Web3j;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+
+import java8.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RnsResolverAsyncTest {
+
+    private static final String REGISTRY = "0x1111111111111111111111111111111111111111";
+    private static final String DEFAULT_RESOLVER = "0x2222222222222222222222222222222222222222";
+    private static final String RESOLVER = "0x3333333333333333333333333333333333333333";
+    private static final String OWNER = "0x4444444444444444444444444444444444444444";
+    private static final String ADDRESS = "0x5555555555555555555555555555555555555555";
+    private static final String DEFAULT_ADDRESS = "0x6666666666666666666666666666666666666666";
+    private static final String RSK_CHAIN = "80000089";
+    private static final byte[] FOO = NameHash.nameHashAsBytes("foo.rsk");
+
+    private FakeNodeService service;
+    private RnsResolver resolver;
+
+    @Before
+    public void setUp() {
+        service = new FakeNodeService(REGISTRY);
+        service.supports(RESOLVER, Hex.toHexString(RnsResolver.CHAIN_ADDR_INTERFACE));
+        service.supports(DEFAULT_RESOLVER, Hex.toHexString(RnsResolver.ADDR_INTERFACE));
+        service.chainAddrs.put(FakeNodeService.key(RESOLVER, FOO) + ":" + RSK_CHAIN, ADDRESS);
+        service.addrs.put(FakeNodeService.key(DEFAULT_RESOLVER, FOO), DEFAULT_ADDRESS);
+        resolver = new RnsResolver(Web3j.build(service), DEFAULT_RESOLVER, REGISTRY,
+                new RnsResolverConfig().setTtlCacheEnabled(true));
+    }
+
+    @After
+    public void tearDown() {
+        resolver.shutdown();
+    }
+
+    @Test
+    public void testGetAddressAsyncReadsTheRecord() throws Exception {
+        service.resolvers.put(Hex.toHexString(FOO), RESOLVER);
+
+        assertEquals(ADDRESS, resolver.getAddressAsync("foo.rsk").get());
+    }
+
+    @Test
+    public void testUnregisteredNamesAreAnsweredByTheDefaultResolver() throws Exception {
+        assertEquals(DEFAULT_ADDRESS, resolver.getAddressAsync("foo.rsk").get());
+    }
+
+    @Test
+    public void testFailedRegistryReadFailsTheFuture() throws Exception {
+        service.resolvers.put(Hex.toHexString(FOO), RESOLVER);
+        service.failing.add("resolver");
+
+        assertFailed(resolver.getAddressAsync("foo.rsk"));
+        assertFailed(resolver.contentAsync("foo.rsk"));
+        assertFailed(resolver.setContentAsync("foo.rsk", new byte[32], OWNER));
+
+        service.failing.remove("resolver");
+        assertEquals(ADDRESS, resolver.getAddressAsync("foo.rsk").get());
+    }
+
+    @Test
+    public void testBlockingLookupsFallBackWithoutCachingWhenTheRegistryFails() throws Exception {
+        service.resolvers.put(Hex.toHexString(FOO), RESOLVER);
+        service.failing.add("resolver");
+
+        assertEquals(DEFAULT_ADDRESS, resolver.getAddress("foo.rsk"));
+
+        service.failing.remove("resolver");
+        assertEquals(ADDRESS, resolver.getAddress("foo.rsk"));
+    }
+
+    @Test
+    public void testGetOwnerAsync() throws Exception {
+        service.owners.put(Hex.toHexString(FOO), OWNER);
+
+        assertEquals(OWNER, resolver.getOwnerAsync("foo.rsk").get());
+
+        service.failing.add("owner");
+        assertFailed(resolver.getOwnerAsync("foo.rsk"));
+    }
+
+    @Test
+    public void testSetContentAsyncThenContentAsync() throws Exception {
+        service.resolvers.put(Hex.toHexString(FOO), RESOLVER);
+        byte[] hash = NameHash.nameHashAsBytes("content");
+
+        resolver.setContentAsync("foo.rsk", hash, OWNER).get();
+
+        assertArrayEquals(hash, service.contents.get(FakeNodeService.key(RESOLVER, FOO)));
+        assertArrayEquals(hash, resolver.contentAsync("foo.rsk").get());
+
+        service.failing.add("content");
+        assertFailed(resolver.contentAsync("foo.rsk"));
+    }
+
+    private static void assertFailed(CompletableFuture<?> future) throws InterruptedException {
+        try {
+            future.get();
+            fail("An exception should rise");
+        } catch (ExecutionException e) {
+            assertTrue(String.valueOf(e.getCause()), e.getCause() instanceof IOException);
+        }
+    }
+}
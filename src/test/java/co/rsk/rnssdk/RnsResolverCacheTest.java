@@ -0,0 +1,80 @@
+package co.rsk.rnssdk;
+
+import org.bouncycastle.util.encoders.Hex;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.web3j.ens.NameHash;
+import org.web3j.protocol.Web3j;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class RnsResolverCacheTest {
+
+    private static final String REGISTRY = "0x1111111111111111111111111111111111111111";
+    private static final String DEFAULT_RESOLVER = "0x2222222222222222222222222222222222222222";
+    private static final String RESOLVER = "0xabcdefabcdefabcdefabcdefabcdefabcdefabcd";
+    private static final String OTHER_RESOLVER = "0x3333333333333333333333333333333333333333";
+    private static final String ADDRESS = "0x5555555555555555555555555555555555555555";
+    private static final byte[] FOO = NameHash.nameHashAsBytes("foo.rsk");
+    private static final byte[] BAR = NameHash.nameHashAsBytes("bar.rsk");
+    private static final byte[] BAZ = NameHash.nameHashAsBytes("baz.rsk");
+
+    private FakeNodeService service;
+    private RnsResolver resolver;
+
+    @Before
+    public void setUp() {
+        service = new FakeNodeService(REGISTRY);
+        // without the multi chain interface both probes are made
+        service.supports(RESOLVER, Hex.toHexString(RnsResolver.ADDR_INTERFACE));
+        service.supports(OTHER_RESOLVER, Hex.toHexString(RnsResolver.ADDR_INTERFACE));
+        service.resolvers.put(Hex.toHexString(FOO), RESOLVER);
+        service.resolvers.put(Hex.toHexString(BAR), RESOLVER.toUpperCase().replace("0X", "0x"));
+        service.resolvers.put(Hex.toHexString(BAZ), OTHER_RESOLVER);
+        for (byte[] node : new byte[][]{FOO, BAR, BAZ}) {
+            service.addrs.put(FakeNodeService.key(RESOLVER, node), ADDRESS);
+            service.addrs.put(FakeNodeService.key(OTHER_RESOLVER, node), ADDRESS);
+        }
+        resolver = new RnsResolver(Web3j.build(service), DEFAULT_RESOLVER, REGISTRY);
+    }
+
+    @After
+    public void tearDown() {
+        resolver.shutdown();
+    }
+
+    @Test
+    public void testCapabilitiesAreProbedOncePerResolver() throws Exception {
+        assertEquals(ADDRESS, resolver.getAddress("foo.rsk"));
+        assertEquals(2, service.calls("supportsInterface"));
+
+        assertEquals(ADDRESS, resolver.getAddress("foo.rsk"));
+        assertEquals(ADDRESS, resolver.getAddress("bar.rsk"));
+        assertEquals(ADDRESS, resolver.getAddressAsync("bar.rsk").get());
+        assertEquals(2, service.calls("supportsInterface"));
+
+        assertEquals(ADDRESS, resolver.getAddress("baz.rsk"));
+        assertEquals(4, service.calls("supportsInterface"));
+    }
+
+    @Test
+    public void testFailedProbesAreNotCached() throws Exception {
+        service.failing.add("supportsInterface");
+        try {
+            resolver.getAddress("foo.rsk");
+            fail("An exception should rise");
+        } catch (IOException e) {
+            assertEquals(1, service.calls("supportsInterface"));
+        }
+
+        service.failing.remove("supportsInterface");
+        assertEquals(ADDRESS, resolver.getAddress("foo.rsk"));
+        assertEquals(3, service.calls("supportsInterface"));
+        assertEquals(ADDRESS, resolver.getAddress("foo.rsk"));
+        assertEquals(3, service.calls("supportsInterface"));
+    }
+}
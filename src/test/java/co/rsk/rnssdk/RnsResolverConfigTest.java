@@ -0,0 +1,28 @@
+package co.rsk.rnssdk;
+
+import org.junit.Test;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.http.HttpService;
+
+import static org.junit.Assert.fail;
+
+public class RnsResolverConfigTest {
+
+    private static final String RESOLVER = "0x1111111111111111111111111111111111111111";
+    private static final String REGISTRY = "0x2222222222222222222222222222222222222222";
+
+    @Test
+    public void testRefreshModesNeedTheTtlCache() {
+        for (CacheMode mode : new CacheMode[]{CacheMode.STALE_WHILE_REVALIDATE, CacheMode.REFRESH_AHEAD}) {
+            try {
+                new RnsResolver(Web3j.build(new HttpService()), RESOLVER, REGISTRY,
+                        new RnsResolverConfig().setCacheMode(mode));
+                fail("An exception should rise");
+            } catch (IllegalStateException e) {
+                // the addresses would never expire, so they would never be refreshed
+            }
+            new RnsResolver(Web3j.build(new HttpService()), RESOLVER, REGISTRY,
+                    new RnsResolverConfig().setTtlCacheEnabled(true).setCacheMode(mode)).shutdown();
+        }
+    }
+}
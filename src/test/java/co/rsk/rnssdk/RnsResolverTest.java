@@ -18,7 +18,9 @@ import java.io.IOException;
 import java.math.BigInteger;
 import java.security.SecureRandom;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 import co.rsk.commons.FastByteComparisons;
 import co.rsk.rnssdk.contracts.MultiChainResolver;
@@ -276,6 +278,20 @@ public class RnsResolverTest {
         }
     }
 
+    @Test
+    public void testShouldResolveManyNames() {
+        try {
+            Map<String, String> result = resolver.getAddresses(
+                    Arrays.asList(fooName(RSK_TLD), fooName(RIF_TLD), "foo"), RnsResolver.RSK_CHAIN_ID);
+            assertEquals(3, result.size());
+            assertEquals(mainAccountAddress, result.get(fooName(RSK_TLD)));
+            assertEquals(alternateAccountAddress, result.get(fooName(RIF_TLD)));
+            assertEquals("0x0000000000000000000000000000000000000000", result.get("foo"));
+        } catch (Exception e) {
+            fail(e.getMessage());
+        }
+    }
+
     @Test
     public void testShouldImplementSupportsInterface() {
         try {
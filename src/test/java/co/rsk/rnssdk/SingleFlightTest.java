@@ -0,0 +1,90 @@
+package co.rsk.rnssdk;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import java8.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SingleFlightTest {
+
+    @Test
+    public void testConcurrentCallsShareOneExecution() throws InterruptedException {
+        final SingleFlight<String> flight = new SingleFlight<>();
+        final AtomicInteger executions = new AtomicInteger();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    String value = flight.execute("foo.rsk", () -> {
+                        executions.incrementAndGet();
+                        started.countDown();
+                        release.await();
+                        return "0x01";
+                    });
+                    assertEquals("0x01", value);
+                } catch (Throwable e) {
+                    failure.set(e);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        started.await();
+        // give the other threads time to join the running call
+        Thread.sleep(100);
+        release.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertNull(failure.get());
+        assertTrue(executions.get() < 8);
+        assertEquals(0, flight.inFlight());
+    }
+
+    @Test
+    public void testFailureIsSharedAndNotRemembered() throws Exception {
+        SingleFlight<String> flight = new SingleFlight<>();
+        try {
+            flight.execute("foo.rsk", () -> {
+                throw new IllegalStateException("Kboom");
+            });
+            fail("An exception should rise");
+        } catch (IllegalStateException e) {
+            assertEquals("Kboom", e.getMessage());
+        }
+        assertEquals("0x02", flight.execute("foo.rsk", () -> "0x02"));
+    }
+
+    @Test
+    public void testAsyncCallsShareOneExecution() {
+        SingleFlight<String> flight = new SingleFlight<>();
+        final AtomicInteger executions = new AtomicInteger();
+        final CompletableFuture<String> pending = new CompletableFuture<>();
+        CompletableFuture<String> first = flight.executeAsync("foo.rsk", () -> {
+            executions.incrementAndGet();
+            return pending;
+        });
+        CompletableFuture<String> second = flight.executeAsync("foo.rsk", () -> {
+            executions.incrementAndGet();
+            return CompletableFuture.completedFuture("0x02");
+        });
+        second.cancel(true);
+        pending.complete("0x01");
+        assertEquals("0x01", first.join());
+        assertEquals(1, executions.get());
+        assertEquals(0, flight.inFlight());
+    }
+}
@@ -0,0 +1,109 @@
+package co.rsk.rnssdk.indexer;
+
+import org.web3j.protocol.Web3jService;
+import org.web3j.protocol.core.DefaultBlockParameterNumber;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+import org.web3j.protocol.core.methods.request.EthFilter;
+import org.web3j.protocol.core.methods.request.Filter;
+import org.web3j.protocol.core.methods.response.EthBlockNumber;
+import org.web3j.protocol.core.methods.response.EthGetCode;
+import org.web3j.protocol.core.methods.response.EthLog;
+import org.web3j.protocol.core.methods.response.Log;
+import org.web3j.protocol.websocket.events.Notification;
+import org.web3j.utils.Numeric;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.reactivex.Flowable;
+import java8.util.concurrent.CompletableFuture;
+
+/**
+ * Serves eth_blockNumber and eth_getLogs from a list of logs, matching address, block range and
+ * the first topic of the filter, and eth_getCode with the same code for every contract and block.
+ */
+class FakeLogService implements Web3jService {
+
+    final List<Log> logs = new ArrayList<>();
+    final AtomicInteger getLogsCalls = new AtomicInteger();
+    long latestBlock;
+    // the code of every contract, in every block
+    String code = "0x";
+
+    Log add(Log log, long block, int index) {
+        log.setBlockNumber(Numeric.encodeQuantity(BigInteger.valueOf(block)));
+        log.setLogIndex(Numeric.encodeQuantity(BigInteger.valueOf(index)));
+        logs.add(log);
+        latestBlock = Math.max(latestBlock, block);
+        return log;
+    }
+
+    // Web3jService declares its methods with the raw Request and Response
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public <T extends Response> T send(Request request, Class<T> responseType) throws IOException {
+        if (request.getMethod().equals("eth_blockNumber")) {
+            EthBlockNumber response = new EthBlockNumber();
+            response.setResult(Numeric.encodeQuantity(BigInteger.valueOf(latestBlock)));
+            return (T) response;
+        }
+        if (request.getMethod().equals("eth_getCode")) {
+            EthGetCode response = new EthGetCode();
+            response.setResult(code);
+            return (T) response;
+        }
+        if (request.getMethod().equals("eth_getLogs")) {
+            getLogsCalls.incrementAndGet();
+            EthLog response = new EthLog();
+            response.setResult(new ArrayList<>(getLogs((EthFilter) request.getParams().get(0))));
+            return (T) response;
+        }
+        throw new IOException("Unsupported " + request.getMethod());
+    }
+
+    protected List<EthLog.LogObject> getLogs(EthFilter filter) throws IOException {
+        long from = ((DefaultBlockParameterNumber) filter.getFromBlock()).getBlockNumber().longValue();
+        long to = ((DefaultBlockParameterNumber) filter.getToBlock()).getBlockNumber().longValue();
+        List<?> topics = ((Filter.ListTopic) filter.getTopics().get(0)).getValue();
+        List<EthLog.LogObject> result = new ArrayList<>();
+        for (Log log : logs) {
+            long block = log.getBlockNumber().longValue();
+            boolean address = filter.getAddress().isEmpty() || filter.getAddress().contains(log.getAddress());
+            boolean topic = false;
+            for (Object candidate : topics) {
+                topic |= ((Filter.SingleTopic) candidate).getValue().equals(log.getTopics().get(0));
+            }
+            if (block >= from && block <= to && address && topic) {
+                result.add(new EthLog.LogObject(false, log.getLogIndexRaw(), null, null, null,
+                        log.getBlockNumberRaw(), log.getAddress(), log.getData(), null, log.getTopics()));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public <T extends Response> CompletableFuture<T> sendAsync(Request request, Class<T> responseType) {
+        try {
+            return CompletableFuture.completedFuture(send(request, responseType));
+        } catch (IOException e) {
+            CompletableFuture<T> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public <T extends Notification<?>> Flowable<T> subscribe(Request request, String unsubscribeMethod, Class<T> responseType) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,191 @@
+package co.rsk.rnssdk.indexer;
+
+import org.junit.Test;
+import org.web3j.abi.EventEncoder;
+import org.web3j.abi.datatypes.Address;
+import org.web3j.ens.NameHash;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.DefaultBlockParameter;
+import org.web3j.protocol.core.DefaultBlockParameterNumber;
+import org.web3j.protocol.core.methods.request.EthFilter;
+import org.web3j.protocol.core.methods.response.EthLog;
+import org.web3j.protocol.core.methods.response.Log;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import co.rsk.rnssdk.contracts.RNS;
+
+import static co.rsk.rnssdk.indexer.RegistryModelTest.log;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class LogBackfillTest {
+
+    private static final String REGISTRY = "0x99a12be4c89cbf6cfd11d1f2c029904a7b644368";
+    private static final String OWNER = "0x1111111111111111111111111111111111111111";
+
+    @Test
+    public void testRangesAreDeliveredInBlockOrder() throws IOException {
+        SlowService service = new SlowService();
+        for (int block = 0; block < 100; block += 3) {
+            service.add(transfer(), block, 0);
+        }
+        final List<Long> starts = new ArrayList<>();
+        final List<Long> blocks = new ArrayList<>();
+
+        new LogBackfill(Web3j.build(service)).setParallelism(4).setChunkBounds(7, 1, 7)
+                .run(0, 99, registryFilter(), new LogBackfill.Listener() {
+                    @Override
+                    public void onRange(long fromBlock, long toBlock, List<Log> logs) {
+                        starts.add(fromBlock);
+                        for (Log log : logs) {
+                            blocks.add(log.getBlockNumber().longValue());
+                        }
+                    }
+                });
+
+        assertEquals(34, blocks.size());
+        for (int i = 1; i < blocks.size(); i++) {
+            assertTrue(blocks.get(i - 1) < blocks.get(i));
+        }
+        assertEquals(0L, (long) starts.get(0));
+        assertTrue(service.maxConcurrent.get() > 1);
+        assertTrue(service.maxConcurrent.get() <= 4);
+    }
+
+    @Test
+    public void testChunksShrinkWhenTheNodeRejectsTheRange() throws IOException {
+        FakeLogService service = new FakeLogService() {
+            @Override
+            protected List<EthLog.LogObject> getLogs(EthFilter filter) throws IOException {
+                if (blocks(filter) > 10) {
+                    throw new IOException("query timeout exceeded");
+                }
+                return super.getLogs(filter);
+            }
+        };
+        service.add(transfer(), 3, 0);
+        service.add(transfer(), 999, 0);
+        final List<Log> received = new ArrayList<>();
+
+        new LogBackfill(Web3j.build(service)).setParallelism(2).setChunkBounds(1000, 1, 1000)
+                .run(0, 999, registryFilter(), collect(received));
+
+        assertEquals(2, received.size());
+    }
+
+    @Test
+    public void testRunsShareTheGivenExecutor() throws IOException {
+        FakeLogService service = new FakeLogService();
+        service.add(transfer(), 3, 0);
+        service.add(transfer(), 40, 0);
+        final List<Log> received = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            LogBackfill backfill = new LogBackfill(Web3j.build(service), executor).setParallelism(2).setChunkBounds(5, 1, 5);
+
+            backfill.run(0, 19, registryFilter(), collect(received));
+            backfill.run(20, 49, registryFilter(), collect(received));
+
+            assertEquals(2, received.size());
+            assertFalse(executor.isShutdown());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testChunksGrowWhenResponsesAreSparse() throws IOException {
+        FakeLogService service = new FakeLogService();
+        service.add(transfer(), 5000, 0);
+        final List<Log> received = new ArrayList<>();
+
+        new LogBackfill(Web3j.build(service)).setParallelism(1).setChunkBounds(10, 1, 10000)
+                .run(0, 9999, registryFilter(), collect(received));
+
+        assertEquals(1, received.size());
+        // 10, 20, 40 ... blocks per request instead of a thousand requests
+        assertTrue(service.getLogsCalls.get() < 20);
+    }
+
+    @Test
+    public void testSingleBlockFailuresAreRetriedThenThrown() {
+        FakeLogService service = new FakeLogService() {
+            @Override
+            protected List<EthLog.LogObject> getLogs(EthFilter filter) throws IOException {
+                throw new IOException("node down");
+            }
+        };
+
+        try {
+            new LogBackfill(Web3j.build(service)).setChunkBounds(1, 1, 1).run(0, 0, registryFilter(), collect(new ArrayList<Log>()));
+            fail();
+        } catch (IOException e) {
+            assertEquals(LogBackfill.MAX_ATTEMPTS, service.getLogsCalls.get());
+        }
+    }
+
+    private static Log transfer() {
+        return log(REGISTRY, RNS.TRANSFER_EVENT, Arrays.asList(NameHash.nameHash("foo.rsk")), new Address(OWNER));
+    }
+
+    private static long blocks(EthFilter filter) {
+        return number(filter.getToBlock()) - number(filter.getFromBlock()) + 1;
+    }
+
+    private static long number(DefaultBlockParameter block) {
+        return ((DefaultBlockParameterNumber) block).getBlockNumber().longValue();
+    }
+
+    private static LogBackfill.FilterFactory registryFilter() {
+        return new LogBackfill.FilterFactory() {
+            @Override
+            public List<EthFilter> filtersFor(long fromBlock, long toBlock) {
+                EthFilter filter = new EthFilter(DefaultBlockParameter.valueOf(BigInteger.valueOf(fromBlock)),
+                        DefaultBlockParameter.valueOf(BigInteger.valueOf(toBlock)), REGISTRY);
+                filter.addOptionalTopics(EventEncoder.encode(RNS.TRANSFER_EVENT));
+                return Arrays.asList(filter);
+            }
+        };
+    }
+
+    private static LogBackfill.Listener collect(final List<Log> received) {
+        return new LogBackfill.Listener() {
+            @Override
+            public void onRange(long fromBlock, long toBlock, List<Log> logs) {
+                received.addAll(logs);
+            }
+        };
+    }
+
+    private static class SlowService extends FakeLogService {
+        private final AtomicInteger concurrent = new AtomicInteger();
+        private final AtomicInteger maxConcurrent = new AtomicInteger();
+
+        @Override
+        protected List<EthLog.LogObject> getLogs(EthFilter filter) throws IOException {
+            int now = concurrent.incrementAndGet();
+            synchronized (maxConcurrent) {
+                maxConcurrent.set(Math.max(maxConcurrent.get(), now));
+            }
+            try {
+                // later chunks finish first
+                Thread.sleep(Math.max(1, 40 - number(filter.getFromBlock()) / 3));
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            } finally {
+                concurrent.decrementAndGet();
+            }
+            return super.getLogs(filter);
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package co.rsk.rnssdk.indexer;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.web3j.abi.datatypes.Address;
+import org.web3j.crypto.Hash;
+import org.web3j.ens.NameHash;
+import org.web3j.utils.Numeric;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import co.rsk.rnssdk.contracts.RNS;
+
+import static co.rsk.rnssdk.indexer.RegistryModelTest.log;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RegisteredNamesTest {
+
+    private static final String REGISTRY = "0x99a12be4c89cbf6cfd11d1f2c029904a7b644368";
+    private static final String OWNER = "0x2222222222222222222222222222222222222222";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testAddedNodesAreAlwaysFound() {
+        RegisteredNames names = new RegisteredNames(10000, 0.01);
+        Random random = new Random(1);
+        byte[][] nodes = randomNodes(random, 10000);
+        for (byte[] node : nodes) {
+            names.add(node);
+        }
+        for (byte[] node : nodes) {
+            assertTrue(names.mightContain(node));
+        }
+    }
+
+    @Test
+    public void testFalsePositiveRateIsCloseToTheConfiguredOne() {
+        RegisteredNames names = new RegisteredNames(10000, 0.01);
+        Random random = new Random(2);
+        for (byte[] node : randomNodes(random, 10000)) {
+            names.add(node);
+        }
+        int positives = 0;
+        for (byte[] node : randomNodes(random, 100000)) {
+            if (names.mightContain(node)) {
+                positives++;
+            }
+        }
+        assertTrue("false positives: " + positives, positives < 2000);
+        assertEquals(7, names.getHashCount());
+    }
+
+    @Test
+    public void testWriteAndRead() throws IOException {
+        RegisteredNames names = new RegisteredNames(100, 0.001);
+        byte[] foo = NameHash.nameHashAsBytes("foo.rsk");
+        names.add(foo);
+        File file = folder.newFile();
+
+        names.write(file);
+        RegisteredNames read = RegisteredNames.read(file);
+
+        assertEquals(names.getBitCount(), read.getBitCount());
+        assertEquals(names.getHashCount(), read.getHashCount());
+        assertTrue(read.mightContain(foo));
+        assertFalse(read.mightContain(NameHash.nameHashAsBytes("bar.rsk")));
+    }
+
+    @Test(expected = IOException.class)
+    public void testReadRejectsOtherFiles() throws IOException {
+        File file = folder.newFile();
+        RegistrySnapshot.write(new RegistryModel(), file);
+        RegisteredNames.read(file);
+    }
+
+    @Test
+    public void testModelAddsNewOwners() {
+        RegistryModel model = new RegistryModel();
+        assertTrue(model.mightBeRegistered(NameHash.nameHashAsBytes("bar.rsk")));
+
+        model.setRegisteredNames(new RegisteredNames(100, 0.001));
+        model.setFromDeployment(true);
+        model.setCaughtUp();
+        model.apply(log(REGISTRY, RNS.NEWOWNER_EVENT,
+                Arrays.asList(NameHash.nameHash("rsk"), Numeric.toHexString(Hash.sha3("foo".getBytes()))),
+                new Address(OWNER)), REGISTRY);
+
+        assertTrue(model.mightBeRegistered(NameHash.nameHashAsBytes("foo.rsk")));
+        assertFalse(model.mightBeRegistered(NameHash.nameHashAsBytes("bar.rsk")));
+    }
+
+    @Test
+    public void testFilterOfAModel() {
+        RegistryModel model = new RegistryModel();
+        model.apply(log(REGISTRY, RNS.NEWOWNER_EVENT,
+                Arrays.asList(NameHash.nameHash("rsk"), Numeric.toHexString(Hash.sha3("foo".getBytes()))),
+                new Address(OWNER)), REGISTRY);
+
+        RegisteredNames names = RegisteredNames.of(model, 0.001);
+
+        assertTrue(names.mightContain(NameHash.nameHashAsBytes("foo.rsk")));
+        assertFalse(names.mightContain(NameHash.nameHashAsBytes("bar.rsk")));
+        assertEquals(-1, names.getLastIndexedBlock());
+    }
+
+    @Test
+    public void testFilterFollowsTheBlocksOfItsModel() throws IOException {
+        RegistryModel model = new RegistryModel();
+        RegisteredNames names = new RegisteredNames(100, 0.001);
+        model.setRegisteredNames(names);
+        model.setLastIndexedBlock(50);
+        File file = folder.newFile();
+
+        names.write(file);
+
+        assertEquals(50, RegisteredNames.read(file).getLastIndexedBlock());
+    }
+
+    @Test
+    public void testModelRejectsAFilterOfEarlierBlocks() throws IOException {
+        RegistryModel indexed = new RegistryModel();
+        indexed.setLastIndexedBlock(50);
+        File snapshot = folder.newFile();
+        RegistrySnapshot.write(indexed, snapshot);
+        RegistryModel model = new RegistryModel(RegistrySnapshot.open(snapshot));
+        RegisteredNames earlier = new RegisteredNames(100, 0.001);
+        earlier.setLastIndexedBlock(49);
+
+        try {
+            model.setRegisteredNames(new RegisteredNames(100, 0.001));
+            fail();
+        } catch (IllegalArgumentException e) {
+            // a new filter lacks the names of the snapshot
+        }
+        try {
+            model.setRegisteredNames(earlier);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // the filter was written before the snapshot
+        }
+        assertNull(model.getRegisteredNames());
+
+        model.setRegisteredNames(RegisteredNames.of(model, 0.001));
+        assertEquals(50, model.getRegisteredNames().getLastIndexedBlock());
+    }
+
+    private static byte[][] randomNodes(Random random, int count) {
+        byte[][] nodes = new byte[count][32];
+        for (byte[] node : nodes) {
+            random.nextBytes(node);
+        }
+        return nodes;
+    }
+}
@@ -0,0 +1,107 @@
+package co.rsk.rnssdk.indexer;
+
+import org.junit.Test;
+import org.web3j.abi.datatypes.Address;
+import org.web3j.ens.NameHash;
+import org.web3j.protocol.Web3j;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import co.rsk.rnssdk.contracts.MultiChainResolver;
+import co.rsk.rnssdk.contracts.RNS;
+
+import static co.rsk.rnssdk.indexer.RegistryModelTest.log;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RegistryIndexerTest {
+
+    private static final String REGISTRY = "0x99a12be4c89cbf6cfd11d1f2c029904a7b644368";
+    private static final String RESOLVER = "0x4efd25e3d348f8f25a14fb7655fba6f72edfe93a";
+    private static final String FIRST = "0x1111111111111111111111111111111111111111";
+    private static final String SECOND = "0x2222222222222222222222222222222222222222";
+
+    @Test
+    public void testEventsAreAppliedInChainOrder() throws IOException {
+        FakeLogService service = new FakeLogService();
+        service.add(log(REGISTRY, RNS.NEWRESOLVER_EVENT, Arrays.asList(NameHash.nameHash("foo.rsk")), new Address(RESOLVER)), 10, 0);
+        // the resolver log comes first in the same block, the later one must win
+        service.add(log(RESOLVER, MultiChainResolver.ADDRCHANGED_EVENT, Arrays.asList(NameHash.nameHash("foo.rsk")), new Address(SECOND)), 12, 3);
+        service.add(log(RESOLVER, MultiChainResolver.ADDRCHANGED_EVENT, Arrays.asList(NameHash.nameHash("foo.rsk")), new Address(FIRST)), 12, 1);
+        Web3j web3 = Web3j.build(service);
+        RegistryIndexer indexer = new RegistryIndexer(web3, REGISTRY, new RegistryModel(), 0,
+                new LogBackfill(web3).setChunkBounds(5, 1, 5)).setConfirmations(0);
+
+        assertEquals(12, indexer.catchUp());
+
+        assertEquals(SECOND, indexer.getModel().getAddress(NameHash.nameHashAsBytes("foo.rsk"), new byte[]{(byte) 0x80, 0, 0, (byte) 0x89}));
+    }
+
+    @Test
+    public void testCatchUpContinuesFromTheLastIndexedBlock() throws IOException {
+        FakeLogService service = new FakeLogService();
+        service.add(log(REGISTRY, RNS.TRANSFER_EVENT, Arrays.asList(NameHash.nameHash("foo.rsk")), new Address(FIRST)), 3, 0);
+        RegistryIndexer indexer = new RegistryIndexer(Web3j.build(service), REGISTRY, new RegistryModel(), 0).setConfirmations(0);
+        indexer.catchUp();
+        assertEquals(FIRST, indexer.getModel().getOwner(NameHash.nameHashAsBytes("foo.rsk")));
+        assertNull(indexer.getModel().getOwner(NameHash.nameHashAsBytes("bar.rsk")));
+
+        service.add(log(REGISTRY, RNS.TRANSFER_EVENT, Arrays.asList(NameHash.nameHash("foo.rsk")), new Address(SECOND)), 8, 0);
+        int calls = service.getLogsCalls.get();
+        indexer.catchUp();
+
+        assertEquals(SECOND, indexer.getModel().getOwner(NameHash.nameHashAsBytes("foo.rsk")));
+        assertEquals(8, indexer.getModel().getLastIndexedBlock());
+        // one range of blocks 4 to 8, registry and resolver logs
+        assertEquals(calls + 2, service.getLogsCalls.get());
+    }
+
+    @Test
+    public void testUnconfirmedBlocksAreNotIndexed() throws IOException {
+        FakeLogService service = new FakeLogService();
+        service.add(log(REGISTRY, RNS.TRANSFER_EVENT, Arrays.asList(NameHash.nameHash("foo.rsk")), new Address(FIRST)), 3, 0);
+        service.add(log(REGISTRY, RNS.TRANSFER_EVENT, Arrays.asList(NameHash.nameHash("foo.rsk")), new Address(SECOND)), 8, 0);
+        RegistryIndexer indexer = new RegistryIndexer(Web3j.build(service), REGISTRY, new RegistryModel(), 0).setConfirmations(2);
+
+        assertEquals(6, indexer.catchUp());
+        assertEquals(FIRST, indexer.getModel().getOwner(NameHash.nameHashAsBytes("foo.rsk")));
+
+        service.latestBlock = 10;
+        assertEquals(8, indexer.catchUp());
+        assertEquals(SECOND, indexer.getModel().getOwner(NameHash.nameHashAsBytes("foo.rsk")));
+    }
+
+    @Test
+    public void testRegisteredNamesAreTrustedAfterCatchingUpFromDeployment() throws IOException {
+        FakeLogService service = new FakeLogService();
+        service.add(log(REGISTRY, RNS.TRANSFER_EVENT, Arrays.asList(NameHash.nameHash("foo.rsk")), new Address(FIRST)), 3, 0);
+        RegistryModel model = new RegistryModel();
+        model.setRegisteredNames(new RegisteredNames(100, 0.001));
+        RegistryIndexer indexer = new RegistryIndexer(Web3j.build(service), REGISTRY, model, 0).setConfirmations(0);
+        assertTrue(model.mightBeRegistered(NameHash.nameHashAsBytes("bar.rsk")));
+
+        indexer.catchUp();
+
+        assertTrue(model.isFromDeployment());
+        assertFalse(model.mightBeRegistered(NameHash.nameHashAsBytes("bar.rsk")));
+    }
+
+    @Test
+    public void testRegisteredNamesAreNotTrustedWhenStartingAfterDeployment() throws IOException {
+        FakeLogService service = new FakeLogService();
+        service.add(log(REGISTRY, RNS.TRANSFER_EVENT, Arrays.asList(NameHash.nameHash("foo.rsk")), new Address(FIRST)), 3, 0);
+        service.code = "0x6080604052";
+        RegistryModel model = new RegistryModel();
+        model.setRegisteredNames(new RegisteredNames(100, 0.001));
+        RegistryIndexer indexer = new RegistryIndexer(Web3j.build(service), REGISTRY, model, 2).setConfirmations(0);
+
+        indexer.catchUp();
+
+        assertTrue(model.isCaughtUp());
+        assertFalse(model.isFromDeployment());
+        assertTrue(model.mightBeRegistered(NameHash.nameHashAsBytes("bar.rsk")));
+    }
+}
@@ -0,0 +1,127 @@
+package co.rsk.rnssdk.indexer;
+
+import org.bouncycastle.util.encoders.Hex;
+import org.junit.Test;
+import org.web3j.abi.EventEncoder;
+import org.web3j.abi.FunctionEncoder;
+import org.web3j.abi.datatypes.Address;
+import org.web3j.abi.datatypes.Event;
+import org.web3j.abi.datatypes.Type;
+import org.web3j.abi.datatypes.Utf8String;
+import org.web3j.abi.datatypes.generated.Bytes32;
+import org.web3j.abi.datatypes.generated.Bytes4;
+import org.web3j.abi.datatypes.generated.Uint64;
+import org.web3j.crypto.Hash;
+import org.web3j.ens.NameHash;
+import org.web3j.protocol.core.methods.response.Log;
+import org.web3j.utils.Numeric;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import co.rsk.rnssdk.contracts.MultiChainResolver;
+import co.rsk.rnssdk.contracts.RNS;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class RegistryModelTest {
+
+    private static final String REGISTRY = "0x99a12be4c89cbf6cfd11d1f2c029904a7b644368";
+    private static final String RESOLVER = "0x4efd25e3d348f8f25a14fb7655fba6f72edfe93a";
+    private static final String OTHER_RESOLVER = "0x1111111111111111111111111111111111111111";
+    private static final String OWNER = "0x2222222222222222222222222222222222222222";
+    private static final byte[] RSK_CHAIN_ID = Hex.decode("80000089");
+
+    @Test
+    public void testNewOwnerSetsTheOwnerOfTheSubnode() {
+        RegistryModel model = new RegistryModel();
+        model.apply(log(REGISTRY, RNS.NEWOWNER_EVENT,
+                Arrays.asList(NameHash.nameHash("rsk"), Numeric.toHexString(Hash.sha3("foo".getBytes()))),
+                new Address(OWNER)), REGISTRY);
+
+        assertEquals(OWNER, model.getOwner(NameHash.nameHashAsBytes("foo.rsk")));
+        assertNull(model.getOwner(NameHash.nameHashAsBytes("rsk")));
+    }
+
+    @Test
+    public void testTransferAndTtl() {
+        RegistryModel model = new RegistryModel();
+        model.apply(log(REGISTRY, RNS.TRANSFER_EVENT, node("foo.rsk"), new Address(OWNER)), REGISTRY);
+        model.apply(log(REGISTRY, RNS.NEWTTL_EVENT, node("foo.rsk"), new Uint64(300)), REGISTRY);
+
+        assertEquals(OWNER, model.getOwner(NameHash.nameHashAsBytes("foo.rsk")));
+        assertEquals(BigInteger.valueOf(300), model.getTtl(NameHash.nameHashAsBytes("foo.rsk")));
+    }
+
+    @Test
+    public void testAddressesComeFromTheCurrentResolver() {
+        RegistryModel model = new RegistryModel();
+        byte[] foo = NameHash.nameHashAsBytes("foo.rsk");
+        model.apply(log(RESOLVER, MultiChainResolver.ADDRCHANGED_EVENT, node("foo.rsk"), new Address(OWNER)), REGISTRY);
+        assertNull(model.getAddress(foo, RSK_CHAIN_ID));
+
+        model.apply(log(REGISTRY, RNS.NEWRESOLVER_EVENT, node("foo.rsk"), new Address(RESOLVER)), REGISTRY);
+        assertEquals(OWNER, model.getAddress(foo, RSK_CHAIN_ID));
+
+        model.apply(log(REGISTRY, RNS.NEWRESOLVER_EVENT, node("foo.rsk"), new Address(OTHER_RESOLVER)), REGISTRY);
+        assertNull(model.getAddress(foo, RSK_CHAIN_ID));
+    }
+
+    @Test
+    public void testResolverAddressesAreComparedWithoutCase() {
+        RegistryModel model = new RegistryModel();
+        byte[] foo = NameHash.nameHashAsBytes("foo.rsk");
+        model.apply(log(REGISTRY, RNS.NEWRESOLVER_EVENT, node("foo.rsk"), new Address(RESOLVER)), REGISTRY);
+        model.apply(log(RESOLVER.toUpperCase().replace("0X", "0x"), MultiChainResolver.ADDRCHANGED_EVENT, node("foo.rsk"),
+                new Address(OWNER)), REGISTRY);
+
+        assertEquals(RESOLVER, model.getResolver(foo));
+        assertEquals(OWNER, model.getAddress(foo, RSK_CHAIN_ID));
+    }
+
+    @Test
+    public void testChainAddresses() {
+        RegistryModel model = new RegistryModel();
+        byte[] foo = NameHash.nameHashAsBytes("foo.rsk");
+        byte[] btc = Hex.decode("80000000");
+        model.apply(log(REGISTRY, RNS.NEWRESOLVER_EVENT, node("foo.rsk"), new Address(RESOLVER)), REGISTRY);
+        model.apply(log(RESOLVER, MultiChainResolver.CHAINADDRCHANGED_EVENT, node("foo.rsk"),
+                new Bytes4(btc), new Utf8String("1BvBMSEYstWetqTFn5Au4m4GFg7xJaNVN2")), REGISTRY);
+
+        assertEquals("1BvBMSEYstWetqTFn5Au4m4GFg7xJaNVN2", model.getAddress(foo, btc));
+        assertNull(model.getAddress(foo, RSK_CHAIN_ID));
+    }
+
+    @Test
+    public void testContent() {
+        RegistryModel model = new RegistryModel();
+        byte[] foo = NameHash.nameHashAsBytes("foo.rsk");
+        byte[] content = Hash.sha3("content".getBytes());
+        model.apply(log(REGISTRY, RNS.NEWRESOLVER_EVENT, node("foo.rsk"), new Address(RESOLVER)), REGISTRY);
+        model.apply(log(RESOLVER, MultiChainResolver.CONTENTCHANGED_EVENT, new ArrayList<String>(),
+                new Bytes32(foo), new Bytes32(content)), REGISTRY);
+
+        assertArrayEquals(content, model.getContent(foo));
+    }
+
+    private static List<String> node(String name) {
+        return Arrays.asList(NameHash.nameHash(name));
+    }
+
+    // FunctionEncoder takes the values as a List of the raw Type
+    @SuppressWarnings("rawtypes")
+    static Log log(String address, Event event, List<String> indexed, Type<?>... values) {
+        List<String> topics = new ArrayList<>();
+        topics.add(EventEncoder.encode(event));
+        topics.addAll(indexed);
+        Log log = new Log();
+        log.setAddress(address);
+        log.setTopics(topics);
+        log.setData("0x" + FunctionEncoder.encodeConstructor(Arrays.<Type>asList(values)));
+        return log;
+    }
+}
@@ -0,0 +1,147 @@
+package co.rsk.rnssdk.indexer;
+
+import org.bouncycastle.util.encoders.Hex;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.web3j.abi.datatypes.Address;
+import org.web3j.abi.datatypes.generated.Bytes32;
+import org.web3j.abi.datatypes.generated.Uint64;
+import org.web3j.crypto.Hash;
+import org.web3j.ens.NameHash;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import co.rsk.rnssdk.contracts.MultiChainResolver;
+import co.rsk.rnssdk.contracts.RNS;
+
+import static co.rsk.rnssdk.indexer.RegistryModelTest.log;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RegistrySnapshotTest {
+
+    private static final String REGISTRY = "0x99a12be4c89cbf6cfd11d1f2c029904a7b644368";
+    private static final String RESOLVER = "0x4efd25e3d348f8f25a14fb7655fba6f72edfe93a";
+    private static final String OWNER = "0x1111111111111111111111111111111111111111";
+    private static final String ADDRESS = "0x2222222222222222222222222222222222222222";
+    private static final byte[] RSK_CHAIN_ID = Hex.decode("80000089");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testSnapshotKeepsTheModelState() throws IOException {
+        RegistryModel model = new RegistryModel();
+        byte[] foo = NameHash.nameHashAsBytes("foo.rsk");
+        byte[] content = Hash.sha3("content".getBytes());
+        model.apply(log(REGISTRY, RNS.TRANSFER_EVENT, node("foo.rsk"), new Address(OWNER)), REGISTRY);
+        model.apply(log(REGISTRY, RNS.NEWRESOLVER_EVENT, node("foo.rsk"), new Address(RESOLVER)), REGISTRY);
+        model.apply(log(REGISTRY, RNS.NEWTTL_EVENT, node("foo.rsk"), new Uint64(BigInteger.valueOf(3600))), REGISTRY);
+        model.apply(log(RESOLVER, MultiChainResolver.ADDRCHANGED_EVENT, node("foo.rsk"), new Address(ADDRESS)), REGISTRY);
+        model.apply(log(RESOLVER, MultiChainResolver.CONTENTCHANGED_EVENT, new ArrayList<String>(),
+                new Bytes32(foo), new Bytes32(content)), REGISTRY);
+        model.setLastIndexedBlock(1234);
+        model.setFromDeployment(true);
+        File file = folder.newFile();
+
+        RegistrySnapshot.write(model, file);
+        RegistrySnapshot snapshot = RegistrySnapshot.open(file);
+
+        assertEquals(1234, snapshot.getLastIndexedBlock());
+        assertTrue(snapshot.isFromDeployment());
+        assertTrue(new RegistryModel(snapshot).isFromDeployment());
+        assertEquals(1, snapshot.size());
+        assertEquals(OWNER, snapshot.getOwner(foo));
+        assertEquals(RESOLVER, snapshot.getResolver(foo));
+        assertEquals(BigInteger.valueOf(3600), snapshot.getTtl(foo));
+        assertEquals(ADDRESS, snapshot.getAddress(foo));
+        assertArrayEquals(content, snapshot.getContent(foo));
+        assertNull(snapshot.getOwner(NameHash.nameHashAsBytes("bar.rsk")));
+    }
+
+    @Test
+    public void testEveryNodeIsFoundInALargeSnapshot() throws IOException {
+        RegistryModel model = new RegistryModel();
+        for (int i = 0; i < 500; i++) {
+            model.apply(log(REGISTRY, RNS.TRANSFER_EVENT, node("name" + i + ".rsk"), new Address(OWNER)), REGISTRY);
+        }
+        File file = folder.newFile();
+        RegistrySnapshot.write(model, file);
+        RegistrySnapshot snapshot = RegistrySnapshot.open(file);
+
+        for (int i = 0; i < 500; i++) {
+            assertEquals(OWNER, snapshot.getOwner(NameHash.nameHashAsBytes("name" + i + ".rsk")));
+        }
+        assertNull(snapshot.getOwner(NameHash.nameHashAsBytes("name500.rsk")));
+    }
+
+    @Test
+    public void testModelStartsFromSnapshotAndNewEventsWin() throws IOException {
+        RegistryModel model = new RegistryModel();
+        byte[] foo = NameHash.nameHashAsBytes("foo.rsk");
+        model.apply(log(REGISTRY, RNS.TRANSFER_EVENT, node("foo.rsk"), new Address(OWNER)), REGISTRY);
+        model.apply(log(REGISTRY, RNS.NEWRESOLVER_EVENT, node("foo.rsk"), new Address(RESOLVER)), REGISTRY);
+        model.apply(log(RESOLVER, MultiChainResolver.ADDRCHANGED_EVENT, node("foo.rsk"), new Address(ADDRESS)), REGISTRY);
+        model.setLastIndexedBlock(50);
+        File file = folder.newFile();
+        RegistrySnapshot.write(model, file);
+
+        RegistryModel restored = new RegistryModel(RegistrySnapshot.open(file));
+        assertEquals(50, restored.getLastIndexedBlock());
+        assertEquals(ADDRESS, restored.getAddress(foo, RSK_CHAIN_ID));
+
+        restored.apply(log(REGISTRY, RNS.TRANSFER_EVENT, node("foo.rsk"), new Address(ADDRESS)), REGISTRY);
+        assertEquals(ADDRESS, restored.getOwner(foo));
+        assertEquals(RESOLVER, restored.getResolver(foo));
+
+        restored.apply(log(RESOLVER, MultiChainResolver.ADDRCHANGED_EVENT, node("foo.rsk"), new Address(OWNER)), REGISTRY);
+        assertEquals(OWNER, restored.getAddress(foo, RSK_CHAIN_ID));
+    }
+
+    @Test
+    public void testRejectsOtherFiles() throws IOException {
+        File file = folder.newFile();
+        FileOutputStream output = new FileOutputStream(file);
+        output.write(new byte[64]);
+        output.close();
+        try {
+            RegistrySnapshot.open(file);
+            fail();
+        } catch (IOException e) {
+            assertEquals("Not a registry snapshot", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testRejectsSnapshotsLongerThanAMapping() throws IOException {
+        File file = folder.newFile();
+        DataOutputStream output = new DataOutputStream(new FileOutputStream(file));
+        output.writeInt(RegistrySnapshot.MAGIC);
+        output.writeInt(RegistrySnapshot.VERSION);
+        output.writeLong(0);
+        output.writeInt(RegistrySnapshot.MAX_RECORDS + 1);
+        output.writeInt(0);
+        output.close();
+        try {
+            RegistrySnapshot.open(file);
+            fail();
+        } catch (IOException e) {
+            assertEquals("Invalid registry snapshot size " + (RegistrySnapshot.MAX_RECORDS + 1), e.getMessage());
+        }
+    }
+
+    private static List<String> node(String name) {
+        return Arrays.asList(NameHash.nameHash(name));
+    }
+}